@@ -4,11 +4,13 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.openfeign.EnableFeignClients;
 import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import ru.practicum.interaction.config.ExceptionHandlingConfig;
 import ru.practicum.interaction.config.JacksonConfig;
 import ru.practicum.interaction.config.LoggingConfig;
 
 @SpringBootApplication
+@EnableScheduling
 @EnableFeignClients("ru.practicum.interaction")
 @Import({LoggingConfig.class, JacksonConfig.class, ExceptionHandlingConfig.class})
 public class EventApp {
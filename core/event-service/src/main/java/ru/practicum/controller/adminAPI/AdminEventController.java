@@ -4,6 +4,7 @@ import jakarta.validation.Valid;
 import jakarta.validation.constraints.Positive;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.interaction.dto.event.EventFullDto;
@@ -25,17 +26,19 @@ public class AdminEventController {
     private final String dateTimePattern = "yyyy-MM-dd HH:mm:ss";
 
     /**
-     * Поиск событий. Поддерживается фильтрация и пагинация
+     * Поиск событий. Поддерживается фильтрация и пагинация.
+     * Если страница не последняя, строка для следующей страницы возвращается в заголовке X-Next-Cursor
      */
     @GetMapping
-    public List<EventFullDto> getEventsByParams(
+    public ResponseEntity<List<EventFullDto>> getEventsByParams(
             @RequestParam(required = false) List<Long> users,
             @RequestParam(required = false) List<EventState> states,
             @RequestParam(required = false) List<Long> categories,
             @RequestParam(required = false) @DateTimeFormat(pattern = dateTimePattern) LocalDateTime rangeStart,
             @RequestParam(required = false) @DateTimeFormat(pattern = dateTimePattern) LocalDateTime rangeEnd,
             @RequestParam(defaultValue = "0") Integer from,
-            @RequestParam(defaultValue = "10") Integer size) {
+            @RequestParam(defaultValue = "10") Integer size,
+            @RequestParam(required = false) String cursor) {
 
         EventAdminSearchParam params = EventAdminSearchParam.builder()
                 .users(users)
@@ -45,9 +48,10 @@ public class AdminEventController {
                 .rangeEnd(rangeEnd)
                 .from(from)
                 .size(size)
+                .cursor(cursor)
                 .build();
 
-        return eventService.getEventsByParams(params);
+        return eventService.getEventsByParams(params).toResponseEntity();
     }
 
     /**
@@ -5,10 +5,16 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import ru.practicum.interaction.dto.event.EventFullDto;
+import ru.practicum.interaction.dto.participation.ConfirmedDeltaDto;
 import ru.practicum.service.EventService;
+import ru.practicum.service.confirmed.ConfirmedRequestsService;
+
+import java.util.List;
 
 /**
  * Внутренний контроллер, необходимый для взаимодействия микросервисов
@@ -19,6 +25,7 @@ import ru.practicum.service.EventService;
 @RequiredArgsConstructor
 public class InternalEventController {
     private final EventService eventService;
+    private final ConfirmedRequestsService confirmedRequestsService;
 
     /**
      * Получить информацию о событии.
@@ -28,4 +35,13 @@ public class InternalEventController {
     public EventFullDto getEventForParticipationService(@PathVariable @Positive Long eventId) {
         return eventService.getEventByIdForParticipation(eventId);
     }
+
+    /**
+     * Применить изменения количества подтверждённых заявок.
+     * Метод вызывается из микросервиса Participation.
+     */
+    @PostMapping("/events/confirmed-requests")
+    public void applyConfirmedDeltas(@RequestBody List<ConfirmedDeltaDto> deltas) {
+        confirmedRequestsService.applyDeltas(deltas);
+    }
 }
@@ -5,6 +5,7 @@ import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.PositiveOrZero;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.interaction.dto.event.EventFullDto;
@@ -29,20 +30,23 @@ public class PrivateEventController {
     private final String requests = "/{eventId}/requests";
 
     /**
-     * Получение событий, добавленных текущим пользователем
+     * Получение событий, добавленных текущим пользователем.
+     * Если страница не последняя, строка для следующей страницы возвращается в заголовке X-Next-Cursor
      */
     @GetMapping
-    public List<EventShortDto> getUsersEvents(@PathVariable @Positive Long userId,
-                                              @RequestParam(defaultValue = "0") @PositiveOrZero Integer from,
-                                              @RequestParam(defaultValue = "10") @Positive Integer size) {
+    public ResponseEntity<List<EventShortDto>> getUsersEvents(@PathVariable @Positive Long userId,
+                                                              @RequestParam(defaultValue = "0") @PositiveOrZero Integer from,
+                                                              @RequestParam(defaultValue = "10") @Positive Integer size,
+                                                              @RequestParam(required = false) String cursor) {
 
         EventUserSearchParam params = EventUserSearchParam.builder()
                 .userId(userId)
                 .from(from)
                 .size(size)
+                .cursor(cursor)
                 .build();
 
-        return eventService.getUsersEvents(params);
+        return eventService.getUsersEvents(params).toResponseEntity();
     }
 
     /**
@@ -6,6 +6,7 @@ import jakarta.validation.constraints.PositiveOrZero;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.StatsClient;
@@ -16,6 +17,7 @@ import ru.practicum.interaction.exception.BadRequestException;
 import ru.practicum.interaction.params.PublicEventSearchParam;
 import ru.practicum.interaction.params.SortSearchParam;
 import ru.practicum.service.EventService;
+import ru.practicum.service.enrichment.ViewsCache;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
@@ -30,10 +32,11 @@ public class PublicEventController {
 
     private final EventService eventService;
     private final StatsClient statsClient;
+    private final ViewsCache viewsCache;
     private final String dateTimePattern = "yyyy-MM-dd HH:mm:ss";
 
     @GetMapping
-    public List<EventShortDto> getEvents(
+    public ResponseEntity<List<EventShortDto>> getEvents(
             @RequestParam(required = false) String text,
             @RequestParam(required = false) List<Long> categories,
             @RequestParam(required = false) List<Long> users,
@@ -44,6 +47,7 @@ public class PublicEventController {
             @RequestParam(defaultValue = "EVENT_DATE") SortSearchParam sort,
             @RequestParam(defaultValue = "0") @PositiveOrZero Integer from,
             @RequestParam(defaultValue = "10") @Positive Integer size,
+            @RequestParam(required = false) String cursor,
             HttpServletRequest request) {
 
         if (rangeEnd == null) {
@@ -74,9 +78,10 @@ public class PublicEventController {
                 .sort(sort)
                 .from(from)
                 .size(size)
+                .cursor(cursor)
                 .build();
 
-        return eventService.searchEvents(param);
+        return eventService.searchEvents(param).toResponseEntity();
     }
 
     @GetMapping("/{id}")
@@ -90,6 +95,7 @@ public class PublicEventController {
                 .ip(request.getRemoteAddr())
                 .timestamp(timestamp)
                 .build());
+        viewsCache.onHit(id, request.getRemoteAddr());
 
         return eventService.getEventById(id);
     }
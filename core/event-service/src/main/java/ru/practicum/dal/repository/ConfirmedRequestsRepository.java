@@ -0,0 +1,110 @@
+package ru.practicum.dal.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Копия количества подтверждённых заявок по событиям. version увеличивается при каждом изменении
+ * и позволяет сверке не перезаписать изменение, применённое во время её выполнения.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ConfirmedRequestsRepository {
+    private static final String ADD_SQL = """
+            INSERT INTO event_confirmed_requests (event_id, confirmed, version)
+            VALUES (?, ?, 1)
+            ON CONFLICT (event_id)
+            DO UPDATE SET confirmed = event_confirmed_requests.confirmed + EXCLUDED.confirmed,
+                          version = event_confirmed_requests.version + 1""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    /**
+     * Отметить изменение как применённое
+     * @return false, если изменение уже было применено
+     */
+    public boolean markApplied(Long deltaId) {
+        return jdbcTemplate.update(
+                "INSERT INTO applied_confirmed_deltas (id, applied_at) VALUES (?, ?) ON CONFLICT (id) DO NOTHING",
+                deltaId, Timestamp.valueOf(LocalDateTime.now())) == 1;
+    }
+
+    public void add(Long eventId, long delta) {
+        jdbcTemplate.update(ADD_SQL, eventId, delta);
+    }
+
+    /**
+     * Количество подтверждённых заявок, события без записи отсутствуют
+     */
+    public Map<Long, Long> findConfirmed(Collection<Long> eventIds) {
+        return findColumn(eventIds, "confirmed");
+    }
+
+    public Map<Long, Long> findVersions(Collection<Long> eventIds) {
+        return findColumn(eventIds, "version");
+    }
+
+    public Set<Long> findApplied(Collection<Long> deltaIds) {
+        if (deltaIds.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(namedJdbcTemplate.queryForList(
+                "SELECT id FROM applied_confirmed_deltas WHERE id IN (:ids)",
+                new MapSqlParameterSource("ids", deltaIds), Long.class));
+    }
+
+    /**
+     * Заменить значение, если запись не менялась с момента чтения версии
+     * @param version прочитанная версия, null - записи не было
+     * @return false, если запись изменилась
+     */
+    public boolean replace(Long eventId, Long version, long confirmed) {
+        if (version == null) {
+            return jdbcTemplate.update("""
+                    INSERT INTO event_confirmed_requests (event_id, confirmed, version)
+                    VALUES (?, ?, 1)
+                    ON CONFLICT (event_id) DO NOTHING""", eventId, confirmed) == 1;
+        }
+        return jdbcTemplate.update(
+                "UPDATE event_confirmed_requests SET confirmed = ?, version = version + 1 WHERE event_id = ? AND version = ?",
+                confirmed, eventId, version) == 1;
+    }
+
+    /**
+     * Идентификаторы событий по возрастанию для постраничного обхода
+     */
+    public List<Long> findEventIdsAfter(long afterId, int limit) {
+        return jdbcTemplate.queryForList("SELECT id FROM events WHERE id > ? ORDER BY id LIMIT ?",
+                Long.class, afterId, limit);
+    }
+
+    public int deleteAppliedBefore(LocalDateTime cutoff) {
+        return jdbcTemplate.update("DELETE FROM applied_confirmed_deltas WHERE applied_at < ?", Timestamp.valueOf(cutoff));
+    }
+
+    private Map<Long, Long> findColumn(Collection<Long> eventIds, String column) {
+        Map<Long, Long> result = new HashMap<>();
+        if (eventIds.isEmpty()) {
+            return result;
+        }
+        namedJdbcTemplate.query("SELECT event_id, " + column + " FROM event_confirmed_requests WHERE event_id IN (:ids)",
+                new MapSqlParameterSource("ids", eventIds),
+                rs -> {
+                    result.put(rs.getLong(1), rs.getLong(2));
+                });
+        return result;
+    }
+}
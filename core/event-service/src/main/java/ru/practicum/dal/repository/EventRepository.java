@@ -1,8 +1,5 @@
 package ru.practicum.dal.repository;
 
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import ru.practicum.dal.entity.Event;
@@ -10,13 +7,10 @@ import ru.practicum.interaction.dto.event.EventState;
 
 import java.util.Optional;
 
-public interface EventRepository extends JpaRepository<Event, Long> {
+public interface EventRepository extends JpaRepository<Event, Long>, EventRepositoryCustom {
     @EntityGraph(attributePaths = {"category"})
-    Page<Event> findByInitiator(Long initiator, Pageable pageable);
+    Optional<Event> findWithCategoryById(Long id);
 
     @EntityGraph(attributePaths = {"category"})
     Optional<Event> findByIdAndState(Long id, EventState state);
-
-    @EntityGraph(attributePaths = {"category"})
-    Page<Event> findAll(Specification<Event> specification, Pageable pageable);
 }
@@ -0,0 +1,13 @@
+package ru.practicum.dal.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+import ru.practicum.dal.entity.Event;
+
+public interface EventRepositoryCustom {
+    /**
+     * Страница событий с категориями без подсчёта общего количества строк
+     */
+    Slice<Event> findSlice(Specification<Event> specification, Pageable pageable);
+}
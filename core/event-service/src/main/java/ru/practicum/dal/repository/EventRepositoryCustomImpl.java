@@ -0,0 +1,58 @@
+package ru.practicum.dal.repository;
+
+import jakarta.persistence.EntityGraph;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.dal.entity.Event;
+
+import java.util.List;
+
+@RequiredArgsConstructor
+public class EventRepositoryCustomImpl implements EventRepositoryCustom {
+    private static final String FETCH_GRAPH_HINT = "jakarta.persistence.fetchgraph";
+
+    private final EntityManager entityManager;
+
+    /**
+     * Запрашивается на одну строку больше размера страницы: её наличие означает, что есть следующая страница.
+     * Сортировка из pageable заменяет заданную спецификацией, если она указана.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<Event> findSlice(Specification<Event> specification, Pageable pageable) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Event> query = criteriaBuilder.createQuery(Event.class);
+        Root<Event> root = query.from(Event.class);
+
+        Predicate predicate = specification.toPredicate(root, query, criteriaBuilder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        if (pageable.getSort().isSorted()) {
+            query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, criteriaBuilder));
+        }
+
+        EntityGraph<Event> graph = entityManager.createEntityGraph(Event.class);
+        graph.addAttributeNodes("category");
+
+        List<Event> events = entityManager.createQuery(query)
+                .setHint(FETCH_GRAPH_HINT, graph)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize() + 1)
+                .getResultList();
+
+        boolean hasNext = events.size() > pageable.getPageSize();
+        List<Event> content = hasNext ? events.subList(0, pageable.getPageSize()) : events;
+        return new SliceImpl<>(content, pageable, hasNext);
+    }
+}
@@ -1,5 +1,6 @@
 package ru.practicum.dal.specifications;
 
+import jakarta.persistence.criteria.Expression;
 import jakarta.persistence.criteria.Path;
 import jakarta.persistence.criteria.Predicate;
 import lombok.experimental.UtilityClass;
@@ -8,12 +9,19 @@ import ru.practicum.dal.entity.Event;
 import ru.practicum.interaction.dto.event.EventState;
 import ru.practicum.interaction.params.EventAdminSearchParam;
 import ru.practicum.interaction.params.PublicEventSearchParam;
+import ru.practicum.interaction.params.SortSearchParam;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
 @UtilityClass
 public class EventSpecifications {
+    private static final char LIKE_ESCAPE = '\\';
+
+    /**
+     * Во сколько раз совпадение в аннотации весомее совпадения в описании при сортировке по релевантности
+     */
+    private static final double ANNOTATION_WEIGHT = 2.0;
 
     public static Specification<Event> userIdIs(List<Long> userIds) {
         return (root, query, criteriaBuilder) -> {
@@ -69,26 +77,72 @@ public class EventSpecifications {
         };
     }
 
+    /**
+     * Поиск подстроки без учёта регистра в аннотации или описании.
+     * Условие обслуживается триграммными индексами по lower(annotation) и lower(description).
+     */
     public static Specification<Event> textInAnnotationOrDescription(String text) {
         return (root, query, criteriaBuilder) -> {
             if (text == null || text.isBlank()) {
                 return criteriaBuilder.conjunction();
             }
 
+            String pattern = "%" + escapeLike(text.toLowerCase()) + "%";
+
             Predicate annotationPredicate = criteriaBuilder.like(
-                    criteriaBuilder.lower(root.get("annotation")),
-                    "%" + text.toLowerCase() + "%"
-            );
+                    criteriaBuilder.lower(root.get("annotation")), pattern, LIKE_ESCAPE);
 
             Predicate descriptionPredicate = criteriaBuilder.like(
-                    criteriaBuilder.lower(root.get("description")),
-                    "%" + text.toLowerCase() + "%"
-            );
+                    criteriaBuilder.lower(root.get("description")), pattern, LIKE_ESCAPE);
 
             return criteriaBuilder.or(annotationPredicate, descriptionPredicate);
         };
     }
 
+    /**
+     * Сортировка по релевантности: по убыванию триграммного сходства текста запроса
+     * с аннотацией и описанием, совпадение в аннотации весомее.
+     */
+    public static Specification<Event> orderByRelevance(String text) {
+        return (root, query, criteriaBuilder) -> {
+            if (text == null || text.isBlank()) {
+                return null;
+            }
+
+            String lowerText = text.toLowerCase();
+            Expression<Double> annotationSimilarity = criteriaBuilder.function("word_similarity", Double.class,
+                    criteriaBuilder.literal(lowerText), criteriaBuilder.lower(root.get("annotation")));
+            Expression<Double> descriptionSimilarity = criteriaBuilder.function("word_similarity", Double.class,
+                    criteriaBuilder.literal(lowerText), criteriaBuilder.lower(root.get("description")));
+            Expression<Double> rank = criteriaBuilder.sum(
+                    criteriaBuilder.prod(annotationSimilarity, ANNOTATION_WEIGHT), descriptionSimilarity);
+
+            query.orderBy(criteriaBuilder.desc(rank), criteriaBuilder.asc(root.get("id")));
+            return null;
+        };
+    }
+
+    /**
+     * События, следующие после позиции (eventDate, id) при сортировке по дате события и id
+     * или после позиции id при сортировке по id, если eventDate равна null.
+     * Условие eventDate >= :eventDate дублирует составное, чтобы граница попала в условие индекса.
+     */
+    public static Specification<Event> after(LocalDateTime eventDate, Long id) {
+        return (root, query, criteriaBuilder) -> {
+            Path<Long> idPath = root.get("id");
+            if (eventDate == null) {
+                return criteriaBuilder.greaterThan(idPath, id);
+            }
+
+            Path<LocalDateTime> eventDatePath = root.get("eventDate");
+            return criteriaBuilder.and(
+                    criteriaBuilder.greaterThanOrEqualTo(eventDatePath, eventDate),
+                    criteriaBuilder.or(
+                            criteriaBuilder.greaterThan(eventDatePath, eventDate),
+                            criteriaBuilder.greaterThan(idPath, id)));
+        };
+    }
+
     public static Specification<Event> eventAdminSearchParamSpec(EventAdminSearchParam params) {
         return userIdIs(params.getUsers())
                 .and(states(params.getStates()))
@@ -104,6 +158,13 @@ public class EventSpecifications {
                 .and(isPaid(params.getPaid()))
                 .and(startBefore(params.getRangeEnd()))
                 .and(startAfter(params.getRangeStart()))
-                .and(states(List.of(EventState.PUBLISHED)));
+                .and(states(List.of(EventState.PUBLISHED)))
+                .and(params.getSort() == SortSearchParam.RELEVANCE ? orderByRelevance(params.getText()) : null);
+    }
+
+    private static String escapeLike(String text) {
+        return text.replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
     }
 }
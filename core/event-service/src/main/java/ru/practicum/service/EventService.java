@@ -9,21 +9,22 @@ import ru.practicum.interaction.params.PublicEventSearchParam;
 import ru.practicum.interaction.dto.participation.EventRequestStatusUpdateRequest;
 import ru.practicum.interaction.dto.participation.EventRequestStatusUpdateResult;
 import ru.practicum.interaction.dto.participation.ParticipationRequestDto;
+import ru.practicum.service.pagination.CursorPage;
 
 import java.util.List;
 
 
 public interface EventService {
 
-    List<EventFullDto> getEventsByParams(EventAdminSearchParam param);
+    CursorPage<EventFullDto> getEventsByParams(EventAdminSearchParam param);
 
     EventFullDto updateEventByAdmin(Long eventId, UpdateEventAdminRequest request);
 
     EventFullDto getEventById(Long id);
 
-    List<EventShortDto> searchEvents(PublicEventSearchParam param);
+    CursorPage<EventShortDto> searchEvents(PublicEventSearchParam param);
 
-    List<EventShortDto> getUsersEvents(EventUserSearchParam param);
+    CursorPage<EventShortDto> getUsersEvents(EventUserSearchParam param);
 
     EventFullDto saveEvent(NewEventDto dto, Long userId);
 
@@ -0,0 +1,33 @@
+package ru.practicum.service.confirmed;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Сверка копии количества подтверждённых заявок с сервисом заявок
+ */
+@Getter
+@Setter
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@ConfigurationProperties(prefix = "event.confirmed-requests")
+public class ConfirmedRequestsProperties {
+    /**
+     * Интервал сверки всех событий
+     */
+    Duration reconcileInterval = Duration.ofMinutes(10);
+
+    /**
+     * Количество событий в одном запросе сверки
+     */
+    int reconcileBatchSize = 500;
+
+    /**
+     * Сколько хранятся идентификаторы применённых изменений
+     */
+    Duration appliedRetention = Duration.ofDays(7);
+}
@@ -0,0 +1,111 @@
+package ru.practicum.service.confirmed;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.dal.repository.ConfirmedRequestsRepository;
+import ru.practicum.interaction.client.RequestClient;
+import ru.practicum.interaction.dto.participation.ConfirmedDeltaDto;
+import ru.practicum.interaction.dto.participation.ConfirmedSnapshotDto;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Локальная копия количества подтверждённых заявок, чтобы чтение событий не обращалось к сервису заявок.
+ * Сервис заявок присылает изменения после каждой смены статуса заявок, повторно доставленное изменение
+ * не применяется. Периодическая сверка исправляет расхождения, например после восстановления БД.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@EnableConfigurationProperties(ConfirmedRequestsProperties.class)
+public class ConfirmedRequestsService {
+    private final ConfirmedRequestsRepository repository;
+    private final RequestClient requestClient;
+    private final ConfirmedRequestsProperties properties;
+
+    /**
+     * Применить изменения из сервиса заявок. Строки счётчиков блокируются в порядке id событий
+     */
+    @Transactional
+    public void applyDeltas(List<ConfirmedDeltaDto> deltas) {
+        deltas.stream()
+                .sorted(Comparator.comparing(ConfirmedDeltaDto::getEventId).thenComparing(ConfirmedDeltaDto::getId))
+                .forEach(delta -> {
+                    if (repository.markApplied(delta.getId())) {
+                        repository.add(delta.getEventId(), delta.getDelta());
+                    }
+                });
+        log.debug("Applied confirmed requests deltas: {}", deltas.size());
+    }
+
+    /**
+     * Количество подтверждённых заявок, события без подтверждённых заявок отсутствуют
+     */
+    public Map<Long, Long> getConfirmed(Collection<Long> eventIds) {
+        return repository.findConfirmed(eventIds);
+    }
+
+    @Scheduled(initialDelayString = "${event.confirmed-requests.reconcile-initial-delay:PT30S}",
+            fixedDelayString = "${event.confirmed-requests.reconcile-interval:PT10M}")
+    public void reconcile() {
+        long afterId = 0;
+        int fixed = 0;
+        List<Long> eventIds = repository.findEventIdsAfter(afterId, properties.getReconcileBatchSize());
+        while (!eventIds.isEmpty()) {
+            try {
+                fixed += reconcile(eventIds);
+            } catch (RuntimeException e) {
+                log.warn("Confirmed requests reconciliation interrupted: {}", e.getMessage());
+                return;
+            }
+            afterId = eventIds.getLast();
+            eventIds = repository.findEventIdsAfter(afterId, properties.getReconcileBatchSize());
+        }
+
+        repository.deleteAppliedBefore(LocalDateTime.now().minus(properties.getAppliedRetention()));
+        log.info("Confirmed requests reconciliation finished, fixed counters: {}", fixed);
+    }
+
+    /**
+     * Значение копии должно равняться количеству в сервисе заявок за вычетом изменений, которые ещё не применены.
+     * Счётчик заменяется, только если его версия не изменилась с момента до запроса снимка:
+     * изменения, применённые во время сверки, не перезаписываются
+     */
+    private int reconcile(List<Long> eventIds) {
+        Map<Long, Long> versions = repository.findVersions(eventIds);
+        ConfirmedSnapshotDto snapshot = requestClient.getConfirmedSnapshot(eventIds);
+        Set<Long> applied = repository.findApplied(snapshot.getPending().stream().map(ConfirmedDeltaDto::getId).toList());
+
+        Map<Long, Long> notApplied = new HashMap<>();
+        for (ConfirmedDeltaDto delta : snapshot.getPending()) {
+            if (!applied.contains(delta.getId())) {
+                notApplied.merge(delta.getEventId(), (long) delta.getDelta(), Long::sum);
+            }
+        }
+
+        Map<Long, Long> current = repository.findConfirmed(eventIds);
+        int fixed = 0;
+        for (Long eventId : eventIds) {
+            long expected = snapshot.getConfirmed().getOrDefault(eventId, 0L) - notApplied.getOrDefault(eventId, 0L);
+            long actual = current.getOrDefault(eventId, 0L);
+            if (actual == expected) {
+                continue;
+            }
+            if (repository.replace(eventId, versions.get(eventId), expected)) {
+                log.warn("Confirmed requests counter of event {} fixed: {} -> {}", eventId, actual, expected);
+                fixed++;
+            }
+        }
+        return fixed;
+    }
+}
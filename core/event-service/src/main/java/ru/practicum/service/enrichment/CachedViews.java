@@ -0,0 +1,64 @@
+package ru.practicum.service.enrichment;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * Количество просмотров события в кэше и ip, просмотры с которых уже учтены в нём
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PACKAGE)
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+class CachedViews {
+    /**
+     * Последнее значение, полученное из сервиса статистики
+     */
+    long views;
+    /**
+     * Момент начала загрузки значения по System.nanoTime
+     */
+    long loadedAt;
+    /**
+     * false - значение ещё ни разу не загружалось
+     */
+    boolean loaded;
+    /**
+     * Просмотры с новых ip после загрузки, ещё не подтверждённые сервисом статистики
+     */
+    long pendingViews;
+    /**
+     * Момент последнего просмотра с нового ip по System.nanoTime
+     */
+    long lastHitAt;
+    VisitorFilter visitors;
+
+    static CachedViews empty(VisitorFilter visitors) {
+        return new CachedViews(0, 0, false, 0, 0, visitors);
+    }
+
+    /**
+     * Значение с учётом ещё не подтверждённых просмотров
+     */
+    long getCurrentViews() {
+        return views + pendingViews;
+    }
+
+    CachedViews withHit(long hitAt) {
+        return new CachedViews(views, loadedAt, loaded, pendingViews + 1, hitAt, visitors);
+    }
+
+    CachedViews withVisitors(VisitorFilter filter) {
+        return new CachedViews(views, loadedAt, loaded, pendingViews, lastHitAt, filter);
+    }
+
+    /**
+     * Значение, загруженное запросом, начатым в startedAt.
+     * Просмотры, пришедшие во время загрузки, могли в неё не попасть и остаются неподтверждёнными.
+     */
+    CachedViews withLoaded(long loadedViews, long startedAt) {
+        long pending = (pendingViews > 0 && lastHitAt - startedAt > 0) ? pendingViews : 0;
+        return new CachedViews(loadedViews, startedAt, true, pending, lastHitAt, visitors);
+    }
+}
@@ -0,0 +1,20 @@
+package ru.practicum.service.enrichment;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Configuration
+@EnableConfigurationProperties({EnrichmentProperties.class, ViewsCacheProperties.class})
+public class EnrichmentConfiguration {
+    /**
+     * Виртуальные потоки для параллельных запросов к сервисам статистики и заявок
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService enrichmentExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("event-enrichment-", 0).factory());
+    }
+}
@@ -0,0 +1,23 @@
+package ru.practicum.service.enrichment;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Ограничение времени на получение просмотров для списков и карточек событий
+ */
+@Getter
+@Setter
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@ConfigurationProperties(prefix = "event.enrichment")
+public class EnrichmentProperties {
+    /**
+     * Время ожидания ответа сервиса статистики, по истечении просмотры считаются равными 0
+     */
+    Duration viewsTimeout = Duration.ofSeconds(2);
+}
@@ -0,0 +1,62 @@
+package ru.practicum.service.enrichment;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import ru.practicum.service.confirmed.ConfirmedRequestsService;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Получение просмотров и подтверждённых заявок событий.
+ * Просмотры берутся из {@link ViewsCache}, к сервису статистики обращаются только промахи кэша.
+ * Запрос просмотров выполняется параллельно с чтением локальной копии подтверждённых заявок
+ * и ограничен временем ожидания: при его истечении или ошибке просмотры равны 0.
+ * Вызывается вне транзакции, чтобы соединение с БД не удерживалось на время удалённых запросов.
+ */
+@Slf4j
+@Component
+public class EventEnricher {
+    private final ViewsCache viewsCache;
+    private final ConfirmedRequestsService confirmedRequestsService;
+    private final EnrichmentProperties properties;
+    private final ExecutorService executor;
+
+    public EventEnricher(ViewsCache viewsCache,
+                         ConfirmedRequestsService confirmedRequestsService,
+                         EnrichmentProperties properties,
+                         @Qualifier("enrichmentExecutor") ExecutorService executor) {
+        this.viewsCache = viewsCache;
+        this.confirmedRequestsService = confirmedRequestsService;
+        this.properties = properties;
+        this.executor = executor;
+    }
+
+    public EventEnrichment enrich(List<Long> eventIds) {
+        if (eventIds.isEmpty()) {
+            return new EventEnrichment(Map.of(), Map.of());
+        }
+
+        CompletableFuture<Map<Long, Long>> views = fetch("views",
+                () -> viewsCache.getViews(eventIds), properties.getViewsTimeout());
+        Map<Long, Long> confirmed = confirmedRequestsService.getConfirmed(eventIds);
+
+        return new EventEnrichment(views.join(), confirmed);
+    }
+
+    private CompletableFuture<Map<Long, Long>> fetch(String name, Supplier<Map<Long, Long>> call, Duration timeout) {
+        return CompletableFuture.supplyAsync(call, executor)
+                .orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS)
+                .exceptionally(e -> {
+                    log.warn("Failed to load {} for events, zeros are returned: {}", name, e.toString());
+                    return Map.of();
+                })
+                .thenApply(result -> result == null ? Map.of() : result);
+    }
+}
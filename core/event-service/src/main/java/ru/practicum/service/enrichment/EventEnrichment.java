@@ -0,0 +1,25 @@
+package ru.practicum.service.enrichment;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.experimental.FieldDefaults;
+
+import java.util.Map;
+
+/**
+ * Просмотры и подтверждённые заявки событий. Для событий, по которым сервис не ответил вовремя, - 0
+ */
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class EventEnrichment {
+    Map<Long, Long> views;
+    Map<Long, Long> confirmedRequests;
+
+    public long getViews(Long eventId) {
+        return views.getOrDefault(eventId, 0L);
+    }
+
+    public long getConfirmedRequests(Long eventId) {
+        return confirmedRequests.getOrDefault(eventId, 0L);
+    }
+}
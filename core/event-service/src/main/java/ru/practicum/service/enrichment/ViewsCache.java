@@ -0,0 +1,170 @@
+package ru.practicum.service.enrichment;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import ru.practicum.StatsClient;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Кэш уникальных просмотров событий с отдачей устаревших значений на время обновления (stale-while-revalidate).
+ * Значение моложе refresh-after отдаётся из кэша. Более старое отдаётся сразу, а обновление выполняется
+ * в фоне одним запросом для всех таких событий страницы. Отсутствующие в кэше события загружаются
+ * одним запросом. Пока сервис статистики недоступен, отдаются последние загруженные значения
+ * до вытеснения записи по max-stale.
+ * Просмотр события с ip, ещё не встречавшегося в фильтре записи, сразу увеличивает отдаваемое значение
+ * на 1 и запускает фоновое обновление, поэтому количество уникальных просмотров не отстаёт от просмотров,
+ * прошедших через этот экземпляр, а запросы к сервису статистики не выполняются на каждый просмотр.
+ */
+@Slf4j
+@Component
+public class ViewsCache {
+    private final StatsClient statsClient;
+    private final ViewsCacheProperties properties;
+    private final ExecutorService executor;
+    private final Cache<Long, CachedViews> cache;
+    private final Set<Long> refreshing = ConcurrentHashMap.newKeySet();
+
+    public ViewsCache(StatsClient statsClient,
+                      ViewsCacheProperties properties,
+                      @Qualifier("enrichmentExecutor") ExecutorService executor) {
+        this.statsClient = statsClient;
+        this.properties = properties;
+        this.executor = executor;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxSize())
+                .expireAfterWrite(properties.getMaxStale())
+                .build();
+    }
+
+    /**
+     * Количество уникальных просмотров событий
+     * @return отображение id события на количество просмотров, события без просмотров отсутствуют;
+     * null, если сервис статистики недоступен и в кэше нет ни одного из событий
+     */
+    public Map<Long, Long> getViews(List<Long> eventIds) {
+        if (!properties.isEnabled()) {
+            return statsClient.getEventViews(eventIds, true);
+        }
+
+        long now = System.nanoTime();
+        long refreshAfter = properties.getRefreshAfter().toNanos();
+        Map<Long, Long> views = new HashMap<>(eventIds.size());
+        List<Long> missing = new ArrayList<>();
+        List<Long> stale = new ArrayList<>();
+        for (Long eventId : eventIds) {
+            CachedViews cached = cache.getIfPresent(eventId);
+            if (cached == null || !cached.isLoaded()) {
+                missing.add(eventId);
+                continue;
+            }
+            views.put(eventId, cached.getCurrentViews());
+            if (cached.getPendingViews() > 0 || now - cached.getLoadedAt() >= refreshAfter) {
+                stale.add(eventId);
+            }
+        }
+
+        if (!stale.isEmpty()) {
+            refreshAsync(stale);
+        }
+        if (missing.isEmpty()) {
+            return views;
+        }
+
+        Map<Long, Long> loaded = load(missing);
+        if (loaded == null) {
+            return views.isEmpty() ? null : views;
+        }
+        views.putAll(loaded);
+        return views;
+    }
+
+    /**
+     * Учесть просмотр события, отправленный в сервис статистики этим экземпляром
+     */
+    public void onHit(Long eventId, String ip) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        cache.asMap().compute(eventId, (id, cached) -> {
+            CachedViews current = (cached == null) ? CachedViews.empty(newVisitorFilter()) : cached;
+            if (current.getVisitors().mightContain(ip)) {
+                return current;
+            }
+            current.getVisitors().add(ip);
+            // значение отдаётся с учётом просмотра до подтверждения фоновым обновлением
+            return current.withHit(System.nanoTime());
+        });
+    }
+
+    private void refreshAsync(List<Long> stale) {
+        List<Long> batch = new ArrayList<>(stale.size());
+        for (Long eventId : stale) {
+            if (refreshing.add(eventId)) {
+                batch.add(eventId);
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            executor.execute(() -> {
+                try {
+                    load(batch);
+                } finally {
+                    batch.forEach(refreshing::remove);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            batch.forEach(refreshing::remove);
+        }
+    }
+
+    /**
+     * Загрузить просмотры событий и сохранить их в кэш, для событий без просмотров сохраняется 0
+     * @return null, если сервис статистики недоступен, последние загруженные значения остаются в кэше
+     */
+    private Map<Long, Long> load(List<Long> eventIds) {
+        long startedAt = System.nanoTime();
+        Map<Long, Long> loaded;
+        try {
+            loaded = statsClient.getEventViews(eventIds, true);
+        } catch (RuntimeException e) {
+            log.warn("Failed to load views for {} events: {}", eventIds.size(), e.getMessage());
+            return null;
+        }
+        if (loaded == null) {
+            return null;
+        }
+
+        for (Long eventId : eventIds) {
+            long views = loaded.getOrDefault(eventId, 0L);
+            cache.asMap().compute(eventId, (id, cached) -> {
+                if (cached == null) {
+                    return CachedViews.empty(newVisitorFilter()).withLoaded(views, startedAt);
+                }
+                // переполненный фильтр заменяется пустым: ip до начала загрузки уже учтены в значении
+                return cached.getVisitors().isSaturated()
+                        ? cached.withVisitors(newVisitorFilter()).withLoaded(views, startedAt)
+                        : cached.withLoaded(views, startedAt);
+            });
+        }
+        return loaded;
+    }
+
+    private VisitorFilter newVisitorFilter() {
+        return new VisitorFilter(properties.getVisitorFilterBits());
+    }
+}
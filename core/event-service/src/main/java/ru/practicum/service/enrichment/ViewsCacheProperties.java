@@ -0,0 +1,42 @@
+package ru.practicum.service.enrichment;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Локальный кэш просмотров событий
+ */
+@Getter
+@Setter
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@ConfigurationProperties(prefix = "event.views-cache")
+public class ViewsCacheProperties {
+    boolean enabled = true;
+
+    /**
+     * Максимальное количество событий в кэше.
+     * Запись занимает около visitor-filter-bits / 8 + 100 байт, при значениях по умолчанию кэш - до ~35 МБ
+     */
+    long maxSize = 100_000;
+
+    /**
+     * Размер фильтра ip, просмотры с которых уже учтены в значении, в битах
+     */
+    int visitorFilterBits = 2048;
+
+    /**
+     * Время, в течение которого значение считается актуальным.
+     * Более старое значение отдаётся сразу и обновляется в фоне
+     */
+    Duration refreshAfter = Duration.ofSeconds(10);
+
+    /**
+     * Максимальный возраст значения, которое отдаётся, пока сервис статистики недоступен
+     */
+    Duration maxStale = Duration.ofMinutes(10);
+}
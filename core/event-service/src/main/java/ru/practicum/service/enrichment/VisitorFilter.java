@@ -0,0 +1,59 @@
+package ru.practicum.service.enrichment;
+
+/**
+ * Фильтр Блума ip, просмотры с которых уже учтены в значении кэша.
+ * Занимает фиксированный объём памяти независимо от количества ip. Ложное срабатывание означает,
+ * что просмотр с нового ip не увеличит значение до ближайшего обновления из сервиса статистики.
+ * Не потокобезопасен: используется только внутри compute кэша по ключу события.
+ */
+class VisitorFilter {
+    private static final int HASHES = 3;
+
+    private final long[] bits;
+    private final int size;
+    private int added;
+
+    VisitorFilter(int size) {
+        this.bits = new long[(size + 63) / 64];
+        this.size = bits.length * 64;
+    }
+
+    boolean mightContain(String ip) {
+        long hash = hash(ip);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= HASHES; i++) {
+            int bit = Math.floorMod(h1 + i * h2, size);
+            if ((bits[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    void add(String ip) {
+        long hash = hash(ip);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= HASHES; i++) {
+            int bit = Math.floorMod(h1 + i * h2, size);
+            bits[bit >>> 6] |= 1L << bit;
+        }
+        added++;
+    }
+
+    /**
+     * Доля ложных срабатываний превысила ~10%: фильтр нужно заменить пустым
+     */
+    boolean isSaturated() {
+        return added > size / 5;
+    }
+
+    private static long hash(String ip) {
+        // перемешивание из SplitMix64
+        long z = ip.hashCode() * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
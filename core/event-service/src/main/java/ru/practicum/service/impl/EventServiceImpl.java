@@ -2,16 +2,19 @@ package ru.practicum.service.impl;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
-import ru.practicum.StatsClient;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.practicum.dal.entity.Category;
 import ru.practicum.dal.entity.Event;
 import ru.practicum.dal.repository.CategoryRepository;
 import ru.practicum.dal.repository.EventRepository;
 import ru.practicum.dal.specifications.EventSpecifications;
-import ru.practicum.dto.ViewStatsDto;
 import ru.practicum.dto.event.*;
 import ru.practicum.interaction.client.RequestClient;
 import ru.practicum.interaction.dto.event.EventFullDto;
@@ -21,6 +24,7 @@ import ru.practicum.interaction.dto.participation.ConfirmingParticipationRequest
 import ru.practicum.interaction.dto.participation.EventRequestStatusUpdateRequest;
 import ru.practicum.interaction.dto.participation.EventRequestStatusUpdateResult;
 import ru.practicum.interaction.dto.participation.ParticipationRequestDto;
+import ru.practicum.interaction.exception.BadRequestException;
 import ru.practicum.interaction.exception.ConflictException;
 import ru.practicum.interaction.exception.EntityNotFoundException;
 import ru.practicum.interaction.exception.NotFoundException;
@@ -31,15 +35,17 @@ import ru.practicum.interaction.params.PublicEventSearchParam;
 import ru.practicum.interaction.params.SortSearchParam;
 import ru.practicum.mapper.EventMapper;
 import ru.practicum.service.EventService;
+import ru.practicum.service.enrichment.EventEnricher;
+import ru.practicum.service.enrichment.EventEnrichment;
+import ru.practicum.service.pagination.CursorPage;
+import ru.practicum.service.pagination.EventCursor;
 
 import java.time.LocalDateTime;
 import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
 import java.util.stream.Stream;
 
-import static java.util.stream.Collectors.toMap;
 import static ru.practicum.dal.specifications.EventSpecifications.eventAdminSearchParamSpec;
 import static ru.practicum.dal.specifications.EventSpecifications.eventPublicSearchParamSpec;
 
@@ -52,110 +58,126 @@ public class EventServiceImpl implements EventService {
     private final EventRepository eventRepository;
     private final CategoryRepository categoryRepository;
     private final EventMapper eventMapper;
-    private final StatsClient statsClient;
     private final RequestClient requestClient;
+    private final EventEnricher eventEnricher;
+    private final TransactionTemplate transactionTemplate;
 
     /**
-     * Поиск событий
+     * Поиск событий. Методы чтения выполняются без общей транзакции: запросы репозитория
+     * освобождают соединение до обращения к сервисам статистики и заявок
      */
     @Override
     @Loggable
-    public List<EventFullDto> getEventsByParams(EventAdminSearchParam params) {
-        Page<Event> events = eventRepository.findAll(eventAdminSearchParamSpec(params), params.getPageable());
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CursorPage<EventFullDto> getEventsByParams(EventAdminSearchParam params) {
+        Slice<Event> events = findSlice(eventAdminSearchParamSpec(params), params.getPageable(),
+                params.getCursor(), false);
         List<Long> eventIds = events.stream()
                 .map(Event::getId)
                 .toList();
 
-        Map<Long, Long> views = getViews(eventIds);
-        Map<Long, Long> confirmedRequests = requestClient.getConfirmedRequestsCount(eventIds);
+        EventEnrichment enrichment = eventEnricher.enrich(eventIds);
 
-        return events.get()
+        List<EventFullDto> content = events.stream()
                 .map(event -> eventMapper.toFullDto(event,
-                        views.getOrDefault(event.getId(), 0L),
-                        confirmedRequests.getOrDefault(event.getId(), 0L)))
+                        enrichment.getViews(event.getId()),
+                        enrichment.getConfirmedRequests(event.getId())))
                 .toList();
+        return new CursorPage<>(content, nextCursor(events, false));
     }
 
     /**
      * Редактирование данных события и его статуса (отклонение / публикация) администратором.
+     * Изменение фиксируется отдельной транзакцией, просмотры и заявки запрашиваются после её завершения
      */
     @Override
     @Loggable
-    @Transactional
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public EventFullDto updateEventByAdmin(Long eventId, UpdateEventAdminRequest request) {
-        Event event = getEventByIdOrElseThrow(eventId);
-        if (event.getState() != EventState.PENDING && request.getStateAction() == AdminEventAction.PUBLISH_EVENT) {
-            throw new ConflictException("The event to be published must be in state PENDING, but it " + event.getState());
-        }
-        if (event.getState() == EventState.PUBLISHED && request.getStateAction() == AdminEventAction.REJECT_EVENT) {
-            throw new ConflictException("Cannot reject the event with state PUBLISHED");
-        }
-        if (event.getEventDate().minusHours(1).isBefore(LocalDateTime.now())) {
-            throw new ConflictException("To late to change event");
-        }
-
-        Category category = event.getCategory();
-        if (request.getCategory() != null) {
-            category = getCategoryByIdOrElseThrow(request.getCategory());
-        }
-
-        eventMapper.updateEntity(event, request, category);
-        if (request.getStateAction() == AdminEventAction.PUBLISH_EVENT) {
-            event.setState(EventState.PUBLISHED);
-            event.setPublishedOn(LocalDateTime.now());
-        } else if (request.getStateAction() == AdminEventAction.REJECT_EVENT) {
-            event.setState(EventState.CANCELED);
-        }
-
-        eventRepository.save(event);
+        Event event = transactionTemplate.execute(status -> {
+            Event eventToUpdate = getEventWithCategoryOrElseThrow(eventId);
+            if (eventToUpdate.getState() != EventState.PENDING
+                    && request.getStateAction() == AdminEventAction.PUBLISH_EVENT) {
+                throw new ConflictException("The event to be published must be in state PENDING, but it "
+                        + eventToUpdate.getState());
+            }
+            if (eventToUpdate.getState() == EventState.PUBLISHED
+                    && request.getStateAction() == AdminEventAction.REJECT_EVENT) {
+                throw new ConflictException("Cannot reject the event with state PUBLISHED");
+            }
+            if (eventToUpdate.getEventDate().minusHours(1).isBefore(LocalDateTime.now())) {
+                throw new ConflictException("To late to change event");
+            }
+
+            Category category = eventToUpdate.getCategory();
+            if (request.getCategory() != null) {
+                category = getCategoryByIdOrElseThrow(request.getCategory());
+            }
+
+            eventMapper.updateEntity(eventToUpdate, request, category);
+            if (request.getStateAction() == AdminEventAction.PUBLISH_EVENT) {
+                eventToUpdate.setState(EventState.PUBLISHED);
+                eventToUpdate.setPublishedOn(LocalDateTime.now());
+            } else if (request.getStateAction() == AdminEventAction.REJECT_EVENT) {
+                eventToUpdate.setState(EventState.CANCELED);
+            }
+
+            return eventRepository.save(eventToUpdate);
+        });
         log.info("Event {} are updated by Admin", eventId);
 
-        Map<Long, Long> views = getViews(List.of(eventId));
-        Map<Long, Long> confirmed = requestClient.getConfirmedRequestsCount(List.of(eventId));
+        EventEnrichment enrichment = eventEnricher.enrich(List.of(eventId));
 
         return eventMapper.toFullDto(event,
-                views.getOrDefault(eventId, 0L),
-                confirmed.getOrDefault(eventId, 0L));
+                enrichment.getViews(eventId),
+                enrichment.getConfirmedRequests(eventId));
     }
 
     @Override
     @Loggable
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public EventFullDto getEventById(Long id) {
         Event event = eventRepository.findByIdAndState(id, EventState.PUBLISHED)
                 .orElseThrow(() -> new NotFoundException("Событие не найдено или не опубликовано"));
 
-        Map<Long, Long> views = getViews(List.of(event.getId()));
-        Map<Long, Long> confirmed = requestClient.getConfirmedRequestsCount(List.of(id));
-        
+        EventEnrichment enrichment = eventEnricher.enrich(List.of(id));
+
         return eventMapper.toFullDto(event,
-                views.getOrDefault(id, 0L),
-                confirmed.getOrDefault(id, 0L));
+                enrichment.getViews(id),
+                enrichment.getConfirmedRequests(id));
     }
 
     @Override
     @Loggable
-    public List<EventShortDto> searchEvents(PublicEventSearchParam param) {
-        Page<Event> events = eventRepository.findAll(eventPublicSearchParamSpec(param), param.getPageable());
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CursorPage<EventShortDto> searchEvents(PublicEventSearchParam param) {
+        boolean byRelevance = param.getSort() == SortSearchParam.RELEVANCE
+                && param.getText() != null && !param.getText().isBlank();
+        if (byRelevance && param.getCursor() != null) {
+            throw new BadRequestException("Cursor is not supported for sort RELEVANCE, use from instead");
+        }
+        boolean byEventDate = param.getSort() != SortSearchParam.VIEWS;
+
+        Slice<Event> events = findSlice(eventPublicSearchParamSpec(param), param.getPageable(),
+                param.getCursor(), byEventDate);
         List<Long> eventIds = events.stream().map(Event::getId).toList();
 
-        Map<Long, Long> views = getViews(eventIds);
-        Map<Long, Long> confirmed = requestClient.getConfirmedRequestsCount(eventIds);
+        EventEnrichment enrichment = eventEnricher.enrich(eventIds);
 
         Stream<EventShortDto> eventShortDtoStream = events.stream()
                 .map(event -> {
-                    if (param.getOnlyAvailable() && confirmed.get(event.getId()) >= event.getParticipantLimit()) {
+                    long confirmed = enrichment.getConfirmedRequests(event.getId());
+                    if (param.getOnlyAvailable() && confirmed >= event.getParticipantLimit()) {
                         return null;
                     }
-                    return eventMapper.toShortDto(event,
-                            views.getOrDefault(event.getId(), 0L),
-                            confirmed.getOrDefault(event.getId(), 0L));
+                    return eventMapper.toShortDto(event, enrichment.getViews(event.getId()), confirmed);
                 })
                 .filter(Objects::nonNull);
 
         if (param.getSort() == SortSearchParam.VIEWS) {
             eventShortDtoStream = eventShortDtoStream.sorted(Comparator.comparingLong(EventShortDto::getViews));
         }
-        return eventShortDtoStream.toList();
+        return new CursorPage<>(eventShortDtoStream.toList(), byRelevance ? null : nextCursor(events, byEventDate));
     }
 
     /**
@@ -163,18 +185,20 @@ public class EventServiceImpl implements EventService {
      */
     @Override
     @Loggable
-    public List<EventShortDto> getUsersEvents(EventUserSearchParam param) {
-        Page<Event> events = eventRepository.findByInitiator(param.getUserId(), param.getPageable());
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CursorPage<EventShortDto> getUsersEvents(EventUserSearchParam param) {
+        Slice<Event> events = findSlice(EventSpecifications.userIdIs(List.of(param.getUserId())),
+                param.getPageable(), param.getCursor(), false);
         List<Long> eventIds = events.stream().map(Event::getId).toList();
 
-        Map<Long, Long> views = getViews(eventIds);
-        Map<Long, Long> confirmedRequests = requestClient.getConfirmedRequestsCount(eventIds);
+        EventEnrichment enrichment = eventEnricher.enrich(eventIds);
 
-        return events.stream()
+        List<EventShortDto> content = events.stream()
                 .map(event -> eventMapper.toShortDto(event,
-                                views.getOrDefault(event.getId(), 0L),
-                                confirmedRequests.getOrDefault(event.getId(), 0L)))
+                                enrichment.getViews(event.getId()),
+                                enrichment.getConfirmedRequests(event.getId())))
                 .toList();
+        return new CursorPage<>(content, nextCursor(events, false));
     }
 
     /**
@@ -202,62 +226,55 @@ public class EventServiceImpl implements EventService {
      */
     @Override
     @Loggable
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public EventFullDto getEventByIdAndUserId(Long eventId, Long userId) {
-        Event event = getEventByIdOrElseThrow(eventId);
+        Event event = eventRepository.findWithCategoryById(eventId)
+                .orElseThrow(() -> new EntityNotFoundException("Event", eventId.toString()));
         checkUserIsEventInitiator(event, userId);
 
-        Map<Long, Long> views = getViews(List.of(event.getId()));
-        Map<Long, Long> confirmed = requestClient.getConfirmedRequestsCount(List.of(eventId));
+        EventEnrichment enrichment = eventEnricher.enrich(List.of(eventId));
 
         return eventMapper.toFullDto(event,
-                views.getOrDefault(eventId, 0L),
-                confirmed.getOrDefault(eventId, 0L));
+                enrichment.getViews(eventId),
+                enrichment.getConfirmedRequests(eventId));
     }
 
+    /**
+     * Редактирование события автором. Изменение фиксируется отдельной транзакцией,
+     * просмотры и заявки запрашиваются после её завершения
+     */
     @Override
     @Loggable
-    @Transactional
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public EventFullDto updateEventByUser(Long eventId, Long userId, UpdateEventUserRequest request) {
-        Event eventToUpdate = getEventByIdOrElseThrow(eventId);
-        checkUserIsEventInitiator(eventToUpdate, userId);
-        if (EventState.PUBLISHED.equals(eventToUpdate.getState())) {
-            throw new ConflictException("Событие в статусе PUBLISHED недоступно для редактирования");
-        }
-
-        Category category = eventToUpdate.getCategory();
-        if (request.getCategory() != null) {
-            category = getCategoryByIdOrElseThrow(request.getCategory());
-        }
-
-        eventMapper.updateEntity(eventToUpdate, request, category);
-        if (request.getStateAction() == UserEventAction.CANCEL_REVIEW) {
-            eventToUpdate.setState(EventState.CANCELED);
-        } else if (request.getStateAction() == UserEventAction.SEND_TO_REVIEW) {
-            eventToUpdate.setState(EventState.PENDING);
-        }
-
-        eventRepository.save(eventToUpdate);
+        Event updatedEvent = transactionTemplate.execute(status -> {
+            Event eventToUpdate = getEventWithCategoryOrElseThrow(eventId);
+            checkUserIsEventInitiator(eventToUpdate, userId);
+            if (EventState.PUBLISHED.equals(eventToUpdate.getState())) {
+                throw new ConflictException("Событие в статусе PUBLISHED недоступно для редактирования");
+            }
+
+            Category category = eventToUpdate.getCategory();
+            if (request.getCategory() != null) {
+                category = getCategoryByIdOrElseThrow(request.getCategory());
+            }
+
+            eventMapper.updateEntity(eventToUpdate, request, category);
+            if (request.getStateAction() == UserEventAction.CANCEL_REVIEW) {
+                eventToUpdate.setState(EventState.CANCELED);
+            } else if (request.getStateAction() == UserEventAction.SEND_TO_REVIEW) {
+                eventToUpdate.setState(EventState.PENDING);
+            }
+
+            return eventRepository.save(eventToUpdate);
+        });
         log.info("Event {} are updated by author", eventId);
 
-        Map<Long, Long> views = getViews(List.of(eventId));
-        Map<Long, Long> confirmed = requestClient.getConfirmedRequestsCount(List.of(eventId));
-
-        return eventMapper.toFullDto(eventToUpdate,
-                views.getOrDefault(eventId, 0L),
-                confirmed.getOrDefault(eventId, 0L));
-    }
+        EventEnrichment enrichment = eventEnricher.enrich(List.of(eventId));
 
-    private Map<Long, Long> getViews(List<Long> eventIds) {
-        List<ViewStatsDto> stats = statsClient.getStats(
-                "2000-01-01 00:00:00",
-                "2100-01-01 00:00:00",
-                eventIds.stream().map(id -> "/events/" + id).toList(),
-                true);
-
-        return stats.stream()
-                .filter(statsDto -> !statsDto.getUri().equals("/events"))
-                .collect(toMap(statDto ->
-                        Long.parseLong(statDto.getUri().replace("/events/", "")), ViewStatsDto::getHits));
+        return eventMapper.toFullDto(updatedEvent,
+                enrichment.getViews(eventId),
+                enrichment.getConfirmedRequests(eventId));
     }
 
     @Loggable
@@ -299,11 +316,42 @@ public class EventServiceImpl implements EventService {
         return requestClient.confirmingRequests(confirmingRequest);
     }
 
+    /**
+     * Страница событий без подсчёта общего количества. Если задана позиция cursor, страница начинается
+     * сразу после неё и from не учитывается: время запроса не зависит от глубины страницы
+     * @param pageable смещение и сортировка по (eventDate, id) или по id
+     * @param byEventDate true, если страницы упорядочены по дате события
+     */
+    private Slice<Event> findSlice(Specification<Event> specification, Pageable pageable,
+                                   String cursor, boolean byEventDate) {
+        if (cursor == null) {
+            return eventRepository.findSlice(specification, pageable);
+        }
+
+        EventCursor after = EventCursor.decode(cursor, byEventDate);
+        return eventRepository.findSlice(
+                specification.and(EventSpecifications.after(after.getEventDate(), after.getId())),
+                PageRequest.of(0, pageable.getPageSize(), pageable.getSort()));
+    }
+
+    private String nextCursor(Slice<Event> events, boolean byEventDate) {
+        return events.hasNext() ? EventCursor.after(events.getContent().getLast(), byEventDate).encode() : null;
+    }
+
     private Event getEventByIdOrElseThrow(Long eventId) {
         return eventRepository.findById(eventId)
                 .orElseThrow(() -> new EntityNotFoundException("Event", eventId.toString()));
     }
 
+    /**
+     * Событие с загруженной категорией: после фиксации транзакции событие отсоединено
+     * и категория нужна при построении ответа
+     */
+    private Event getEventWithCategoryOrElseThrow(Long eventId) {
+        return eventRepository.findWithCategoryById(eventId)
+                .orElseThrow(() -> new EntityNotFoundException("Event", eventId.toString()));
+    }
+
     private Category getCategoryByIdOrElseThrow(Long categoryId) {
         return categoryRepository.findById(categoryId)
                 .orElseThrow(() -> new EntityNotFoundException("Category", categoryId.toString()));
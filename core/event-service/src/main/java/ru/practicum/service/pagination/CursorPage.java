@@ -0,0 +1,33 @@
+package ru.practicum.service.pagination;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.experimental.FieldDefaults;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+
+/**
+ * Страница результатов и строка для запроса следующей страницы, null - страница последняя
+ */
+@Getter
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class CursorPage<T> {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    List<T> content;
+    String nextCursor;
+
+    /**
+     * Ответ со списком результатов, строка для следующей страницы передаётся в заголовке
+     */
+    public ResponseEntity<List<T>> toResponseEntity() {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (nextCursor != null) {
+            builder.header(NEXT_CURSOR_HEADER, nextCursor);
+        }
+        return builder.body(content);
+    }
+}
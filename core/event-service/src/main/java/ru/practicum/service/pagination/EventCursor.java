@@ -0,0 +1,62 @@
+package ru.practicum.service.pagination;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.experimental.FieldDefaults;
+import ru.practicum.dal.entity.Event;
+import ru.practicum.interaction.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Позиция последнего события страницы: ключ сортировки и id.
+ * Клиенту передаётся в виде непрозрачной строки, следующая страница начинается строго после этой позиции.
+ */
+@Getter
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class EventCursor {
+    private static final String SEPARATOR = ",";
+
+    /**
+     * Дата события, null - страницы упорядочены только по id
+     */
+    LocalDateTime eventDate;
+    Long id;
+
+    public static EventCursor after(Event event, boolean byEventDate) {
+        return new EventCursor(byEventDate ? event.getEventDate() : null, event.getId());
+    }
+
+    public String encode() {
+        String value = eventDate == null ? id.toString() : eventDate + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Разобрать строку, полученную клиентом со страницей событий
+     * @param byEventDate true, если страницы упорядочены по дате события
+     */
+    public static EventCursor decode(String token, boolean byEventDate) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = value.split(SEPARATOR, -1);
+            if (byEventDate && parts.length == 2) {
+                return new EventCursor(LocalDateTime.parse(parts[0]), Long.parseLong(parts[1]));
+            } else if (!byEventDate && parts.length == 1) {
+                return new EventCursor(null, Long.parseLong(parts[0]));
+            }
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw invalidCursor(token);
+        }
+        throw invalidCursor(token);
+    }
+
+    private static BadRequestException invalidCursor(String token) {
+        return new BadRequestException("Invalid cursor: " + token);
+    }
+}
@@ -1,3 +1,5 @@
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
 CREATE TABLE IF NOT EXISTS categories (
     id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL PRIMARY KEY,
     name VARCHAR(50) NOT NULL
@@ -28,8 +30,29 @@ CREATE TABLE IF NOT EXISTS events (
     FOREIGN KEY (category_id) REFERENCES categories (id)
 );
 
+-- Триграммные индексы для поиска подстроки в аннотации и описании
+CREATE INDEX IF NOT EXISTS events_annotation_trgm_idx ON events USING GIN (lower(annotation) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS events_description_trgm_idx ON events USING GIN (lower(description) gin_trgm_ops);
+
+-- Индексы для постраничного вывода по ключу сортировки
+CREATE INDEX IF NOT EXISTS events_state_event_date_id_idx ON events (state, event_date, id);
+CREATE INDEX IF NOT EXISTS events_initiator_id_idx ON events (initiator_id, id);
+
 CREATE TABLE IF NOT EXISTS event_compilation (
     compilation_id BIGINT NOT NULL REFERENCES compilations (id),
     event_id BIGINT NOT NULL REFERENCES events (id),
     PRIMARY KEY (compilation_id, event_id)
 );
+
+-- Копия количества подтверждённых заявок, обновляется изменениями из сервиса заявок
+CREATE TABLE IF NOT EXISTS event_confirmed_requests (
+    event_id BIGINT NOT NULL PRIMARY KEY,
+    confirmed BIGINT NOT NULL,
+    version BIGINT NOT NULL
+);
+
+-- Идентификаторы применённых изменений для защиты от повторной доставки
+CREATE TABLE IF NOT EXISTS applied_confirmed_deltas (
+    id BIGINT NOT NULL PRIMARY KEY,
+    applied_at TIMESTAMP WITHOUT TIME ZONE NOT NULL
+);
@@ -4,9 +4,12 @@ import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 import ru.practicum.interaction.dto.event.EventFullDto;
 import ru.practicum.interaction.dto.event.EventShortDto;
+import ru.practicum.interaction.dto.participation.ConfirmedDeltaDto;
 import ru.practicum.interaction.params.SortSearchParam;
 
 import java.time.LocalDateTime;
@@ -21,6 +24,13 @@ public interface EventClient {
     @GetMapping("/internal/events/{eventId}")
     EventFullDto getEventForParticipationService(@PathVariable Long eventId);
 
+    /**
+     * Применить изменения количества подтверждённых заявок.
+     * Метод вызывается из микросервиса Participation, повторная доставка изменения не меняет счётчик.
+     */
+    @PostMapping("/internal/events/confirmed-requests")
+    void applyConfirmedDeltas(@RequestBody List<ConfirmedDeltaDto> deltas);
+
     /**
      * Получение событий с возможностью фильтрации
      */
@@ -4,6 +4,7 @@ import jakarta.validation.constraints.Positive;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.interaction.client.fallback.RequestClientFallbackFactory;
+import ru.practicum.interaction.dto.participation.ConfirmedSnapshotDto;
 import ru.practicum.interaction.dto.participation.ConfirmingParticipationRequest;
 import ru.practicum.interaction.dto.participation.EventRequestStatusUpdateResult;
 import ru.practicum.interaction.dto.participation.ParticipationRequestDto;
@@ -35,4 +36,10 @@ public interface RequestClient {
      */
     @GetMapping("/confirmed")
     Map<Long, Long> getConfirmedRequestsCount(@RequestParam List<Long> eventIds);
+
+    /**
+     * Количество принятых заявок и недоставленные изменения счётчиков для сверки с копией в сервисе событий
+     */
+    @GetMapping("/confirmed/snapshot")
+    ConfirmedSnapshotDto getConfirmedSnapshot(@RequestParam List<Long> eventIds);
 }
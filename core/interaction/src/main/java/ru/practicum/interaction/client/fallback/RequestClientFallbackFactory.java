@@ -5,6 +5,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.cloud.openfeign.FallbackFactory;
 import org.springframework.stereotype.Component;
 import ru.practicum.interaction.client.RequestClient;
+import ru.practicum.interaction.dto.participation.ConfirmedSnapshotDto;
 import ru.practicum.interaction.dto.participation.ConfirmingParticipationRequest;
 import ru.practicum.interaction.dto.participation.EventRequestStatusUpdateResult;
 import ru.practicum.interaction.dto.participation.ParticipationRequestDto;
@@ -41,6 +42,11 @@ public class RequestClientFallbackFactory implements FallbackFactory<RequestClie
             public Map<Long, Long> getConfirmedRequestsCount(List<Long> eventIds) {
                 return Collections.emptyMap();
             }
+
+            @Override
+            public ConfirmedSnapshotDto getConfirmedSnapshot(List<Long> eventIds) {
+                throw new ServiceNotAvailableException("request-service", cause);
+            }
         };
     }
 }
@@ -0,0 +1,21 @@
+package ru.practicum.interaction.dto.participation;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * Изменение количества подтверждённых заявок события.
+ * id уникален и позволяет получателю не применять повторно доставленное изменение.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class ConfirmedDeltaDto {
+    Long id;
+
+    Long eventId;
+
+    int delta;
+}
@@ -0,0 +1,27 @@
+package ru.practicum.interaction.dto.participation;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Количество подтверждённых заявок событий и ещё не доставленные изменения,
+ * прочитанные в одном снимке БД сервиса заявок
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class ConfirmedSnapshotDto {
+    /**
+     * id события - количество подтверждённых заявок, события без подтверждённых заявок отсутствуют
+     */
+    Map<Long, Long> confirmed = new HashMap<>();
+
+    List<ConfirmedDeltaDto> pending = new ArrayList<>();
+}
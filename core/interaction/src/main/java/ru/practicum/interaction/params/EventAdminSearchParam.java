@@ -6,6 +6,7 @@ import lombok.Builder;
 import lombok.Getter;
 import lombok.experimental.FieldDefaults;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import ru.practicum.interaction.dto.event.EventState;
 import org.springframework.data.domain.Pageable;
 
@@ -31,8 +32,13 @@ public class EventAdminSearchParam {
 
     Integer size;
 
+    /**
+     * Позиция, после которой начинается страница. Если задана, from не учитывается
+     */
+    String cursor;
+
     public Pageable getPageable() {
         int page = from / size;
-        return PageRequest.of(page, size);
+        return PageRequest.of(page, size, Sort.by("id"));
     }
 }
@@ -4,6 +4,7 @@ import lombok.*;
 import lombok.experimental.FieldDefaults;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 
 @Data
 @Builder
@@ -17,8 +18,13 @@ public class EventUserSearchParam {
 
     Integer size;
 
+    /**
+     * Позиция, после которой начинается страница. Если задана, from не учитывается
+     */
+    String cursor;
+
     public Pageable getPageable() {
         int page = from / size;
-        return PageRequest.of(page, size);
+        return PageRequest.of(page, size, Sort.by("id"));
     }
 }
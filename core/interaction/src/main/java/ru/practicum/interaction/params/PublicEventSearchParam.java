@@ -27,12 +27,20 @@ public class PublicEventSearchParam {
     Integer from;
     Integer size;
 
+    /**
+     * Позиция, после которой начинается страница. Если задана, from не учитывается
+     */
+    String cursor;
+
     public Pageable getPageable() {
         int page = from / size;
-        if (sort == SortSearchParam.EVENT_DATE) {
-            return PageRequest.of(page, size, Sort.by("eventDate"));
-        } else {
+        if (sort == SortSearchParam.RELEVANCE && text != null && !text.isBlank()) {
+            // порядок по релевантности задаёт спецификация поиска
             return PageRequest.of(page, size);
+        } else if (sort == SortSearchParam.EVENT_DATE || sort == SortSearchParam.RELEVANCE) {
+            return PageRequest.of(page, size, Sort.by("eventDate", "id"));
+        } else {
+            return PageRequest.of(page, size, Sort.by("id"));
         }
     }
 }
@@ -1,5 +1,5 @@
 package ru.practicum.interaction.params;
 
 public enum SortSearchParam {
-    EVENT_DATE, VIEWS
+    EVENT_DATE, VIEWS, RELEVANCE
 }
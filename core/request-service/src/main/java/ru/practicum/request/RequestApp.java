@@ -2,13 +2,17 @@ package ru.practicum.request;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 import org.springframework.cloud.openfeign.EnableFeignClients;
 import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import ru.practicum.interaction.config.ExceptionHandlingConfig;
 import ru.practicum.interaction.config.JacksonConfig;
 import ru.practicum.interaction.config.LoggingConfig;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
+@EnableScheduling
 @EnableFeignClients("ru.practicum.interaction")
 @Import({LoggingConfig.class, JacksonConfig.class, ExceptionHandlingConfig.class})
 public class RequestApp {
@@ -5,6 +5,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.interaction.client.RequestClient;
+import ru.practicum.interaction.dto.participation.ConfirmedSnapshotDto;
 import ru.practicum.interaction.dto.participation.ConfirmingParticipationRequest;
 import ru.practicum.interaction.dto.participation.EventRequestStatusUpdateResult;
 import ru.practicum.interaction.dto.participation.ParticipationRequestDto;
@@ -49,4 +50,13 @@ public class InitiatorParticipationRequestController implements RequestClient {
     public Map<Long, Long> getConfirmedRequestsCount(@RequestParam List<Long> eventIds) {
         return participationRequestService.getConfirmedRequestsCount(eventIds);
     }
+
+    /**
+     * Количество принятых заявок и недоставленные изменения счётчиков для сверки с копией в сервисе событий
+     */
+    @Override
+    @GetMapping("/confirmed/snapshot")
+    public ConfirmedSnapshotDto getConfirmedSnapshot(@RequestParam List<Long> eventIds) {
+        return participationRequestService.getConfirmedSnapshot(eventIds);
+    }
 }
@@ -0,0 +1,61 @@
+package ru.practicum.request.dal;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.interaction.dto.participation.ConfirmedDeltaDto;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Изменения количества подтверждённых заявок, записанные в одной транзакции с изменением статуса заявок
+ * и ожидающие доставки в сервис событий. Строка удаляется после подтверждения доставки.
+ * Выборка для отправки помечает строки временем claimed_until и сразу фиксируется, чтобы запрос к сервису событий
+ * не удерживал соединение и блокировки. Изменение, отправка которого не завершилась к этому времени,
+ * выбирается снова, повторная доставка в сервисе событий не применяется.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ConfirmedDeltaOutbox {
+    private static final RowMapper<ConfirmedDeltaDto> ROW_MAPPER = (rs, rowNum) ->
+            new ConfirmedDeltaDto(rs.getLong("id"), rs.getLong("event_id"), rs.getInt("delta"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    public Long add(Long eventId, int delta) {
+        return jdbcTemplate.queryForObject(
+                "INSERT INTO confirmed_delta_outbox (event_id, delta) VALUES (?, ?) RETURNING id",
+                Long.class, eventId, delta);
+    }
+
+    /**
+     * Выбрать до limit изменений, не отправляемых сейчас, и пометить их отправляемыми на время claimTimeout
+     */
+    public List<ConfirmedDeltaDto> claimPending(int limit, Duration claimTimeout) {
+        return jdbcTemplate.query("""
+                UPDATE confirmed_delta_outbox SET claimed_until = now() + make_interval(secs => ?)
+                WHERE id IN (
+                    SELECT id FROM confirmed_delta_outbox
+                    WHERE claimed_until IS NULL OR claimed_until < now()
+                    ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED)
+                RETURNING id, event_id, delta""",
+                ROW_MAPPER, claimTimeout.toSeconds(), limit);
+    }
+
+    public List<ConfirmedDeltaDto> findByEventIds(Collection<Long> eventIds) {
+        return namedJdbcTemplate.query(
+                "SELECT id, event_id, delta FROM confirmed_delta_outbox WHERE event_id IN (:eventIds)",
+                new MapSqlParameterSource("eventIds", eventIds), ROW_MAPPER);
+    }
+
+    public void delete(Collection<Long> ids) {
+        namedJdbcTemplate.update("DELETE FROM confirmed_delta_outbox WHERE id IN (:ids)",
+                new MapSqlParameterSource("ids", ids));
+    }
+}
@@ -0,0 +1,34 @@
+package ru.practicum.request.service;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Доставка изменений количества подтверждённых заявок в сервис событий
+ */
+@Getter
+@Setter
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@ConfigurationProperties(prefix = "request.confirmed-deltas")
+public class ConfirmedDeltaProperties {
+    /**
+     * Интервал повторной отправки изменений, не доставленных сразу после фиксации транзакции
+     */
+    Duration relayInterval = Duration.ofSeconds(5);
+
+    /**
+     * Количество изменений в одном запросе к сервису событий
+     */
+    int batchSize = 500;
+
+    /**
+     * Время, на которое выбранное для повторной отправки изменение закрепляется за экземпляром,
+     * должно превышать таймаут запроса к сервису событий
+     */
+    Duration claimTimeout = Duration.ofSeconds(30);
+}
@@ -0,0 +1,116 @@
+package ru.practicum.request.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.interaction.client.EventClient;
+import ru.practicum.interaction.dto.participation.ConfirmedDeltaDto;
+import ru.practicum.request.dal.ConfirmedDeltaOutbox;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Публикация изменений количества подтверждённых заявок в сервис событий через таблицу confirmed_delta_outbox.
+ * Изменение записывается в транзакции, меняющей статус заявок, и сразу после её фиксации передаётся
+ * на отправку в отдельный поток: соединение транзакции освобождается, не дожидаясь ответа сервиса событий.
+ * Неотправленные изменения повторяются раз в request.confirmed-deltas.relay-interval.
+ * Запрос к сервису событий выполняется вне транзакций: изменения выбираются и удаляются отдельными
+ * короткими транзакциями, повторная доставка одного изменения сервисом событий не применяется.
+ */
+@Slf4j
+@Component
+public class ConfirmedDeltaPublisher {
+    private final ConfirmedDeltaOutbox outbox;
+    private final EventClient eventClient;
+    private final ConfirmedDeltaProperties properties;
+    private final TransactionTemplate requiresNewTemplate;
+    private final ExecutorService deliveryExecutor =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("confirmed-delta-", 0).factory());
+
+    public ConfirmedDeltaPublisher(ConfirmedDeltaOutbox outbox,
+                                   EventClient eventClient,
+                                   ConfirmedDeltaProperties properties,
+                                   PlatformTransactionManager transactionManager) {
+        this.outbox = outbox;
+        this.eventClient = eventClient;
+        this.properties = properties;
+        this.requiresNewTemplate = new TransactionTemplate(transactionManager);
+        this.requiresNewTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Записать изменение в текущей транзакции и отправить его в отдельном потоке после фиксации.
+     * Отправляется значение из памяти, без повторного чтения и блокировки строки
+     */
+    public void publish(Long eventId, int delta) {
+        if (delta == 0) {
+            return;
+        }
+
+        ConfirmedDeltaDto confirmedDelta = new ConfirmedDeltaDto(outbox.add(eventId, delta), eventId, delta);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    deliverAsync(confirmedDelta);
+                }
+            });
+        } else {
+            deliverAsync(confirmedDelta);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        deliveryExecutor.close();
+    }
+
+    @Scheduled(fixedDelayString = "${request.confirmed-deltas.relay-interval:PT5S}")
+    public void relay() {
+        boolean more = true;
+        while (more) {
+            List<ConfirmedDeltaDto> deltas;
+            try {
+                deltas = requiresNewTemplate.execute(status ->
+                        outbox.claimPending(properties.getBatchSize(), properties.getClaimTimeout()));
+            } catch (RuntimeException e) {
+                log.warn("Не удалось выбрать изменения подтверждённых заявок для отправки: {}", e.getMessage());
+                return;
+            }
+            if (deltas == null || deltas.isEmpty() || !deliver(deltas)) {
+                return;
+            }
+            more = deltas.size() == properties.getBatchSize();
+        }
+    }
+
+    private void deliverAsync(ConfirmedDeltaDto confirmedDelta) {
+        deliveryExecutor.execute(() -> deliver(List.of(confirmedDelta)));
+    }
+
+    /**
+     * Отправить изменения и удалить их из таблицы, при ошибке изменения остаются для повторной отправки
+     * @return true, если изменения доставлены
+     */
+    private boolean deliver(List<ConfirmedDeltaDto> deltas) {
+        List<Long> ids = deltas.stream().map(ConfirmedDeltaDto::getId).toList();
+        try {
+            eventClient.applyConfirmedDeltas(deltas);
+            requiresNewTemplate.executeWithoutResult(status -> outbox.delete(ids));
+            log.debug("Доставлены изменения подтверждённых заявок: {}", deltas.size());
+            return true;
+        } catch (RuntimeException e) {
+            log.warn("Изменения подтверждённых заявок {} будут отправлены повторно через {}: {}",
+                    ids, properties.getRelayInterval(), e.getMessage());
+            return false;
+        }
+    }
+}
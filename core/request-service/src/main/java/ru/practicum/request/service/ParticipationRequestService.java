@@ -1,5 +1,6 @@
 package ru.practicum.request.service;
 
+import ru.practicum.interaction.dto.participation.ConfirmedSnapshotDto;
 import ru.practicum.interaction.dto.participation.ConfirmingParticipationRequest;
 import ru.practicum.interaction.dto.participation.EventRequestStatusUpdateResult;
 import ru.practicum.interaction.dto.participation.ParticipationRequestDto;
@@ -20,4 +21,6 @@ public interface ParticipationRequestService {
     EventRequestStatusUpdateResult confirmingRequests(ConfirmingParticipationRequest request);
 
     Map<Long, Long> getConfirmedRequestsCount(List<Long> eventIds);
+
+    ConfirmedSnapshotDto getConfirmedSnapshot(List<Long> eventIds);
 }
@@ -3,6 +3,7 @@ package ru.practicum.request.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.interaction.client.EventClient;
 import ru.practicum.interaction.client.RequestClient;
@@ -11,6 +12,7 @@ import ru.practicum.interaction.dto.participation.*;
 import ru.practicum.interaction.exception.EntityNotFoundException;
 import ru.practicum.interaction.logging.Loggable;
 import ru.practicum.interaction.exception.ConflictException;
+import ru.practicum.request.dal.ConfirmedDeltaOutbox;
 import ru.practicum.request.dal.ParticipationRequestMapper;
 import ru.practicum.request.dal.ParticipationRequest;
 import ru.practicum.request.dal.ParticipationRequestRepository;
@@ -28,6 +30,8 @@ public class ParticipationRequestServiceImpl implements ParticipationRequestServ
     private final ParticipationRequestRepository requestRepository;
     private final ParticipationRequestMapper participationRequestMapper;
     private final EventClient eventClient;
+    private final ConfirmedDeltaOutbox confirmedDeltaOutbox;
+    private final ConfirmedDeltaPublisher confirmedDeltaPublisher;
 
     /**
      * Создание новой заявки на участие в событии
@@ -70,6 +74,9 @@ public class ParticipationRequestServiceImpl implements ParticipationRequestServ
         }
 
         ParticipationRequestDto dto = participationRequestMapper.toDto(requestRepository.save(request));
+        if (request.getStatus() == RequestStatus.CONFIRMED) {
+            confirmedDeltaPublisher.publish(eventId, 1);
+        }
         log.info("Participation request created {}", dto);
         return dto;
     }
@@ -115,8 +122,12 @@ public class ParticipationRequestServiceImpl implements ParticipationRequestServ
             throw new ConflictException("User is not the requester");
         }
 
+        RequestStatus previousStatus = request.getStatus();
         request.setStatus(RequestStatus.CANCELED);
         requestRepository.save(request);
+        if (previousStatus == RequestStatus.CONFIRMED) {
+            confirmedDeltaPublisher.publish(request.getEventId(), -1);
+        }
         log.info("Participation request id {} set status CANCELED", requestId);
         return participationRequestMapper.toDto(request);
     }
@@ -162,6 +173,7 @@ public class ParticipationRequestServiceImpl implements ParticipationRequestServ
 
         EventRequestStatusUpdateResult result = new EventRequestStatusUpdateResult(confirmedRequests, rejectedRequests);
         requestRepository.saveAll(requests);
+        confirmedDeltaPublisher.publish(event.getId(), confirmedRequests.size());
         return result;
     }
 
@@ -170,4 +182,15 @@ public class ParticipationRequestServiceImpl implements ParticipationRequestServ
     public Map<Long, Long> getConfirmedRequestsCount(List<Long> eventIds) {
         return requestRepository.countRequestsByEventIdsAndStatus(eventIds, RequestStatus.CONFIRMED);
     }
+
+    /**
+     * Количество подтверждённых заявок и недоставленные изменения счётчиков.
+     * Оба запроса читают один снимок БД, поэтому недоставленные изменения уже учтены в количестве.
+     */
+    @Override
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public ConfirmedSnapshotDto getConfirmedSnapshot(List<Long> eventIds) {
+        Map<Long, Long> confirmed = requestRepository.countRequestsByEventIdsAndStatus(eventIds, RequestStatus.CONFIRMED);
+        return new ConfirmedSnapshotDto(confirmed, confirmedDeltaOutbox.findByEventIds(eventIds));
+    }
 }
@@ -4,4 +4,17 @@ CREATE TABLE IF NOT EXISTS participation_requests (
     event_id BIGINT NOT NULL,
     status VARCHAR(30) NOT NULL,
     created TIMESTAMP WITHOUT TIME ZONE NOT NULL
-);
\ No newline at end of file
+);
+
+-- Изменения количества подтверждённых заявок, ещё не доставленные в сервис событий
+CREATE TABLE IF NOT EXISTS confirmed_delta_outbox (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    event_id BIGINT NOT NULL,
+    delta INTEGER NOT NULL,
+    created TIMESTAMP WITHOUT TIME ZONE NOT NULL DEFAULT now()
+);
+
+-- до этого времени изменение отправляется одним экземпляром и не выбирается повторно
+ALTER TABLE confirmed_delta_outbox ADD COLUMN IF NOT EXISTS claimed_until TIMESTAMP WITHOUT TIME ZONE;
+
+CREATE INDEX IF NOT EXISTS confirmed_delta_outbox_event_idx ON confirmed_delta_outbox (event_id);
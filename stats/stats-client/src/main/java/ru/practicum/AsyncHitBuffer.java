@@ -0,0 +1,224 @@
+package ru.practicum;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.practicum.dto.EndpointHitDto;
+import ru.practicum.dto.HitBatchResultDto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Асинхронный буфер просмотров (write-behind).
+ * Просмотры складываются в ограниченную неблокирующую очередь, фоновый поток
+ * отправляет их пакетами на /hit/batch по достижении batchSize или по истечении flushInterval.
+ * Неотправленный пакет повторяется через flushInterval до maxFlushAttempts раз, прежде чем следующие,
+ * затем отбрасывается с метрикой dropped{reason=flush-failed}. Пока circuit breaker statsClientBatch открыт,
+ * попытки не расходуются: пакет ждёт закрытия, а новые просмотры копятся в очереди до capacity.
+ * Пакет, сохранённый сервером без ответа, при повторе будет записан дважды.
+ * Включается настройкой stats-client.async.enabled=true.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "stats-client.async", name = "enabled", havingValue = "true")
+public class AsyncHitBuffer {
+    private static final String METRIC_PREFIX = "stats.client.hit.buffer";
+    private static final String CIRCUIT_BREAKER = "statsClientBatch";
+
+    private final StatsClient statsClient;
+    private final StatsClientProperties.Async properties;
+    private final Queue<EndpointHitDto> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final CircuitBreaker circuitBreaker;
+
+    private final Timer flushTimer;
+    private final Counter flushedCounter;
+    private final Counter retriedCounter;
+    private final Counter overflowCounter;
+    private final Counter failedCounter;
+
+    private volatile boolean running;
+    private volatile Thread flusher;
+
+    // пакет, отправка которого не удалась, изменяется только потоком отправки
+    private volatile List<EndpointHitDto> failedBatch = List.of();
+    private int failedAttempts;
+
+    public AsyncHitBuffer(StatsClient statsClient,
+                          StatsClientProperties properties,
+                          ObjectProvider<MeterRegistry> meterRegistryProvider,
+                          ObjectProvider<CircuitBreakerRegistry> circuitBreakerRegistryProvider) {
+        this.statsClient = statsClient;
+        this.properties = properties.getAsync();
+
+        CircuitBreakerRegistry circuitBreakerRegistry = circuitBreakerRegistryProvider.getIfAvailable();
+        this.circuitBreaker = (circuitBreakerRegistry == null) ? null : circuitBreakerRegistry.circuitBreaker(CIRCUIT_BREAKER);
+
+        MeterRegistry registry = meterRegistryProvider.getIfAvailable(SimpleMeterRegistry::new);
+        Gauge.builder(METRIC_PREFIX + ".depth", this, AsyncHitBuffer::getDepth)
+                .description("Количество просмотров в очереди на отправку")
+                .register(registry);
+        this.flushTimer = Timer.builder(METRIC_PREFIX + ".flush")
+                .description("Время отправки пакета просмотров")
+                .register(registry);
+        this.flushedCounter = Counter.builder(METRIC_PREFIX + ".flushed")
+                .description("Количество отправленных просмотров")
+                .register(registry);
+        this.retriedCounter = Counter.builder(METRIC_PREFIX + ".retried")
+                .description("Количество просмотров, отправка которых повторяется после ошибки")
+                .register(registry);
+        this.overflowCounter = Counter.builder(METRIC_PREFIX + ".dropped")
+                .tag("reason", "overflow")
+                .register(registry);
+        this.failedCounter = Counter.builder(METRIC_PREFIX + ".dropped")
+                .tag("reason", "flush-failed")
+                .register(registry);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        flusher = Thread.ofPlatform()
+                .name("stats-hit-flusher")
+                .daemon(true)
+                .start(this::runFlusher);
+        log.info("Асинхронная отправка просмотров включена: capacity = {}, batchSize = {}, flushInterval = {}",
+                properties.getCapacity(), properties.getBatchSize(), properties.getFlushInterval());
+    }
+
+    /**
+     * Поместить просмотр в очередь. Никогда не блокирует вызывающий поток.
+     * @return false, если просмотр отброшен из-за переполнения
+     */
+    public boolean offer(EndpointHitDto hit) {
+        if (size.incrementAndGet() > properties.getCapacity()) {
+            size.decrementAndGet();
+            if (properties.getOverflowPolicy() == HitOverflowPolicy.DROP_NEWEST || queue.poll() == null) {
+                overflowCounter.increment();
+                return false;
+            }
+            // место освобождено вытеснением самого старого просмотра, размер очереди не меняется
+            overflowCounter.increment();
+            queue.add(hit);
+            return true;
+        }
+
+        queue.add(hit);
+        if (size.get() >= properties.getBatchSize()) {
+            LockSupport.unpark(flusher);
+        }
+        return true;
+    }
+
+    public int getDepth() {
+        return size.get() + failedBatch.size();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        LockSupport.unpark(flusher);
+        try {
+            flusher.join(properties.getShutdownTimeout().toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        int remaining = getDepth();
+        if (remaining > 0) {
+            log.warn("Остановка приложения, не отправлено просмотров: {}", remaining);
+        }
+    }
+
+    private void runFlusher() {
+        long intervalNanos = properties.getFlushInterval().toNanos();
+        while (running) {
+            // после ошибки отправки повтор не раньше чем через интервал
+            if (size.get() < properties.getBatchSize() || !failedBatch.isEmpty()) {
+                LockSupport.parkNanos(this, intervalNanos);
+            }
+            flushBatch();
+        }
+
+        // при остановке отправляем всё, что осталось в очереди
+        while (getDepth() > 0) {
+            flushBatch();
+        }
+    }
+
+    private void flushBatch() {
+        // при открытом circuit breaker вызов всё равно завершится fallback, ждём перехода в half-open
+        if (!failedBatch.isEmpty() && running && isCircuitOpen()) {
+            return;
+        }
+
+        List<EndpointHitDto> batch = failedBatch.isEmpty() ? drain(properties.getBatchSize()) : failedBatch;
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        if (send(batch)) {
+            flushedCounter.increment(batch.size());
+            failedBatch = List.of();
+            failedAttempts = 0;
+            return;
+        }
+
+        // отказ из-за открытого circuit breaker не расходует попытки, при остановке попытки расходуются всегда
+        if (!running || !isCircuitOpen()) {
+            failedAttempts++;
+        }
+        if (failedAttempts >= properties.getMaxFlushAttempts()) {
+            log.warn("Пакет просмотров не отправлен после {} попыток и отброшен: {}", failedAttempts, batch.size());
+            failedCounter.increment(batch.size());
+            failedBatch = List.of();
+            failedAttempts = 0;
+        } else {
+            retriedCounter.increment(batch.size());
+            failedBatch = batch;
+        }
+    }
+
+    private boolean isCircuitOpen() {
+        if (circuitBreaker == null) {
+            return false;
+        }
+        CircuitBreaker.State state = circuitBreaker.getState();
+        return state == CircuitBreaker.State.OPEN || state == CircuitBreaker.State.FORCED_OPEN;
+    }
+
+    private boolean send(List<EndpointHitDto> batch) {
+        try {
+            HitBatchResultDto result = flushTimer.recordCallable(() -> statsClient.postHits(batch));
+            return result != null;
+        } catch (Exception e) {
+            log.warn("Ошибка отправки пакета просмотров: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private List<EndpointHitDto> drain(int maxSize) {
+        List<EndpointHitDto> batch = new ArrayList<>(Math.min(maxSize, size.get()));
+        EndpointHitDto hit;
+        while (batch.size() < maxSize && (hit = queue.poll()) != null) {
+            size.decrementAndGet();
+            batch.add(hit);
+        }
+        return batch;
+    }
+}
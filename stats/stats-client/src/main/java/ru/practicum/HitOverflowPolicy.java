@@ -0,0 +1,16 @@
+package ru.practicum;
+
+/**
+ * Поведение асинхронного буфера просмотров при переполнении очереди
+ */
+public enum HitOverflowPolicy {
+    /**
+     * Отбросить новый просмотр
+     */
+    DROP_NEWEST,
+
+    /**
+     * Вытеснить самый старый просмотр из очереди
+     */
+    DROP_OLDEST
+}
@@ -3,40 +3,64 @@ package ru.practicum;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cloud.client.ServiceInstance;
-import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 import ru.practicum.dto.EndpointHitDto;
+import ru.practicum.dto.EventViewsRequestDto;
+import ru.practicum.dto.HitBatchResultDto;
 import ru.practicum.dto.ViewStatsDto;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class StatsClient {
-    private static final String STATS_SERVER_ID = "stats-server";
+    private static final ParameterizedTypeReference<Map<Long, Long>> EVENT_VIEWS_TYPE = new ParameterizedTypeReference<>() {
+    };
     private final RestTemplate restTemplate;
-    private final DiscoveryClient discoveryClient;
+    private final StatsServerBalancer balancer;
+    private final ObjectProvider<AsyncHitBuffer> hitBuffer;
 
+    /**
+     * Сохранить просмотр. В асинхронном режиме (stats-client.async.enabled)
+     * просмотр помещается в буфер и отправляется фоновым потоком.
+     */
     @CircuitBreaker(name = "statsClient", fallbackMethod = "postHitFallback")
     public void postHit(EndpointHitDto dto) {
-        ServiceInstance statsServer = getStatsServerInstance();
-        restTemplate.postForEntity(statsServer.getUri() + "/hit", dto, Void.class);
+        AsyncHitBuffer buffer = hitBuffer.getIfAvailable();
+        if (buffer != null) {
+            buffer.offer(dto);
+            return;
+        }
+
+        balancer.execute(statsServer -> restTemplate.postForEntity(statsServer + "/hit", dto, Void.class));
+    }
+
+    /**
+     * Пакетное сохранение просмотров
+     * @return итог сохранения или null, если сервис статистики недоступен
+     */
+    @CircuitBreaker(name = "statsClientBatch", fallbackMethod = "postHitsFallback")
+    public HitBatchResultDto postHits(List<EndpointHitDto> dtos) {
+        return balancer.execute(statsServer ->
+                restTemplate.postForObject(statsServer + "/hit/batch", dtos, HitBatchResultDto.class));
     }
 
     @CircuitBreaker(name = "statsClient", fallbackMethod = "getStatsFallback")
     public List<ViewStatsDto> getStats(String start, String end, List<String> uris, boolean unique) throws RestClientException {
-        ServiceInstance statsServer = getStatsServerInstance();
-
         StringBuilder uri = new StringBuilder()
-                .append(statsServer.getUri())
                 .append("/stats")
                 .append("?start=").append(start)
                 .append("&end=").append(end)
@@ -44,35 +68,58 @@ public class StatsClient {
 
         if (!uris.isEmpty()) {
             for (String uriStr : uris) {
-                uri.append("&uri=").append(uriStr);
+                uri.append("&uris=").append(uriStr);
             }
         }
 
-        ResponseEntity<ViewStatsDto[]> response = restTemplate.getForEntity(uri.toString(), ViewStatsDto[].class);
+        ResponseEntity<ViewStatsDto[]> response = balancer.execute(statsServer ->
+                restTemplate.getForEntity(statsServer + uri.toString(), ViewStatsDto[].class));
 
         ViewStatsDto[] body = response.getBody();
         return (body == null) ? new ArrayList<>() : Arrays.asList(body);
     }
 
+    /**
+     * Количество просмотров событий за всё время
+     * @param eventIds идентификаторы событий
+     * @param unique учитывать только уникальные ip
+     * @return отображение id события на количество просмотров, события без просмотров отсутствуют;
+     * null, если сервис статистики недоступен
+     */
+    @CircuitBreaker(name = "statsClient", fallbackMethod = "getEventViewsFallback")
+    public Map<Long, Long> getEventViews(Collection<Long> eventIds, boolean unique) {
+        if (eventIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        EventViewsRequestDto request = new EventViewsRequestDto(List.copyOf(eventIds), unique);
+
+        ResponseEntity<Map<Long, Long>> response = balancer.execute(statsServer -> restTemplate.exchange(
+                statsServer + "/stats/events/views",
+                HttpMethod.POST,
+                new HttpEntity<>(request),
+                EVENT_VIEWS_TYPE));
+
+        Map<Long, Long> body = response.getBody();
+        return (body == null) ? Collections.emptyMap() : body;
+    }
+
     private void postHitFallback(EndpointHitDto dto, Exception ex) {
         log.warn("Stats server unavailable, hit not recorded: {}", ex.getMessage());
     }
 
+    private HitBatchResultDto postHitsFallback(List<EndpointHitDto> dtos, Exception ex) {
+        log.warn("Stats server unavailable, {} hits not sent: {}", dtos.size(), ex.getMessage());
+        return null;
+    }
+
     private List<ViewStatsDto> getStatsFallback(String start, String end, List<String> uris, boolean unique, Exception ex) {
         log.warn("Stats server unavailable, returned empty list: {}", ex.getMessage());
         return Collections.emptyList();
     }
 
-    private ServiceInstance getStatsServerInstance() {
-        try {
-            return discoveryClient
-                    .getInstances(STATS_SERVER_ID)
-                    .getFirst();
-        } catch (Exception exception) {
-            throw new RuntimeException(
-                    "Ошибка обнаружения адреса сервиса статистики с id: " + STATS_SERVER_ID,
-                    exception
-            );
-        }
+    private Map<Long, Long> getEventViewsFallback(Collection<Long> eventIds, boolean unique, Exception ex) {
+        log.warn("Stats server unavailable, views not loaded: {}", ex.getMessage());
+        return null;
     }
 }
\ No newline at end of file
@@ -0,0 +1,111 @@
+package ru.practicum;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Настройки клиента сервиса статистики
+ */
+@Getter
+@Setter
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@ConfigurationProperties(prefix = "stats-client")
+public class StatsClientProperties {
+    final Async async = new Async();
+
+    final Http http = new Http();
+
+    final Balancer balancer = new Balancer();
+
+    /**
+     * Асинхронная отправка просмотров через буфер
+     */
+    @Getter
+    @Setter
+    @FieldDefaults(level = AccessLevel.PRIVATE)
+    public static class Async {
+        boolean enabled = false;
+
+        /**
+         * Максимальное количество просмотров в очереди
+         */
+        int capacity = 10_000;
+
+        /**
+         * Количество просмотров, при накоплении которого буфер сбрасывается не дожидаясь интервала
+         */
+        int batchSize = 500;
+
+        /**
+         * Максимальное время нахождения просмотра в буфере
+         */
+        Duration flushInterval = Duration.ofSeconds(1);
+
+        /**
+         * Время на отправку оставшихся просмотров при остановке приложения
+         */
+        Duration shutdownTimeout = Duration.ofSeconds(5);
+
+        /**
+         * Поведение при переполнении очереди: по умолчанию вытесняются самые старые просмотры
+         */
+        HitOverflowPolicy overflowPolicy = HitOverflowPolicy.DROP_OLDEST;
+
+        /**
+         * Количество попыток отправки пакета, после которых он отбрасывается
+         */
+        int maxFlushAttempts = 3;
+    }
+
+    /**
+     * Пул HTTP соединений с сервисом статистики
+     */
+    @Getter
+    @Setter
+    @FieldDefaults(level = AccessLevel.PRIVATE)
+    public static class Http {
+        Duration connectTimeout = Duration.ofSeconds(1);
+
+        /**
+         * Максимальное время ожидания ответа
+         */
+        Duration readTimeout = Duration.ofSeconds(10);
+
+        int maxConnections = 50;
+
+        int maxConnectionsPerInstance = 20;
+
+        /**
+         * Простаивающее дольше соединение закрывается
+         */
+        Duration idleTimeout = Duration.ofSeconds(30);
+    }
+
+    /**
+     * Выбор экземпляра сервиса статистики
+     */
+    @Getter
+    @Setter
+    @FieldDefaults(level = AccessLevel.PRIVATE)
+    public static class Balancer {
+        /**
+         * Интервал обновления списка экземпляров из реестра сервисов
+         */
+        Duration refreshInterval = Duration.ofSeconds(30);
+
+        /**
+         * Количество ошибок подряд, после которого экземпляр исключается из выбора
+         */
+        int failuresToEject = 3;
+
+        /**
+         * Время исключения, по истечении экземпляр снова получает запросы
+         */
+        Duration ejectionTime = Duration.ofSeconds(10);
+    }
+}
@@ -0,0 +1,214 @@
+package ru.practicum;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Выбор экземпляра сервиса статистики на стороне клиента.
+ * Список экземпляров кэшируется и обновляется из реестра не чаще stats-client.balancer.refresh-interval.
+ * Запрос получает экземпляр с наименьшим числом выполняющихся запросов, при равенстве - по кругу.
+ * Экземпляр, ответивший ошибкой соединения или 5xx failures-to-eject раз подряд, исключается
+ * на ejection-time, после чего получает по одному пробному запросу за раз, остальные запросы его не получают:
+ * при успехе пробы экземпляр возвращается в выбор, при ошибке снова исключается на ejection-time.
+ * Если исключены все экземпляры, запросы получает тот, чьё исключение истекает раньше.
+ */
+@Slf4j
+@Component
+public class StatsServerBalancer {
+    static final String STATS_SERVER_ID = "stats-server";
+
+    private final DiscoveryClient discoveryClient;
+    private final StatsClientProperties.Balancer properties;
+    private final AtomicInteger next = new AtomicInteger();
+    private final ReentrantLock refreshLock = new ReentrantLock();
+
+    private volatile List<Endpoint> endpoints = List.of();
+    private volatile long refreshedAt;
+
+    public StatsServerBalancer(DiscoveryClient discoveryClient, StatsClientProperties properties) {
+        this.discoveryClient = discoveryClient;
+        this.properties = properties.getBalancer();
+    }
+
+    /**
+     * Выполнить запрос к выбранному экземпляру
+     * @param call запрос, получает базовый адрес экземпляра
+     */
+    public <T> T execute(Function<URI, T> call) {
+        List<Endpoint> current = getEndpoints();
+        long now = System.nanoTime();
+        Endpoint endpoint = claimProbe(current, now);
+        boolean probe = endpoint != null;
+        if (!probe) {
+            endpoint = choose(current);
+        }
+
+        endpoint.outstanding.incrementAndGet();
+        try {
+            T result = call.apply(endpoint.getUri());
+            endpoint.onSuccess();
+            return result;
+        } catch (ResourceAccessException | HttpServerErrorException e) {
+            onFailure(endpoint, e);
+            throw e;
+        } finally {
+            endpoint.outstanding.decrementAndGet();
+            if (probe) {
+                endpoint.probing.set(false);
+            }
+        }
+    }
+
+    /**
+     * Закрепить пробный запрос за экземпляром, время исключения которого истекло и проба которого не выполняется
+     */
+    private Endpoint claimProbe(List<Endpoint> current, long now) {
+        for (Endpoint endpoint : current) {
+            if (endpoint.ejected && now - endpoint.ejectedUntil >= 0 && endpoint.probing.compareAndSet(false, true)) {
+                return endpoint;
+            }
+        }
+        return null;
+    }
+
+    private Endpoint choose(List<Endpoint> current) {
+        int start = Math.floorMod(next.getAndIncrement(), current.size());
+
+        Endpoint best = null;
+        for (int i = 0; i < current.size(); i++) {
+            Endpoint endpoint = current.get((start + i) % current.size());
+            if (endpoint.ejected) {
+                continue;
+            }
+            if (best == null || endpoint.outstanding.get() < best.outstanding.get()) {
+                best = endpoint;
+            }
+        }
+        if (best != null) {
+            return best;
+        }
+
+        // все экземпляры исключены: запрос к тому, чьё исключение истекает раньше
+        for (Endpoint endpoint : current) {
+            if (best == null || endpoint.ejectedUntil - best.ejectedUntil < 0) {
+                best = endpoint;
+            }
+        }
+        return best;
+    }
+
+    private void onFailure(Endpoint endpoint, RuntimeException e) {
+        if (endpoint.ejected) {
+            // неудачная проба или запрос, когда исключены все экземпляры
+            endpoint.ejectedUntil = System.nanoTime() + properties.getEjectionTime().toNanos();
+            log.warn("Экземпляр сервиса статистики {} снова исключён на {}: {}",
+                    endpoint.getUri(), properties.getEjectionTime(), e.getMessage());
+            return;
+        }
+
+        int failures = endpoint.failures.incrementAndGet();
+        if (failures >= properties.getFailuresToEject()) {
+            endpoint.ejectedUntil = System.nanoTime() + properties.getEjectionTime().toNanos();
+            endpoint.ejected = true;
+            log.warn("Экземпляр сервиса статистики {} исключён на {} после {} ошибок подряд: {}",
+                    endpoint.getUri(), properties.getEjectionTime(), failures, e.getMessage());
+        }
+    }
+
+    private List<Endpoint> getEndpoints() {
+        long now = System.nanoTime();
+        if (endpoints.isEmpty()) {
+            refreshLock.lock();
+            try {
+                if (endpoints.isEmpty()) {
+                    refresh(now);
+                }
+            } finally {
+                refreshLock.unlock();
+            }
+        } else if (now - refreshedAt >= properties.getRefreshInterval().toNanos() && refreshLock.tryLock()) {
+            // остальные потоки продолжают работать с прежним списком
+            try {
+                refresh(now);
+            } finally {
+                refreshLock.unlock();
+            }
+        }
+
+        List<Endpoint> current = endpoints;
+        if (current.isEmpty()) {
+            throw new RuntimeException("Не найдено экземпляров сервиса статистики с id: " + STATS_SERVER_ID);
+        }
+        return current;
+    }
+
+    private void refresh(long now) {
+        List<ServiceInstance> instances;
+        try {
+            instances = discoveryClient.getInstances(STATS_SERVER_ID);
+        } catch (Exception exception) {
+            if (endpoints.isEmpty()) {
+                throw new RuntimeException(
+                        "Ошибка обнаружения адреса сервиса статистики с id: " + STATS_SERVER_ID,
+                        exception
+                );
+            }
+            log.warn("Ошибка обновления списка экземпляров сервиса статистики, используется прежний: {}",
+                    exception.getMessage());
+            refreshedAt = now;
+            return;
+        }
+
+        // состояние экземпляров, оставшихся в реестре, сохраняется
+        Map<URI, Endpoint> known = new HashMap<>();
+        endpoints.forEach(endpoint -> known.put(endpoint.getUri(), endpoint));
+        List<Endpoint> updated = new ArrayList<>(instances.size());
+        for (ServiceInstance instance : instances) {
+            Endpoint endpoint = known.get(instance.getUri());
+            updated.add(endpoint == null ? new Endpoint(instance.getUri()) : endpoint);
+        }
+
+        if (updated.size() != known.size()) {
+            log.info("Экземпляры сервиса статистики: {}", updated.stream().map(Endpoint::getUri).toList());
+        }
+        endpoints = List.copyOf(updated);
+        refreshedAt = now;
+    }
+
+    private static class Endpoint {
+        @Getter
+        private final URI uri;
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private final AtomicInteger failures = new AtomicInteger();
+        private final AtomicBoolean probing = new AtomicBoolean();
+        private volatile boolean ejected;
+        private volatile long ejectedUntil;
+
+        Endpoint(URI uri) {
+            this.uri = uri;
+        }
+
+        void onSuccess() {
+            failures.set(0);
+            if (ejected) {
+                ejected = false;
+                log.info("Экземпляр сервиса статистики {} снова получает запросы", uri);
+            }
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package ru.practicum.dto;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.util.List;
+
+/**
+ * Запрос количества просмотров событий по их идентификаторам
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class EventViewsRequestDto {
+    List<Long> eventIds;
+    boolean unique;
+}
@@ -0,0 +1,18 @@
+package ru.practicum.dto;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * Итог пакетного сохранения просмотров
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class HitBatchResultDto {
+    Integer received;
+    Integer saved;
+    Integer rejected;
+}
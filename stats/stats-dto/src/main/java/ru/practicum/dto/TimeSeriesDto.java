@@ -0,0 +1,21 @@
+package ru.practicum.dto;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.util.List;
+
+/**
+ * Просмотры по интервалам времени в колоночном виде: values каждого ряда
+ * соответствуют timestamps по индексу, интервалы без просмотров содержат 0
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class TimeSeriesDto {
+    String bucket;
+    List<String> timestamps;
+    List<SeriesDto> series;
+}
@@ -0,0 +1,20 @@
+package ru.practicum.dto;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * Приближённое количество просмотров uri из списка самых просматриваемых.
+ * Точное количество находится в диапазоне [hits - error, hits].
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class TopViewStatsDto {
+    String app;
+    String uri;
+    Long hits;
+    Long error;
+}
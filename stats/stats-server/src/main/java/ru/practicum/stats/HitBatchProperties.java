@@ -0,0 +1,26 @@
+package ru.practicum.stats;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Настройки пакетного приёма просмотров
+ */
+@Getter
+@Setter
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@ConfigurationProperties(prefix = "stats.hit-batch")
+public class HitBatchProperties {
+    /**
+     * Максимальное количество просмотров в одном запросе
+     */
+    int maxSize = 10_000;
+
+    /**
+     * Количество строк в одном JDBC batch
+     */
+    int jdbcBatchSize = 500;
+}
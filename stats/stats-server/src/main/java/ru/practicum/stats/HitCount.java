@@ -0,0 +1,18 @@
+package ru.practicum.stats;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * Количество просмотров по идентификаторам сервиса и uri из словарей
+ */
+@Getter
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class HitCount {
+    Integer appId;
+    Integer uriId;
+    Long hits;
+}
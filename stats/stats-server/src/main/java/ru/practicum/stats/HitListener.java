@@ -0,0 +1,30 @@
+package ru.practicum.stats;
+
+import java.util.List;
+
+/**
+ * Обработчик сохранённых просмотров. Вызывается после фиксации транзакции,
+ * в которой просмотры записаны в таблицу stats.
+ */
+public interface HitListener {
+    void onHits(List<StatsEntry> entries);
+
+    /**
+     * Просмотры популярных uri, не сохранённые при выборочном сохранении.
+     * Нужны обработчикам, которым важен каждый ip, а не количество.
+     */
+    default void onSampledOut(List<StatsEntry> entries) {
+    }
+
+    /**
+     * Передать обработчикам сохранённые и не сохранённые при выборочном сохранении просмотры пакета
+     */
+    static void dispatch(List<HitListener> listeners, PreparedHits prepared) {
+        if (!prepared.getEntries().isEmpty()) {
+            listeners.forEach(listener -> listener.onHits(prepared.getEntries()));
+        }
+        if (!prepared.getSampledOut().isEmpty()) {
+            listeners.forEach(listener -> listener.onSampledOut(prepared.getSampledOut()));
+        }
+    }
+}
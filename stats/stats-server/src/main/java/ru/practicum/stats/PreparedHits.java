@@ -0,0 +1,41 @@
+package ru.practicum.stats;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.experimental.FieldDefaults;
+
+import java.util.List;
+
+/**
+ * Просмотры, подготовленные к записи: проверены, закодированы словарями и прошли выборочное сохранение
+ */
+@Getter
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class PreparedHits {
+    /**
+     * Записи для сохранения с назначенным весом
+     */
+    List<StatsEntry> entries;
+
+    /**
+     * Просмотры популярных uri, не сохраняемые при выборочном сохранении.
+     * Передаются обработчикам через {@link HitListener#onSampledOut} после фиксации записи пакета
+     */
+    List<StatsEntry> sampledOut;
+
+    /**
+     * Количество некорректных просмотров
+     */
+    int invalid;
+
+    /**
+     * Количество просмотров, отброшенных фильтром частоты
+     */
+    int filtered;
+
+    public int getRejected() {
+        return invalid + filtered;
+    }
+}
@@ -0,0 +1,37 @@
+package ru.practicum.stats;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Пакетная запись просмотров в обход JPA.
+ * Вставка выполняется через JDBC batch, драйвер PostgreSQL с параметром
+ * reWriteBatchedInserts=true объединяет batch в многострочные INSERT.
+ */
+@Repository
+@RequiredArgsConstructor
+public class StatsBulkRepository {
+    private static final String INSERT_SQL = "INSERT INTO stats (app_id, uri_id, ip, created, weight) VALUES (?, ?, ?::inet, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final HitBatchProperties properties;
+
+    public int saveAll(List<StatsEntry> entries) {
+        if (entries.isEmpty()) {
+            return 0;
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_SQL, entries, properties.getJdbcBatchSize(), (ps, entry) -> {
+            ps.setInt(1, entry.getAppId());
+            ps.setInt(2, entry.getUriId());
+            ps.setString(3, entry.getIp());
+            ps.setTimestamp(4, Timestamp.valueOf(entry.getTimestamp()));
+            ps.setInt(5, entry.getWeight());
+        });
+        return entries.size();
+    }
+}
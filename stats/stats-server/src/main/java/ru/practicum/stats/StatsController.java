@@ -1,39 +1,224 @@
 package ru.practicum.stats;
 
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.dto.EndpointHitDto;
+import ru.practicum.dto.EventViewsRequestDto;
+import ru.practicum.dto.HitBatchResultDto;
+import ru.practicum.dto.TimeSeriesDto;
+import ru.practicum.dto.TopViewStatsDto;
 import ru.practicum.dto.ViewStatsDto;
+import ru.practicum.stats.abuse.HitRateFilter;
+import ru.practicum.stats.hll.HllStatsService;
+import ru.practicum.stats.rollup.RollupGranularity;
+import ru.practicum.stats.timeseries.TimeSeriesService;
+import ru.practicum.stats.trending.TrendingCounters;
+import ru.practicum.stats.trending.TrendingWindow;
+import ru.practicum.stats.topk.TopKService;
+import ru.practicum.stats.wal.HitWriteAheadLog;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class StatsController {
+    /**
+     * Заголовок с относительной стандартной ошибкой приближённого подсчёта уникальных ip
+     */
+    public static final String ERROR_BOUND_HEADER = "X-Stats-Relative-Error";
+
+    /**
+     * Заголовок с границей количества просмотров для uri, не вошедших в ответ /stats/top
+     */
+    public static final String TOP_ERROR_BOUND_HEADER = "X-Stats-Error-Bound";
+
     private final StatsService statsService;
+    private final HllStatsService hllStatsService;
+    private final ObjectMapper objectMapper;
+    private final ObjectProvider<HitWriteAheadLog> writeAheadLogProvider;
+    private final TopKService topKService;
+    private final TimeSeriesService timeSeriesService;
+    private final HitRateFilter hitRateFilter;
+    private final TrendingCounters trendingCounters;
+    private final StatsRequestValidator validator;
 
+    /**
+     * Сохранение просмотра. При включённом журнале просмотр подтверждается после записи в журнал
+     */
     @PostMapping("/hit")
     @ResponseStatus(HttpStatus.CREATED)
     public void saveNewHit(@RequestBody EndpointHitDto hitDto) {
-        statsService.saveHit(hitDto);
+        HitWriteAheadLog writeAheadLog = writeAheadLogProvider.getIfAvailable();
+        if (writeAheadLog == null) {
+            statsService.saveHit(hitDto);
+            return;
+        }
+
+        if (!hitRateFilter.admit(hitDto)) {
+            return;
+        }
+        StatsEntry entry = statsService.encodeHit(hitDto)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid hit"));
+        if (!writeAheadLog.append(entry)) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Hit log is full");
+        }
+    }
+
+    /**
+     * Пакетное сохранение просмотров, тело запроса - JSON массив
+     */
+    @PostMapping(value = "/hit/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseStatus(HttpStatus.CREATED)
+    public HitBatchResultDto saveHitBatch(@RequestBody List<EndpointHitDto> hits) {
+        validator.checkBatchSize(hits.size());
+        return statsService.saveHits(hits);
     }
 
+    /**
+     * Пакетное сохранение просмотров, тело запроса - NDJSON поток (один просмотр на строку)
+     */
+    @PostMapping(value = "/hit/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    @ResponseStatus(HttpStatus.CREATED)
+    public HitBatchResultDto saveHitBatchNdjson(InputStream body) {
+        List<EndpointHitDto> hits = new ArrayList<>();
+        try (MappingIterator<EndpointHitDto> iterator = objectMapper.readerFor(EndpointHitDto.class).readValues(body)) {
+            while (iterator.hasNextValue()) {
+                hits.add(iterator.nextValue());
+                validator.checkBatchSize(hits.size());
+            }
+        } catch (IOException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Malformed NDJSON: " + e.getMessage(), e);
+        }
+        return statsService.saveHits(hits);
+    }
+
+    /**
+     * Статистика по просмотрам. При unique=true по умолчанию используется приближённый подсчёт,
+     * точный подсчёт по исходным записям включается параметром exact=true.
+     * При Accept: application/x-ndjson ответ передаётся потоком по мере чтения из БД, подсчёт всегда точный.
+     * limit ограничивает ответ самыми просматриваемыми uri.
+     * uris может содержать шаблоны: /events/* - uri одного уровня под /events/, /events/** - все uri под /events/
+     */
     @GetMapping("/stats")
-    public List<ViewStatsDto> getStats(@RequestParam("start") @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime start,
+    public ResponseEntity<?> getStats(@RequestParam("start") @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime start,
+                                      @RequestParam("end") @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime end,
+                                      @RequestParam(required = false) List<String> uris,
+                                      @RequestParam(defaultValue = "false") boolean unique,
+                                      @RequestParam(defaultValue = "false") boolean exact,
+                                      @RequestParam(required = false) Integer limit,
+                                      @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        validator.checkPeriod(start, end);
+        validator.checkLimit(limit);
+
+        if (accept != null && accept.contains(MediaType.APPLICATION_NDJSON_VALUE)) {
+            StreamingResponseBody body = out -> statsService.streamStats(start, end, uris, unique, limit,
+                    dto -> writeNdjsonLine(out, dto));
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .body(body);
+        }
+
+        List<ViewStatsDto> stats = statsService.getStats(start, end, uris, unique, exact, limit);
+        if (hllStatsService.isApplicable(unique, exact)) {
+            return ResponseEntity.ok()
+                    .header(ERROR_BOUND_HEADER, String.valueOf(hllStatsService.getRelativeError()))
+                    .body(stats);
+        }
+        return ResponseEntity.ok(stats);
+    }
+
+    /**
+     * n самых просматриваемых uri за период по скетчам Space-Saving.
+     * Точное количество просмотров каждого uri находится в диапазоне [hits - error, hits]
+     */
+    @GetMapping("/stats/top")
+    public ResponseEntity<List<TopViewStatsDto>> getTop(@RequestParam("start") @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime start,
+                                                        @RequestParam("end") @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime end,
+                                                        @RequestParam(defaultValue = "10") int n) {
+        validator.checkPeriod(start, end);
+        validator.checkTopSize(n);
+
+        if (!topKService.isEnabled()) {
+            List<TopViewStatsDto> exact = statsService.getStats(start, end, null, false, true, n).stream()
+                    .map(dto -> new TopViewStatsDto(dto.getApp(), dto.getUri(), dto.getHits(), 0L))
+                    .toList();
+            return ResponseEntity.ok(exact);
+        }
+
+        TopKService.TopResult result = topKService.getTop(start, end, n);
+        return ResponseEntity.ok()
+                .header(TOP_ERROR_BOUND_HEADER, String.valueOf(result.getErrorBound()))
+                .body(result.getTop());
+    }
+
+    /**
+     * Самые просматриваемые сейчас uri событий за последний час, сутки или неделю (window = 1h, 24h, 7d).
+     * Рейтинг ведётся в памяти и обновляется раз в stats.trending.refresh-interval
+     */
+    @GetMapping("/stats/trending")
+    public List<ViewStatsDto> getTrending(@RequestParam(defaultValue = "24h") String window,
+                                         @RequestParam(defaultValue = "10") int n) {
+        TrendingWindow trendingWindow = validator.checkTrending(window, n);
+
+        return trendingCounters.getTop(trendingWindow, n);
+    }
+
+    /**
+     * Просмотры по интервалам bucket (1m, 1h, 1d) для построения графиков.
+     * Границы периода выравниваются по интервалам, интервалы без просмотров заполняются нулями
+     */
+    @GetMapping("/stats/timeseries")
+    public TimeSeriesDto getTimeSeries(@RequestParam("start") @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime start,
                                        @RequestParam("end") @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime end,
                                        @RequestParam(required = false) List<String> uris,
+                                       @RequestParam(defaultValue = "1h") String bucket,
                                        @RequestParam(defaultValue = "false") boolean unique) {
-        if (end.isBefore(start)) {
-            throw new ResponseStatusException(
-                    HttpStatus.BAD_REQUEST,
-                    "startTime must be before endTime"
-            );
-        }
+        RollupGranularity granularity = validator.checkTimeSeries(start, end, bucket);
+
+        return timeSeriesService.getTimeSeries(start, end, uris, granularity, unique);
+    }
+
+    /**
+     * Количество просмотров событий за всё время, ответ - отображение id события на количество просмотров
+     */
+    @PostMapping("/stats/events/views")
+    public Map<Long, Long> getEventViews(@RequestBody EventViewsRequestDto request) {
+        return statsService.getEventViews(request.getEventIds(), request.isUnique());
+    }
+
+    /**
+     * Количество просмотров за всё время по каждому uri, ответ - отображение uri на количество просмотров
+     */
+    @GetMapping("/stats/totals")
+    public Map<String, Long> getUriTotals(@RequestParam List<String> uris) {
+        return statsService.getUriTotals(uris);
+    }
 
-        return statsService.getStats(start, end, uris, unique);
+    private void writeNdjsonLine(OutputStream out, ViewStatsDto dto) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(dto));
+            out.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 }
@@ -6,6 +6,7 @@ import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.experimental.FieldDefaults;
+import org.hibernate.annotations.ColumnTransformer;
 import ru.practicum.dto.EndpointHitDto;
 
 import java.time.LocalDateTime;
@@ -23,18 +24,41 @@ public class StatsEntry {
     @EqualsAndHashCode.Include
     Long id;
 
-    @Column(name = "app")
-    String app;
+    @Column(name = "app_id")
+    Integer appId;
 
-    @Column(name = "uri")
-    String uri;
+    @Column(name = "uri_id")
+    Integer uriId;
 
+    /**
+     * Хранится в столбце типа inet, поддерживаются IPv4 и IPv6
+     */
     @Column(name = "ip")
+    @ColumnTransformer(read = "host(ip)", write = "?::inet")
     String ip;
 
     @Column(name = "created")
     LocalDateTime timestamp;
 
+    /**
+     * Сколько просмотров представляет запись: 1, либо N для просмотра популярного uri,
+     * сохранённого с вероятностью 1/N
+     */
+    @Column(name = "weight")
+    int weight = 1;
+
+    /**
+     * Название сервиса, в таблице хранится только appId
+     */
+    @Transient
+    String app;
+
+    /**
+     * Uri, в таблице хранится только uriId
+     */
+    @Transient
+    String uri;
+
     public static StatsEntry fromDto(EndpointHitDto dto) {
         StatsEntry entry = new StatsEntry();
         entry.setApp(dto.getApp());
@@ -1,43 +1,115 @@
 package ru.practicum.stats;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
-import ru.practicum.dto.ViewStatsDto;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+/**
+ * Группировка выполняется по идентификаторам из словарей, названия подставляет {@link ru.practicum.stats.dictionary.StatsDictionary}.
+ * Результаты stream* читаются курсором порциями по FETCH_SIZE строк, поток нужно закрыть внутри транзакции.
+ */
 public interface StatsRepository extends JpaRepository<StatsEntry, Long> {
+    String FETCH_SIZE = "500";
 
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = FETCH_SIZE))
     @Query("""
-            select new ru.practicum.dto.ViewStatsDto(se.app, se.uri, count(se.ip))
+            select new ru.practicum.stats.HitCount(se.appId, se.uriId, sum(se.weight))
             from StatsEntry as se
             where (se.timestamp >= ?1 and se.timestamp < ?2)
-            group by se.app, se.uri
-            order by count(se.ip) desc""")
-    List<ViewStatsDto> getStats(LocalDateTime start, LocalDateTime end);
+            group by se.appId, se.uriId
+            order by sum(se.weight) desc""")
+    Stream<HitCount> streamStats(LocalDateTime start, LocalDateTime end, Limit limit);
 
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = FETCH_SIZE))
     @Query("""
-            select new ru.practicum.dto.ViewStatsDto(se.app, se.uri, count(distinct se.ip))
+            select new ru.practicum.stats.HitCount(se.appId, se.uriId, count(distinct se.ip))
             from StatsEntry as se
             where (se.timestamp >= ?1 and se.timestamp < ?2)
-            group by se.app, se.uri
+            group by se.appId, se.uriId
             order by count(distinct se.ip) desc""")
-    List<ViewStatsDto> getStatsUniqueIp(LocalDateTime start, LocalDateTime end);
+    Stream<HitCount> streamStatsUniqueIp(LocalDateTime start, LocalDateTime end, Limit limit);
+
+    /**
+     * Фильтр по uri передаётся одним параметром-массивом, а не списком IN из тысяч параметров
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = FETCH_SIZE))
+    @Query(nativeQuery = true, value = """
+            SELECT app_id, uri_id, sum(weight) AS hits
+            FROM stats
+            WHERE created >= ?1 AND created < ?2 AND uri_id = ANY(CAST(?3 AS int[]))
+            GROUP BY app_id, uri_id
+            ORDER BY hits DESC""")
+    Stream<Object[]> streamRowsByUris(LocalDateTime start, LocalDateTime end, Integer[] uriIds, Limit limit);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = FETCH_SIZE))
+    @Query(nativeQuery = true, value = """
+            SELECT app_id, uri_id, count(DISTINCT ip) AS hits
+            FROM stats
+            WHERE created >= ?1 AND created < ?2 AND uri_id = ANY(CAST(?3 AS int[]))
+            GROUP BY app_id, uri_id
+            ORDER BY hits DESC""")
+    Stream<Object[]> streamRowsByUrisUniqueIp(LocalDateTime start, LocalDateTime end, Integer[] uriIds, Limit limit);
+
+    @Query("""
+            select se.uriId, sum(se.weight)
+            from StatsEntry as se
+            where se.uriId in ?1
+            group by se.uriId""")
+    List<Object[]> countHitsByUris(Collection<Integer> uriIds);
 
     @Query("""
-            select new ru.practicum.dto.ViewStatsDto(se.app, se.uri, count(se.ip))
+            select se.uriId, count(distinct se.ip)
             from StatsEntry as se
-            where (se.timestamp >= ?1 and se.timestamp < ?2 and se.uri in ?3)
-            group by se.app, se.uri
-            order by count(se.ip) desc""")
-    List<ViewStatsDto> getStatsByUris(LocalDateTime start, LocalDateTime end, List<String> uris);
+            where se.uriId in ?1
+            group by se.uriId""")
+    List<Object[]> countUniqueIpHitsByUris(Collection<Integer> uriIds);
 
     @Query("""
-            select new ru.practicum.dto.ViewStatsDto(se.app, se.uri, count(distinct se.ip))
+            select distinct se.appId, se.uriId, se.ip
             from StatsEntry as se
-            where (se.timestamp >= ?1 and se.timestamp < ?2 and se.uri in ?3)
-            group by se.app, se.uri
-            order by count(DISTINCT se.ip) desc""")
-    List<ViewStatsDto> getStatsByUrisUniqueIp(LocalDateTime start, LocalDateTime end, List<String> uris);
+            where (se.timestamp >= ?1 and se.timestamp < ?2)""")
+    List<Object[]> findDistinctVisitors(LocalDateTime start, LocalDateTime end);
+
+    @Query(nativeQuery = true, value = """
+            SELECT DISTINCT app_id, uri_id, host(ip)
+            FROM stats
+            WHERE created >= ?1 AND created < ?2 AND uri_id = ANY(CAST(?3 AS int[]))""")
+    List<Object[]> findDistinctVisitorsByUris(LocalDateTime start, LocalDateTime end, Integer[] uriIds);
+
+    default Stream<HitCount> streamStatsByUris(LocalDateTime start, LocalDateTime end, Collection<Integer> uriIds,
+                                               Limit limit) {
+        return streamRowsByUris(start, end, uriIds.toArray(Integer[]::new), limit).map(StatsRepository::toHitCount);
+    }
+
+    default Stream<HitCount> streamStatsByUrisUniqueIp(LocalDateTime start, LocalDateTime end,
+                                                       Collection<Integer> uriIds, Limit limit) {
+        return streamRowsByUrisUniqueIp(start, end, uriIds.toArray(Integer[]::new), limit)
+                .map(StatsRepository::toHitCount);
+    }
+
+    /**
+     * Количество просмотров за всё время по каждому идентификатору uri
+     */
+    default Map<Integer, Long> countHitsByUris(Collection<Integer> uriIds, boolean unique) {
+        List<Object[]> result = unique ? countUniqueIpHitsByUris(uriIds) : countHitsByUris(uriIds);
+        return result.stream()
+                .collect(Collectors.toMap(
+                        arr -> (Integer) arr[0],
+                        arr -> (Long) arr[1]
+                ));
+    }
+
+    private static HitCount toHitCount(Object[] row) {
+        return new HitCount((Integer) row[0], (Integer) row[1], ((Number) row[2]).longValue());
+    }
 }
@@ -0,0 +1,101 @@
+package ru.practicum.stats;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import ru.practicum.stats.rollup.RollupGranularity;
+import ru.practicum.stats.timeseries.TimeSeriesService;
+import ru.practicum.stats.topk.TopKService;
+import ru.practicum.stats.trending.TrendingCounters;
+import ru.practicum.stats.trending.TrendingWindow;
+
+import java.time.LocalDateTime;
+
+/**
+ * Проверка параметров запросов, общая для {@link StatsController} и реактивного контроллера
+ */
+@Component
+@RequiredArgsConstructor
+public class StatsRequestValidator {
+    private final HitBatchProperties hitBatchProperties;
+    private final TopKService topKService;
+    private final TimeSeriesService timeSeriesService;
+    private final TrendingCounters trendingCounters;
+
+    public void checkPeriod(LocalDateTime start, LocalDateTime end) {
+        if (end.isBefore(start)) {
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST,
+                    "startTime must be before endTime"
+            );
+        }
+    }
+
+    public void checkLimit(Integer limit) {
+        if (limit != null && limit <= 0) {
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST,
+                    "limit must be positive"
+            );
+        }
+    }
+
+    public void checkTopSize(int n) {
+        if (n <= 0 || n > topKService.getCapacity()) {
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST,
+                    "n must be in [1, " + topKService.getCapacity() + "]"
+            );
+        }
+    }
+
+    /**
+     * Окно рейтинга по параметру window, при выключенном рейтинге - 404
+     */
+    public TrendingWindow checkTrending(String window, int n) {
+        TrendingWindow trendingWindow = TrendingWindow.fromParam(window)
+                .orElseThrow(() -> new ResponseStatusException(
+                        HttpStatus.BAD_REQUEST,
+                        "window must be one of 1h, 24h, 7d"
+                ));
+        if (n <= 0 || n > trendingCounters.getSize()) {
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST,
+                    "n must be in [1, " + trendingCounters.getSize() + "]"
+            );
+        }
+        if (!trendingCounters.isEnabled()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Trending is disabled");
+        }
+        return trendingWindow;
+    }
+
+    /**
+     * Интервал временного ряда по параметру bucket с проверкой периода и количества интервалов
+     */
+    public RollupGranularity checkTimeSeries(LocalDateTime start, LocalDateTime end, String bucket) {
+        checkPeriod(start, end);
+        RollupGranularity granularity = RollupGranularity.fromBucket(bucket)
+                .orElseThrow(() -> new ResponseStatusException(
+                        HttpStatus.BAD_REQUEST,
+                        "bucket must be one of 1m, 1h, 1d"
+                ));
+        if (timeSeriesService.countBuckets(start, end, granularity) > TimeSeriesService.MAX_BUCKETS) {
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST,
+                    "Too many buckets, limit is " + TimeSeriesService.MAX_BUCKETS
+            );
+        }
+        return granularity;
+    }
+
+    public void checkBatchSize(int size) {
+        if (size > hitBatchProperties.getMaxSize()) {
+            throw new ResponseStatusException(
+                    HttpStatus.PAYLOAD_TOO_LARGE,
+                    "Batch size exceeds limit of " + hitBatchProperties.getMaxSize()
+            );
+        }
+    }
+}
@@ -2,8 +2,19 @@ package ru.practicum.stats;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcTransactionManagerAutoConfiguration;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
-@SpringBootApplication
+/**
+ * По умолчанию работает на Spring MVC и JPA, с spring.main.web-application-type=reactive -
+ * на WebFlux и R2DBC (пакет ru.practicum.stats.reactive). Автоконфигурация R2DBC отключена,
+ * пул реактивного режима настраивается через stats.reactive.
+ */
+@SpringBootApplication(exclude = {R2dbcAutoConfiguration.class, R2dbcTransactionManagerAutoConfiguration.class})
+@ConfigurationPropertiesScan
+@EnableScheduling
 public class StatsServer {
     public static void main(String[] args) {
         SpringApplication.run(StatsServer.class, args);
@@ -1,13 +1,34 @@
 package ru.practicum.stats;
 
 import ru.practicum.dto.EndpointHitDto;
+import ru.practicum.dto.HitBatchResultDto;
 import ru.practicum.dto.ViewStatsDto;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface StatsService {
     void saveHit(EndpointHitDto hitDto);
 
-    List<ViewStatsDto> getStats(LocalDateTime startTime, LocalDateTime endTime, List<String> uris, boolean unique);
+    HitBatchResultDto saveHits(List<EndpointHitDto> hits);
+
+    int saveEntries(List<StatsEntry> entries);
+
+    Optional<StatsEntry> encodeHit(EndpointHitDto hitDto);
+
+    PreparedHits prepareHits(List<EndpointHitDto> hits);
+
+    List<ViewStatsDto> getStats(LocalDateTime startTime, LocalDateTime endTime, List<String> uris,
+                                boolean unique, boolean exact, Integer limit);
+
+    void streamStats(LocalDateTime startTime, LocalDateTime endTime, List<String> uris,
+                     boolean unique, Integer limit, Consumer<ViewStatsDto> consumer);
+
+    Map<Long, Long> getEventViews(Collection<Long> eventIds, boolean unique);
+
+    Map<String, Long> getUriTotals(Collection<String> uris);
 }
@@ -2,44 +2,383 @@ package ru.practicum.stats;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
 import ru.practicum.dto.EndpointHitDto;
+import ru.practicum.dto.HitBatchResultDto;
 import ru.practicum.dto.ViewStatsDto;
+import ru.practicum.stats.abuse.HitRateFilter;
+import ru.practicum.stats.admission.QueryTransactions;
+import ru.practicum.stats.cache.StatsQueryKey;
+import ru.practicum.stats.cache.StatsResultCache;
+import ru.practicum.stats.counter.HitCounters;
+import ru.practicum.stats.dictionary.StatsDictionary;
+import ru.practicum.stats.dictionary.UriFilter;
+import ru.practicum.stats.hll.HllStatsService;
+import ru.practicum.stats.rollup.RollupProperties;
+import ru.practicum.stats.rollup.RollupStatsService;
+import ru.practicum.stats.sampling.HotUriSampler;
 
+import java.net.InetAddress;
+import java.net.UnknownHostException;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class StatsServiceImpl implements StatsService {
+    private static final String EVENT_URI_PREFIX = "/events/";
+    private static final Pattern IP_LITERAL = Pattern.compile("(\\d{1,3}\\.){3}\\d{1,3}|[0-9a-fA-F:.]*:[0-9a-fA-F:.]*");
+
     private final StatsRepository repository;
+    private final StatsBulkRepository bulkRepository;
+    private final StatsDictionary dictionary;
+    private final RollupStatsService rollupStatsService;
+    private final RollupProperties rollupProperties;
+    private final HllStatsService hllStatsService;
+    private final HitCounters hitCounters;
+    private final StatsResultCache resultCache;
+    private final QueryTransactions queryTransactions;
+    private final HitRateFilter hitRateFilter;
+    private final HotUriSampler sampler;
+    private final TransactionTemplate transactionTemplate;
+    private final List<HitListener> hitListeners;
 
+    /**
+     * Просмотр кодируется словарями до начала транзакции записи: добавление нового uri
+     * не требует второго соединения, пока первое удерживается транзакцией.
+     * Некорректный ip или timestamp отклоняются с 400 так же, как в пакетной записи.
+     */
     @Override
-    @Transactional
     public void saveHit(EndpointHitDto hitDto) {
         log.debug("Запрос на сохранение в статистику: app = {}, uri = {}, ip = {}, timestamp = {}",
                 hitDto.getApp(), hitDto.getUri(), hitDto.getIp(), hitDto.getTimestamp());
+        StatsEntry entry = toEntryOrNull(hitDto);
+        if (entry == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid hit");
+        }
+        if (!hitRateFilter.admit(hitDto)) {
+            return;
+        }
 
-        StatsEntry entry = StatsEntry.fromDto(hitDto);
-        repository.save(entry);
+        encode(entry);
+        PreparedHits prepared = sample(List.of(entry), 0, 0);
+        if (prepared.getEntries().isEmpty()) {
+            log.debug("Просмотр популярного uri не сохранён при выборочном сохранении: uri = {}", entry.getUri());
+            onSaved(prepared);
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            repository.save(entry);
+            onSaved(prepared);
+        });
 
         log.info("Сохранена запись в статистику: id = {}, app = {}, uri = {}, ip = {}, timestamp = {}",
                 entry.getId(), entry.getApp(), entry.getUri(), entry.getIp(), entry.getTimestamp());
     }
 
+    /**
+     * Пакетное сохранение просмотров одной транзакцией.
+     * Некорректные и отфильтрованные по частоте записи не прерывают пакет, а учитываются в rejected.
+     * Просмотры популярных uri, не сохранённые при выборочном сохранении, учтены весом сохранённых,
+     * поэтому saved может быть меньше received - rejected.
+     * Пакет кодируется словарями до начала транзакции записи.
+     */
+    @Override
+    public HitBatchResultDto saveHits(List<EndpointHitDto> hits) {
+        PreparedHits prepared = prepareHits(hits);
+        int saved = transactionTemplate.execute(status -> {
+            int count = bulkRepository.saveAll(prepared.getEntries());
+            onSaved(prepared);
+            return count;
+        });
+        HitBatchResultDto result = HitBatchResultDto.builder()
+                .received(hits.size())
+                .saved(saved)
+                .rejected(prepared.getRejected())
+                .build();
+
+        log.info("Сохранён пакет просмотров: получено = {}, сохранено = {}, отклонено = {}",
+                result.getReceived(), result.getSaved(), result.getRejected());
+        return result;
+    }
+
+    /**
+     * Сохранение проверенных просмотров с уже заполненными идентификаторами из словарей
+     */
+    @Override
+    @Transactional
+    public int saveEntries(List<StatsEntry> entries) {
+        PreparedHits prepared = sample(entries, 0, 0);
+        int saved = bulkRepository.saveAll(prepared.getEntries());
+        onSaved(prepared);
+        return saved;
+    }
+
+    /**
+     * Подготовка пакета к записи без обращения к таблице stats: проверка, фильтр частоты,
+     * замена названий на идентификаторы словарей и выборочное сохранение популярных uri
+     */
+    @Override
+    public PreparedHits prepareHits(List<EndpointHitDto> hits) {
+        List<StatsEntry> entries = new ArrayList<>(hits.size());
+        int invalid = 0;
+        int filtered = 0;
+        for (EndpointHitDto hitDto : hits) {
+            StatsEntry entry = toEntryOrNull(hitDto);
+            if (entry == null) {
+                invalid++;
+            } else if (!hitRateFilter.admit(hitDto)) {
+                filtered++;
+            } else {
+                encode(entry);
+                entries.add(entry);
+            }
+        }
+        return sample(entries, invalid, filtered);
+    }
+
+    /**
+     * Проверка просмотра и замена названия сервиса и uri на идентификаторы без записи в таблицу stats
+     * @return пусто, если просмотр некорректен
+     */
     @Override
-    public List<ViewStatsDto> getStats(LocalDateTime startTime, LocalDateTime endTime, List<String> uris, boolean unique) {
-        log.debug("Запрос на получение статистики c {} по {}, фильтр по uri: {}, уникальный ip: {}",
-                startTime, endTime, uris, unique);
+    public Optional<StatsEntry> encodeHit(EndpointHitDto hitDto) {
+        StatsEntry entry = toEntryOrNull(hitDto);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        encode(entry);
+        return Optional.of(entry);
+    }
+
+    /**
+     * Статистика по просмотрам, при limit != null - только limit самых просматриваемых uri
+     */
+    @Override
+    public List<ViewStatsDto> getStats(LocalDateTime startTime, LocalDateTime endTime, List<String> uris,
+                                       boolean unique, boolean exact, Integer limit) {
+        log.debug("Запрос на получение статистики c {} по {}, фильтр по uri: {}, уникальный ip: {}, точный подсчёт: {}, limit: {}",
+                startTime, endTime, uris, unique, exact, limit);
+
+        StatsQueryKey key = StatsQueryKey.of(startTime, endTime, uris, unique, exact, limit);
+        return resultCache.get(key, () -> computeStats(startTime, endTime, uris, unique, exact, limit));
+    }
+
+    private List<ViewStatsDto> computeStats(LocalDateTime startTime, LocalDateTime endTime, List<String> uris,
+                                            boolean unique, boolean exact, Integer limit) {
+        return queryTransactions.execute(() -> {
+            UriFilter filter = UriFilter.resolve(uris, dictionary);
+            if (filter.isEmpty()) {
+                return List.<ViewStatsDto>of();
+            }
+
+            if (hllStatsService.isApplicable(unique, exact)) {
+                return truncate(hllStatsService.getStats(startTime, endTime, filter), limit);
+            } else if (!unique && rollupProperties.isEnabled()) {
+                return truncate(rollupStatsService.getStats(startTime, endTime, filter), limit);
+            }
+            try (Stream<HitCount> stats = openStats(startTime, endTime, filter.getUriIds(), unique, limit)) {
+                return stats.map(dictionary::toViewStats).toList();
+            }
+        });
+    }
+
+    /**
+     * Точная статистика по исходным записям с передачей строк по мере чтения из курсора.
+     * Память на запрос не зависит от количества строк результата.
+     */
+    @Override
+    public void streamStats(LocalDateTime startTime, LocalDateTime endTime, List<String> uris,
+                            boolean unique, Integer limit, Consumer<ViewStatsDto> consumer) {
+        log.debug("Потоковый запрос статистики c {} по {}, фильтр по uri: {}, уникальный ip: {}, limit: {}",
+                startTime, endTime, uris, unique, limit);
+
+        queryTransactions.run(() -> {
+            UriFilter filter = UriFilter.resolve(uris, dictionary);
+            if (filter.isEmpty()) {
+                return;
+            }
+
+            try (Stream<HitCount> stats = openStats(startTime, endTime, filter.getUriIds(), unique, limit)) {
+                stats.map(dictionary::toViewStats).forEach(consumer);
+            }
+        });
+    }
+
+    /**
+     * Количество просмотров событий за всё время.
+     * Запрос выполняется только по uri запрошенных событий.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Map<Long, Long> getEventViews(Collection<Long> eventIds, boolean unique) {
+        log.debug("Запрос просмотров событий: {}, уникальный ip: {}", eventIds, unique);
+        if (eventIds == null || eventIds.isEmpty()) {
+            return Map.of();
+        }
+
+        Map<String, Long> uriToEventId = new HashMap<>();
+        for (Long eventId : eventIds) {
+            uriToEventId.put(EVENT_URI_PREFIX + eventId, eventId);
+        }
+
+        if ((!unique && hitCounters.isEnabled()) || hllStatsService.isApplicable(unique, false)) {
+            Map<String, Long> hitsByUri = unique
+                    ? hllStatsService.getUniqueViews(uriToEventId.keySet())
+                    : hitCounters.getTotals(uriToEventId.keySet());
+            Map<Long, Long> views = new HashMap<>(hitsByUri.size());
+            hitsByUri.forEach((uri, hits) -> views.put(uriToEventId.get(uri), hits));
+            return views;
+        }
+
+        List<Integer> uriIds = dictionary.findUriIds(uriToEventId.keySet());
+        if (uriIds.isEmpty()) {
+            return Map.of();
+        }
+        Map<Integer, Long> hitsByUriId = repository.countHitsByUris(uriIds, unique);
+        Map<Long, Long> views = new HashMap<>(hitsByUriId.size());
+        hitsByUriId.forEach((uriId, hits) -> views.put(uriToEventId.get(dictionary.getUri(uriId)), hits));
+        return views;
+    }
+
+    /**
+     * Количество просмотров за всё время по каждому uri, для uri без просмотров - 0.
+     * При включённых счётчиках запрос обслуживается из памяти.
+     */
+    @Override
+    public Map<String, Long> getUriTotals(Collection<String> uris) {
+        if (hitCounters.isEnabled()) {
+            return hitCounters.getTotals(uris);
+        }
+
+        Map<String, Long> totals = new LinkedHashMap<>(uris.size());
+        uris.forEach(uri -> totals.put(uri, 0L));
+        List<Integer> uriIds = dictionary.findUriIds(uris);
+        if (!uriIds.isEmpty()) {
+            repository.countHitsByUris(uriIds, false)
+                    .forEach((uriId, hits) -> totals.put(dictionary.getUri(uriId), hits));
+        }
+        return totals;
+    }
+
+    /**
+     * Уведомление обработчиков, в том числе агрегатов, о сохранённых и не сохранённых при выборочном
+     * сохранении просмотрах после фиксации текущей транзакции
+     */
+    private void onSaved(PreparedHits prepared) {
+        if (hitListeners.isEmpty() || (prepared.getEntries().isEmpty() && prepared.getSampledOut().isEmpty())) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    HitListener.dispatch(hitListeners, prepared);
+                }
+            });
+        } else {
+            HitListener.dispatch(hitListeners, prepared);
+        }
+    }
+
+    /**
+     * Выборочное сохранение просмотров популярных uri: сохраняемым записям назначается вес,
+     * несохраняемые просмотры передаются обработчикам вместе с сохранёнными после фиксации записи
+     * @return сохраняемые и несохраняемые записи
+     */
+    private PreparedHits sample(List<StatsEntry> entries, int invalid, int filtered) {
+        List<StatsEntry> kept = new ArrayList<>(entries.size());
+        List<StatsEntry> skipped = new ArrayList<>();
+        for (StatsEntry entry : entries) {
+            int weight = sampler.sample(entry.getUriId());
+            if (weight > 0) {
+                entry.setWeight(weight);
+                kept.add(entry);
+            } else {
+                skipped.add(entry);
+            }
+        }
+
+        return new PreparedHits(kept, skipped, invalid, filtered);
+    }
+
+    /**
+     * @param uriIds фильтр по идентификаторам uri, null - без фильтра
+     */
+    private Stream<HitCount> openStats(LocalDateTime startTime, LocalDateTime endTime, List<Integer> uriIds,
+                                       boolean unique, Integer limit) {
+        Limit rowLimit = (limit == null) ? Limit.unlimited() : Limit.of(limit);
+        if (uriIds != null) {
+            return unique
+                    ? repository.streamStatsByUrisUniqueIp(startTime, endTime, uriIds, rowLimit)
+                    : repository.streamStatsByUris(startTime, endTime, uriIds, rowLimit);
+        }
+        return unique
+                ? repository.streamStatsUniqueIp(startTime, endTime, rowLimit)
+                : repository.streamStats(startTime, endTime, rowLimit);
+    }
+
+    private static List<ViewStatsDto> truncate(List<ViewStatsDto> stats, Integer limit) {
+        return (limit == null || stats.size() <= limit) ? stats : stats.subList(0, limit);
+    }
+
+    /**
+     * Замена названия сервиса и uri на идентификаторы из словарей
+     */
+    private void encode(StatsEntry entry) {
+        entry.setAppId(dictionary.getAppId(entry.getApp()));
+        entry.setUriId(dictionary.getUriId(entry.getUri()));
+    }
+
+    private StatsEntry toEntryOrNull(EndpointHitDto hitDto) {
+        if (hitDto == null || hitDto.getApp() == null || hitDto.getUri() == null
+                || hitDto.getIp() == null || hitDto.getTimestamp() == null) {
+            log.debug("Просмотр отклонён, не заполнены обязательные поля: {}", hitDto);
+            return null;
+        }
+        if (!isIpAddress(hitDto.getIp())) {
+            log.debug("Просмотр отклонён, некорректный ip: {}", hitDto.getIp());
+            return null;
+        }
+        try {
+            return StatsEntry.fromDto(hitDto);
+        } catch (DateTimeParseException e) {
+            log.debug("Просмотр отклонён, некорректный timestamp: {}", hitDto.getTimestamp());
+            return null;
+        }
+    }
 
-        if (unique && uris != null) {
-            return repository.getStatsByUrisUniqueIp(startTime, endTime, uris);
-        } else if (!unique && uris != null) {
-            return repository.getStatsByUris(startTime, endTime, uris);
-        } else if (unique) {
-            return repository.getStatsUniqueIp(startTime, endTime);
-        } else return repository.getStats(startTime, endTime);
+    /**
+     * Проверка, что строка является адресом IPv4 или IPv6, а не именем хоста.
+     * Для таких строк InetAddress.getByName только разбирает адрес без обращения к DNS.
+     */
+    private boolean isIpAddress(String ip) {
+        if (!IP_LITERAL.matcher(ip).matches()) {
+            return false;
+        }
+        try {
+            InetAddress.getByName(ip);
+            return true;
+        } catch (UnknownHostException e) {
+            return false;
+        }
     }
 }
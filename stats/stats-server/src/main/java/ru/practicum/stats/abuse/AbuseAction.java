@@ -0,0 +1,15 @@
+package ru.practicum.stats.abuse;
+
+/**
+ * Обработка просмотров сверх порога частоты
+ */
+public enum AbuseAction {
+    /**
+     * Не сохранять
+     */
+    DROP,
+    /**
+     * Сохранять только долю sample-rate
+     */
+    SAMPLE
+}
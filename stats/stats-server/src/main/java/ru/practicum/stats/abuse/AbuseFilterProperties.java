@@ -0,0 +1,69 @@
+package ru.practicum.stats.abuse;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Настройки фильтрации просмотров от ботов и слишком активных клиентов
+ */
+@Getter
+@Setter
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@ConfigurationProperties(prefix = "stats.abuse")
+public class AbuseFilterProperties {
+    /**
+     * Проверять частоту просмотров с ip перед сохранением
+     */
+    boolean enabled = true;
+
+    /**
+     * Скользящее окно, в котором считаются просмотры
+     */
+    Duration window = Duration.ofMinutes(1);
+
+    /**
+     * Количество частей окна: окно сдвигается на window / slices
+     */
+    int slices = 6;
+
+    /**
+     * Максимум просмотров с одного ip за окно
+     */
+    long ipThreshold = 1200;
+
+    /**
+     * Максимум просмотров одного uri с одного ip за окно
+     */
+    long ipUriThreshold = 120;
+
+    /**
+     * Что делать с просмотрами сверх порога
+     */
+    AbuseAction action = AbuseAction.DROP;
+
+    /**
+     * Доля сохраняемых просмотров сверх порога при action = SAMPLE
+     */
+    double sampleRate = 0.01;
+
+    /**
+     * Количество счётчиков в строке скетча, погрешность оценки - не больше e / width от всех просмотров окна
+     */
+    int width = 16384;
+
+    /**
+     * Количество строк скетча, вероятность превышения погрешности - e^-depth
+     */
+    int depth = 4;
+
+    /**
+     * Количество независимых частей скетча по ip со своей блокировкой, ширина части - width / stripes.
+     * Просмотры с разных ip учитываются параллельно, погрешность не меняется
+     */
+    int stripes = 16;
+}
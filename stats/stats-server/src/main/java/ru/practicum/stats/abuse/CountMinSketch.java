@@ -0,0 +1,83 @@
+package ru.practicum.stats.abuse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Скетч Count-Min с консервативным обновлением: оценка количества ключа не меньше точного значения
+ * и превышает его не больше чем на e / width от суммы всех добавлений с вероятностью 1 - e^-depth.
+ * Не потокобезопасен.
+ */
+class CountMinSketch {
+    private final int width;
+    private final int depth;
+    private final int[] counters;
+
+    CountMinSketch(int width, int depth) {
+        this.width = width;
+        this.depth = depth;
+        this.counters = new int[width * depth];
+    }
+
+    /**
+     * Индексы ключа в каждой строке скетча, вычисляются один раз для всех частей окна
+     */
+    int[] indexes(String key) {
+        long hash = hash64(key);
+        long step = mix(hash ^ 0x9e3779b97f4a7c15L) | 1;
+        int[] indexes = new int[depth];
+        for (int row = 0; row < depth; row++) {
+            int column = (int) Long.remainderUnsigned(hash + row * step, width);
+            indexes[row] = row * width + column;
+        }
+        return indexes;
+    }
+
+    /**
+     * Консервативное обновление: увеличиваются только счётчики, равные текущей оценке
+     */
+    void add(int[] indexes) {
+        int estimate = estimate(indexes);
+        if (estimate == Integer.MAX_VALUE) {
+            return;
+        }
+        for (int index : indexes) {
+            if (counters[index] == estimate) {
+                counters[index] = estimate + 1;
+            }
+        }
+    }
+
+    int estimate(int[] indexes) {
+        int min = Integer.MAX_VALUE;
+        for (int index : indexes) {
+            min = Math.min(min, counters[index]);
+        }
+        return min;
+    }
+
+    void clear() {
+        Arrays.fill(counters, 0);
+    }
+
+    /**
+     * 64-битный FNV-1a с финальным перемешиванием из MurmurHash3
+     */
+    private static long hash64(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,86 @@
+package ru.practicum.stats.abuse;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.practicum.dto.EndpointHitDto;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Фильтр просмотров перед сохранением по частоте запросов с ip и частоте запросов одного uri с ip
+ * за скользящее окно. Частоты оцениваются скетчами Count-Min фиксированного размера, поэтому память
+ * не зависит от количества клиентов, а оценка может только завышать частоту.
+ * Просмотры сверх порога отбрасываются или сохраняются с долей sample-rate, так что объём записи
+ * от одного клиента ограничен. Метрика: stats.ingest.filtered{reason=ip|ip_uri, outcome=dropped|sampled}.
+ * Скетчи разделены на части по ip, все ключи одного ip попадают в одну часть, блокируется только она.
+ */
+@Slf4j
+@Component
+public class HitRateFilter {
+    private static final String FILTERED_METRIC = "stats.ingest.filtered";
+
+    private final AbuseFilterProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Stripe[] stripes;
+
+    public HitRateFilter(AbuseFilterProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        long windowMillis = properties.getWindow().toMillis();
+        int stripeCount = Math.max(1, properties.getStripes());
+        int stripeWidth = Math.max(1, properties.getWidth() / stripeCount);
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe(
+                    new SlidingCountMinSketch(windowMillis, properties.getSlices(), stripeWidth, properties.getDepth()),
+                    new SlidingCountMinSketch(windowMillis, properties.getSlices(), stripeWidth, properties.getDepth()));
+        }
+    }
+
+    /**
+     * Учесть просмотр и решить, сохранять ли его. Просмотры без ip или uri пропускаются для проверки корректности.
+     */
+    public boolean admit(EndpointHitDto hitDto) {
+        if (!properties.isEnabled() || hitDto == null || hitDto.getIp() == null || hitDto.getUri() == null) {
+            return true;
+        }
+
+        long now = System.currentTimeMillis();
+        long ipCount;
+        long ipUriCount;
+        Stripe stripe = stripes[Math.floorMod(hitDto.getIp().hashCode(), stripes.length)];
+        synchronized (stripe) {
+            ipCount = stripe.ipRates.add(hitDto.getIp(), now);
+            ipUriCount = stripe.ipUriRates.add(hitDto.getIp() + ' ' + hitDto.getUri(), now);
+        }
+
+        String reason;
+        if (ipCount > properties.getIpThreshold()) {
+            reason = "ip";
+        } else if (ipUriCount > properties.getIpUriThreshold()) {
+            reason = "ip_uri";
+        } else {
+            return true;
+        }
+
+        if (properties.getAction() == AbuseAction.SAMPLE
+                && ThreadLocalRandom.current().nextDouble() < properties.getSampleRate()) {
+            meterRegistry.counter(FILTERED_METRIC, "reason", reason, "outcome", "sampled").increment();
+            return true;
+        }
+        meterRegistry.counter(FILTERED_METRIC, "reason", reason, "outcome", "dropped").increment();
+        log.debug("Просмотр отброшен, превышена частота ({}): ip = {}, uri = {}", reason, hitDto.getIp(), hitDto.getUri());
+        return false;
+    }
+
+    private static class Stripe {
+        private final SlidingCountMinSketch ipRates;
+        private final SlidingCountMinSketch ipUriRates;
+
+        Stripe(SlidingCountMinSketch ipRates, SlidingCountMinSketch ipUriRates) {
+            this.ipRates = ipRates;
+            this.ipUriRates = ipUriRates;
+        }
+    }
+}
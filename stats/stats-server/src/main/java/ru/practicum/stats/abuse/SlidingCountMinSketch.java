@@ -0,0 +1,49 @@
+package ru.practicum.stats.abuse;
+
+/**
+ * Количество событий ключа за скользящее окно: окно делится на части со своими скетчами,
+ * оценка - сумма оценок частей, при сдвиге окна самая старая часть очищается.
+ * Не потокобезопасен.
+ */
+class SlidingCountMinSketch {
+    private final CountMinSketch[] slices;
+    private final long sliceMillis;
+    private long currentSlice;
+
+    SlidingCountMinSketch(long windowMillis, int sliceCount, int width, int depth) {
+        this.slices = new CountMinSketch[sliceCount];
+        for (int i = 0; i < sliceCount; i++) {
+            slices[i] = new CountMinSketch(width, depth);
+        }
+        this.sliceMillis = Math.max(1, windowMillis / sliceCount);
+    }
+
+    /**
+     * Учесть событие ключа в момент nowMillis
+     * @return оценка количества событий ключа за окно с учётом этого
+     */
+    long add(String key, long nowMillis) {
+        advance(nowMillis);
+        int[] indexes = slices[0].indexes(key);
+        slices[(int) (currentSlice % slices.length)].add(indexes);
+
+        long total = 0;
+        for (CountMinSketch slice : slices) {
+            total += slice.estimate(indexes);
+        }
+        return total;
+    }
+
+    private void advance(long nowMillis) {
+        long slice = nowMillis / sliceMillis;
+        if (slice <= currentSlice) {
+            return;
+        }
+        // части, вышедшие из окна, очищаются, но не больше одного полного круга
+        long stale = Math.min(slice - currentSlice, slices.length);
+        for (long i = 1; i <= stale; i++) {
+            slices[(int) ((currentSlice + i) % slices.length)].clear();
+        }
+        currentSlice = slice;
+    }
+}
@@ -0,0 +1,32 @@
+package ru.practicum.stats.admission;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.TransactionTimedOutException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * Запрос, отменённый по таймауту или из-за недоступности БД, завершается 503 с Retry-After
+ */
+@Slf4j
+@RestControllerAdvice
+@RequiredArgsConstructor
+public class AdmissionExceptionHandler {
+    private final AdmissionLanes lanes;
+
+    @ExceptionHandler({QueryTimeoutException.class, TransactionTimedOutException.class,
+            TransientDataAccessResourceException.class})
+    public ResponseEntity<ProblemDetail> handleQueryTimeout(Exception e) {
+        log.warn("Запрос статистики прерван: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, lanes.retryAfterSeconds())
+                .body(ProblemDetail.forStatusAndDetail(HttpStatus.SERVICE_UNAVAILABLE, "Query timed out"));
+    }
+}
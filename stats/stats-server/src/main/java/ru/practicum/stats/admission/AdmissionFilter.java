@@ -0,0 +1,117 @@
+package ru.practicum.stats.admission;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Раздельное ограничение нагрузки для записи просмотров, точечных запросов просмотров и запросов статистики,
+ * чтобы тяжёлые запросы статистики не занимали все соединения с БД, нужные для записи и показа событий.
+ * При переполнении очереди ответ 429, при истечении ожидания - 503, оба с заголовком Retry-After.
+ * В реактивном режиме те же полосы применяет {@link ReactiveAdmissionFilter}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class AdmissionFilter extends OncePerRequestFilter {
+    private final AdmissionLanes lanes;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return resolveLimiter(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        AdmissionLimiter limiter = resolveLimiter(request);
+        AdmissionLimiter.Outcome outcome = limiter.acquire();
+        if (outcome != AdmissionLimiter.Outcome.ADMITTED) {
+            reject(request, response, outcome);
+            return;
+        }
+
+        boolean releaseOnComplete = false;
+        try {
+            filterChain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                // потоковый ответ продолжает выполняться после выхода из фильтра
+                request.getAsyncContext().addListener(new ReleaseListener(limiter));
+                releaseOnComplete = true;
+            }
+        } finally {
+            if (!releaseOnComplete) {
+                limiter.release();
+            }
+        }
+    }
+
+    private AdmissionLimiter resolveLimiter(HttpServletRequest request) {
+        return lanes.resolve(request.getRequestURI().substring(request.getContextPath().length()));
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response, AdmissionLimiter.Outcome outcome)
+            throws IOException {
+        HttpStatus status = (outcome == AdmissionLimiter.Outcome.QUEUE_FULL)
+                ? HttpStatus.TOO_MANY_REQUESTS
+                : HttpStatus.SERVICE_UNAVAILABLE;
+        log.debug("Запрос {} {} отклонён: {}", request.getMethod(), request.getRequestURI(), outcome);
+
+        response.setHeader(HttpHeaders.RETRY_AFTER, lanes.retryAfterSeconds());
+        response.sendError(status.value(), (outcome == AdmissionLimiter.Outcome.QUEUE_FULL)
+                ? "Too many concurrent requests"
+                : "Server is overloaded");
+    }
+
+    /**
+     * Освобождение разрешения после завершения асинхронной обработки, ровно один раз
+     */
+    private static class ReleaseListener implements AsyncListener {
+        private final AdmissionLimiter limiter;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        ReleaseListener(AdmissionLimiter limiter) {
+            this.limiter = limiter;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                limiter.release();
+            }
+        }
+    }
+}
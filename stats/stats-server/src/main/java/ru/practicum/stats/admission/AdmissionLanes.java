@@ -0,0 +1,45 @@
+package ru.practicum.stats.admission;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+/**
+ * Полосы ограничения нагрузки и выбор полосы по адресу запроса, общие для сервлетного и реактивного режимов
+ */
+@Component
+public class AdmissionLanes {
+    private final AdmissionProperties properties;
+    private final AdmissionLimiter ingestionLimiter;
+    private final AdmissionLimiter queryLimiter;
+    private final AdmissionLimiter lookupLimiter;
+
+    public AdmissionLanes(AdmissionProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.ingestionLimiter = new AdmissionLimiter("ingestion", properties.getIngestion(), meterRegistry);
+        this.queryLimiter = new AdmissionLimiter("query", properties.getQuery(), meterRegistry);
+        this.lookupLimiter = new AdmissionLimiter("lookup", properties.getLookup(), meterRegistry);
+    }
+
+    /**
+     * Полоса для запроса по пути без context path, null - запрос не ограничивается
+     */
+    public AdmissionLimiter resolve(String path) {
+        if (!properties.isEnabled()) {
+            return null;
+        }
+        if (path.startsWith("/hit")) {
+            return ingestionLimiter;
+        }
+        if (path.startsWith("/stats/events/views") || path.startsWith("/stats/totals")) {
+            return lookupLimiter;
+        }
+        if (path.startsWith("/stats")) {
+            return queryLimiter;
+        }
+        return null;
+    }
+
+    public String retryAfterSeconds() {
+        return String.valueOf(Math.max(1, properties.getRetryAfter().toSeconds()));
+    }
+}
@@ -0,0 +1,95 @@
+package ru.practicum.stats.admission;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ограничение количества одновременно обрабатываемых запросов одного типа
+ * с ограниченной очередью ожидания. Ожидающие запросы получают разрешение в порядке поступления.
+ */
+public class AdmissionLimiter {
+    private final AdmissionProperties.Lane lane;
+    private final Semaphore permits;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Timer waitTimer;
+    private final Counter queueFullCounter;
+    private final Counter timeoutCounter;
+
+    public AdmissionLimiter(String name, AdmissionProperties.Lane lane, MeterRegistry meterRegistry) {
+        this.lane = lane;
+        this.permits = new Semaphore(lane.getMaxConcurrent(), true);
+
+        waitTimer = Timer.builder("stats.admission.wait")
+                .description("Время ожидания запроса в очереди")
+                .tag("lane", name)
+                .register(meterRegistry);
+        queueFullCounter = Counter.builder("stats.admission.rejected")
+                .tag("lane", name)
+                .tag("reason", "queue_full")
+                .register(meterRegistry);
+        timeoutCounter = Counter.builder("stats.admission.rejected")
+                .tag("lane", name)
+                .tag("reason", "wait_timeout")
+                .register(meterRegistry);
+        Gauge.builder("stats.admission.queued", queued, AtomicInteger::get)
+                .tag("lane", name)
+                .register(meterRegistry);
+        Gauge.builder("stats.admission.active", permits, semaphore -> lane.getMaxConcurrent() - semaphore.availablePermits())
+                .tag("lane", name)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Получить разрешение на обработку запроса, при ADMITTED после обработки нужно вызвать {@link #release()}
+     */
+    public Outcome acquire() {
+        // tryAcquire с таймаутом, в отличие от tryAcquire(), не обгоняет ожидающих в очереди
+        try {
+            if (permits.tryAcquire(0, TimeUnit.NANOSECONDS)) {
+                waitTimer.record(0, TimeUnit.NANOSECONDS);
+                return Outcome.ADMITTED;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Outcome.WAIT_TIMEOUT;
+        }
+
+        if (queued.incrementAndGet() > lane.getMaxQueued()) {
+            queued.decrementAndGet();
+            queueFullCounter.increment();
+            return Outcome.QUEUE_FULL;
+        }
+
+        long startNanos = System.nanoTime();
+        try {
+            boolean acquired = permits.tryAcquire(lane.getMaxWait().toNanos(), TimeUnit.NANOSECONDS);
+            waitTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+            if (!acquired) {
+                timeoutCounter.increment();
+                return Outcome.WAIT_TIMEOUT;
+            }
+            return Outcome.ADMITTED;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Outcome.WAIT_TIMEOUT;
+        } finally {
+            queued.decrementAndGet();
+        }
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    public enum Outcome {
+        ADMITTED,
+        QUEUE_FULL,
+        WAIT_TIMEOUT
+    }
+}
@@ -0,0 +1,73 @@
+package ru.practicum.stats.admission;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Настройки ограничения нагрузки на запись просмотров и запросы статистики
+ */
+@Getter
+@Setter
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@ConfigurationProperties(prefix = "stats.admission")
+public class AdmissionProperties {
+    /**
+     * Ограничивать количество одновременно обрабатываемых запросов
+     */
+    boolean enabled = true;
+
+    /**
+     * Запись просмотров: /hit, /hit/batch
+     */
+    Lane ingestion = new Lane(8, 64, Duration.ofMillis(500));
+
+    /**
+     * Запросы статистики: /stats/**
+     */
+    Lane query = new Lane(4, 16, Duration.ofSeconds(2));
+
+    /**
+     * Точечные запросы просмотров по событиям и uri: /stats/events/views, /stats/totals.
+     * Выполняются при каждом показе события, поэтому не ждут за тяжёлыми запросами статистики
+     */
+    Lane lookup = new Lane(6, 64, Duration.ofMillis(500));
+
+    /**
+     * Максимальное время выполнения запроса статистики в БД, по истечении запрос отменяется
+     */
+    Duration queryTimeout = Duration.ofSeconds(30);
+
+    /**
+     * Значение заголовка Retry-After в отклонённых ответах
+     */
+    Duration retryAfter = Duration.ofSeconds(1);
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @FieldDefaults(level = AccessLevel.PRIVATE)
+    public static class Lane {
+        /**
+         * Количество одновременно обрабатываемых запросов
+         */
+        int maxConcurrent;
+
+        /**
+         * Количество запросов, ожидающих обработки, сверх него - 429
+         */
+        int maxQueued;
+
+        /**
+         * Максимальное время ожидания в очереди, по истечении - 503
+         */
+        Duration maxWait;
+    }
+}
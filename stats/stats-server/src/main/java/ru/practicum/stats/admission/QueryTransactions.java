@@ -0,0 +1,33 @@
+package ru.practicum.stats.admission;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Supplier;
+
+/**
+ * Транзакции только для чтения для запросов статистики с ограничением времени выполнения.
+ * Таймаут транзакции передаётся в statement timeout JDBC, по его истечении драйвер отменяет запрос в PostgreSQL
+ * и соединение возвращается в пул.
+ */
+@Component
+public class QueryTransactions {
+    private final TransactionTemplate transactionTemplate;
+
+    public QueryTransactions(PlatformTransactionManager transactionManager, AdmissionProperties properties) {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        if (properties.getQueryTimeout() != null) {
+            transactionTemplate.setTimeout((int) Math.max(1, properties.getQueryTimeout().toSeconds()));
+        }
+    }
+
+    public <T> T execute(Supplier<T> action) {
+        return transactionTemplate.execute(status -> action.get());
+    }
+
+    public void run(Runnable action) {
+        transactionTemplate.executeWithoutResult(status -> action.run());
+    }
+}
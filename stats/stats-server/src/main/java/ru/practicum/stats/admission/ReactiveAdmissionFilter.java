@@ -0,0 +1,62 @@
+package ru.practicum.stats.admission;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Полосы {@link AdmissionFilter} для реактивного режима. Ожидание разрешения блокирует поток,
+ * поэтому выполняется на boundedElastic, а не в event loop. Разрешение освобождается
+ * по завершении, ошибке или отмене ответа, в том числе потокового.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveAdmissionFilter implements WebFilter {
+    private final AdmissionLanes lanes;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        AdmissionLimiter limiter = lanes.resolve(exchange.getRequest().getPath().pathWithinApplication().value());
+        if (limiter == null) {
+            return chain.filter(exchange);
+        }
+
+        return Mono.fromCallable(limiter::acquire)
+                .subscribeOn(Schedulers.boundedElastic())
+                // запрос отменён, пока ожидал разрешения
+                .doOnDiscard(AdmissionLimiter.Outcome.class, outcome -> {
+                    if (outcome == AdmissionLimiter.Outcome.ADMITTED) {
+                        limiter.release();
+                    }
+                })
+                .flatMap(outcome -> {
+                    if (outcome != AdmissionLimiter.Outcome.ADMITTED) {
+                        return reject(exchange, outcome);
+                    }
+                    return chain.filter(exchange).doFinally(signal -> limiter.release());
+                });
+    }
+
+    private Mono<Void> reject(ServerWebExchange exchange, AdmissionLimiter.Outcome outcome) {
+        log.debug("Запрос {} {} отклонён: {}", exchange.getRequest().getMethod(),
+                exchange.getRequest().getPath(), outcome);
+
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode((outcome == AdmissionLimiter.Outcome.QUEUE_FULL)
+                ? HttpStatus.TOO_MANY_REQUESTS
+                : HttpStatus.SERVICE_UNAVAILABLE);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, lanes.retryAfterSeconds());
+        return response.setComplete();
+    }
+}
@@ -0,0 +1,36 @@
+package ru.practicum.stats.cache;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Настройки кэша результатов /stats
+ */
+@Getter
+@Setter
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@ConfigurationProperties(prefix = "stats.cache")
+public class StatsCacheProperties {
+    boolean enabled = true;
+
+    /**
+     * Максимальное суммарное количество строк в закэшированных результатах
+     */
+    long maxRows = 1_000_000;
+
+    /**
+     * Задержка поступления просмотров. Результат для периода, закончившегося раньше now - ingestionLag,
+     * считается неизменным и хранится до вытеснения.
+     */
+    Duration ingestionLag = Duration.ofMinutes(5);
+
+    /**
+     * Время жизни результата для периода, который ещё может измениться
+     */
+    Duration openWindowTtl = Duration.ofSeconds(5);
+}
@@ -0,0 +1,46 @@
+package ru.practicum.stats.cache;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import lombok.experimental.FieldDefaults;
+
+import ru.practicum.stats.dictionary.UriPattern;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Нормализованные параметры запроса /stats: порядок и повторы uri не влияют на ключ
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class StatsQueryKey {
+    LocalDateTime start;
+    LocalDateTime end;
+    Set<String> uris;
+    boolean unique;
+    boolean exact;
+    Integer limit;
+
+    /**
+     * uris содержат шаблоны: результат затрагивают просмотры любых uri
+     */
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    boolean withPatterns;
+
+    public static StatsQueryKey of(LocalDateTime start, LocalDateTime end, Collection<String> uris,
+                                   boolean unique, boolean exact, Integer limit) {
+        boolean withPatterns = uris != null && uris.stream().anyMatch(UriPattern::isPattern);
+        // exact влияет на результат только при unique=true
+        return new StatsQueryKey(start, end, (uris == null) ? null : Set.copyOf(uris),
+                unique, unique && exact, limit, withPatterns);
+    }
+}
@@ -0,0 +1,149 @@
+package ru.practicum.stats.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.experimental.FieldDefaults;
+import org.springframework.stereotype.Component;
+import ru.practicum.dto.ViewStatsDto;
+import ru.practicum.stats.HitListener;
+import ru.practicum.stats.StatsEntry;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Кэш результатов /stats с вытеснением W-TinyLFU по суммарному количеству строк.
+ * Результаты для периодов, закончившихся раньше now - stats.cache.ingestion-lag, не истекают,
+ * для остальных живут stats.cache.open-window-ttl.
+ * Результат хранится с поколением своих uri ({@link UriGenerations}), снятым до начала загрузки.
+ * Сохранённые этим экземпляром просмотры увеличивают поколение своего uri за O(1), и результат
+ * с устаревшим поколением загружается заново, в том числе если просмотр зафиксирован во время его загрузки.
+ * Закрытые периоды учитывают только просмотры задним числом.
+ * Параллельные запросы одного результата ждут загрузку, начатую первым из них. Загрузка выполняется
+ * в потоке запроса вне блокировок кэша и ограничивается допуском запросов этого потока.
+ * TTL ограничивает устаревание из-за просмотров, сохранённых другими экземплярами.
+ * Метрики: cache.gets{cache=stats.query.closed|stats.query.open, result=hit|miss}, cache.evictions и др.
+ */
+@Component
+public class StatsResultCache implements HitListener {
+    private final StatsCacheProperties properties;
+    private final Cache<StatsQueryKey, CachedResult> closedCache;
+    private final Cache<StatsQueryKey, CachedResult> openCache;
+    private final UriGenerations closedGenerations = new UriGenerations();
+    private final UriGenerations openGenerations = new UriGenerations();
+    private final Map<StatsQueryKey, CompletableFuture<CachedResult>> loading = new ConcurrentHashMap<>();
+
+    public StatsResultCache(StatsCacheProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.closedCache = Caffeine.newBuilder()
+                .maximumWeight(properties.getMaxRows())
+                .weigher((StatsQueryKey key, CachedResult result) -> result.getStats().size() + 1)
+                .recordStats()
+                .build();
+        this.openCache = Caffeine.newBuilder()
+                .maximumWeight(properties.getMaxRows())
+                .weigher((StatsQueryKey key, CachedResult result) -> result.getStats().size() + 1)
+                .expireAfterWrite(properties.getOpenWindowTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, closedCache, "stats.query.closed");
+        CaffeineCacheMetrics.monitor(meterRegistry, openCache, "stats.query.open");
+    }
+
+    public List<ViewStatsDto> get(StatsQueryKey key, Supplier<List<ViewStatsDto>> loader) {
+        if (!properties.isEnabled()) {
+            return loader.get();
+        }
+
+        boolean closed = key.getEnd().isBefore(closedBefore());
+        Cache<StatsQueryKey, CachedResult> cache = closed ? closedCache : openCache;
+        UriGenerations generations = closed ? closedGenerations : openGenerations;
+
+        while (true) {
+            long generation = generations.of(key);
+            CachedResult cached = cache.getIfPresent(key);
+            if (cached != null && cached.getGeneration() == generation) {
+                return cached.getStats();
+            }
+
+            CompletableFuture<CachedResult> future = new CompletableFuture<>();
+            CompletableFuture<CachedResult> inFlight = loading.putIfAbsent(key, future);
+            if (inFlight == null) {
+                return load(key, generation, loader, cache, future);
+            }
+
+            // результат чужой загрузки подходит, если после её начала не было новых просмотров этих uri
+            CachedResult loaded = await(inFlight);
+            if (loaded.getGeneration() == generations.of(key)) {
+                return loaded.getStats();
+            }
+        }
+    }
+
+    private List<ViewStatsDto> load(StatsQueryKey key, long generation, Supplier<List<ViewStatsDto>> loader,
+                                    Cache<StatsQueryKey, CachedResult> cache, CompletableFuture<CachedResult> future) {
+        try {
+            CachedResult result = new CachedResult(List.copyOf(loader.get()), generation);
+            cache.put(key, result);
+            future.complete(result);
+            return result.getStats();
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, future);
+        }
+    }
+
+    private static CachedResult await(CompletableFuture<CachedResult> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Увеличение поколения uri сохранённых просмотров.
+     * Поколения закрытых периодов меняются только при просмотрах задним числом.
+     */
+    @Override
+    public void onHits(List<StatsEntry> entries) {
+        if (!properties.isEnabled() || entries.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime closedBefore = closedBefore();
+        for (StatsEntry entry : entries) {
+            openGenerations.onHit(entry.getUri());
+            if (entry.getTimestamp().isBefore(closedBefore)) {
+                closedGenerations.onHit(entry.getUri());
+            }
+        }
+    }
+
+    private LocalDateTime closedBefore() {
+        return LocalDateTime.now().minus(properties.getIngestionLag());
+    }
+
+    @Getter
+    @AllArgsConstructor
+    @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+    private static class CachedResult {
+        List<ViewStatsDto> stats;
+        long generation;
+    }
+}
@@ -0,0 +1,35 @@
+package ru.practicum.stats.cache;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Счётчики сохранённых просмотров по uri. Поколение результата - сумма счётчиков его uri:
+ * счётчики только растут, поэтому сумма не меняется, только пока не было просмотров этих uri.
+ * Для запросов без фильтра по uri и с шаблонами используется общий счётчик всех просмотров.
+ */
+class UriGenerations {
+    private final Map<String, AtomicLong> byUri = new ConcurrentHashMap<>();
+    private final AtomicLong all = new AtomicLong();
+
+    void onHit(String uri) {
+        byUri.computeIfAbsent(uri, key -> new AtomicLong()).incrementAndGet();
+        all.incrementAndGet();
+    }
+
+    long of(StatsQueryKey key) {
+        if (key.getUris() == null || key.isWithPatterns()) {
+            return all.get();
+        }
+
+        long generation = 0;
+        for (String uri : key.getUris()) {
+            AtomicLong counter = byUri.get(uri);
+            if (counter != null) {
+                generation += counter.get();
+            }
+        }
+        return generation;
+    }
+}
@@ -0,0 +1,21 @@
+package ru.practicum.stats.counter;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Настройки счётчиков просмотров в памяти
+ */
+@Getter
+@Setter
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@ConfigurationProperties(prefix = "stats.counters")
+public class HitCounterProperties {
+    /**
+     * Вести счётчики просмотров за всё время по каждому uri и отвечать по ним на запросы без unique
+     */
+    boolean enabled = true;
+}
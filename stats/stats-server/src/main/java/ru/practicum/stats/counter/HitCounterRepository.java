@@ -0,0 +1,44 @@
+package ru.practicum.stats.counter;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import ru.practicum.stats.rollup.RollupGranularity;
+
+/**
+ * Количество просмотров за всё время по каждому uri для загрузки счётчиков
+ */
+@Repository
+@RequiredArgsConstructor
+public class HitCounterRepository {
+    private static final String ROLLUP_TOTALS_SQL = """
+            SELECT uri_id, SUM(hits)
+            FROM stats_rollup
+            WHERE granularity = ?
+            GROUP BY uri_id""";
+
+    private static final String RAW_TOTALS_SQL = "SELECT uri_id, sum(weight) FROM stats GROUP BY uri_id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Суммы по суточным агрегатам без приращений, ещё не записанных {@link ru.practicum.stats.rollup.RollupAggregator}
+     */
+    public void forEachRollupTotal(TotalConsumer consumer) {
+        jdbcTemplate.query(ROLLUP_TOTALS_SQL, (RowCallbackHandler) rs -> consumer.accept(rs.getInt(1), rs.getLong(2)),
+                RollupGranularity.DAY.name());
+    }
+
+    /**
+     * Подсчёт по исходным записям, используется при выключенных агрегатах
+     */
+    public void forEachRawTotal(TotalConsumer consumer) {
+        jdbcTemplate.query(RAW_TOTALS_SQL, (RowCallbackHandler) rs -> consumer.accept(rs.getInt(1), rs.getLong(2)));
+    }
+
+    @FunctionalInterface
+    public interface TotalConsumer {
+        void accept(int uriId, long hits);
+    }
+}
@@ -0,0 +1,133 @@
+package ru.practicum.stats.counter;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.stats.HitListener;
+import ru.practicum.stats.StatsEntry;
+import ru.practicum.stats.dictionary.StatsDictionary;
+import ru.practicum.stats.rollup.RollupAggregator;
+import ru.practicum.stats.rollup.RollupGranularity;
+import ru.practicum.stats.rollup.RollupProperties;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Счётчики просмотров за всё время по идентификатору uri.
+ * Значение счётчика - сумма базы, прочитанной из БД при последней сверке, и просмотров,
+ * сохранённых этим экземпляром после неё. Сверка выполняется при старте и периодически,
+ * она же учитывает просмотры, сохранённые другими экземплярами сервиса.
+ */
+@Slf4j
+@Component
+@DependsOn("statsEncodingMigration")
+@RequiredArgsConstructor
+public class HitCounters implements HitListener {
+    private final HitCounterRepository counterRepository;
+    private final HitCounterProperties properties;
+    private final RollupProperties rollupProperties;
+    private final RollupAggregator rollupAggregator;
+    private final StatsDictionary dictionary;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<Integer, Counter> counters = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        sync();
+        log.info("Загружены счётчики просмотров: uri = {}", counters.size());
+    }
+
+    @Override
+    public void onHits(List<StatsEntry> entries) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        for (StatsEntry entry : entries) {
+            counters.computeIfAbsent(entry.getUriId(), uriId -> new Counter(0)).added.add(entry.getWeight());
+        }
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Количество просмотров за всё время по каждому uri, для uri без просмотров - 0
+     */
+    public Map<String, Long> getTotals(Collection<String> uris) {
+        Map<String, Long> totals = new LinkedHashMap<>(uris.size());
+        for (String uri : uris) {
+            Counter counter = dictionary.findCachedUriId(uri)
+                    .map(counters::get)
+                    .orElse(null);
+            totals.put(uri, (counter == null) ? 0L : counter.get());
+        }
+        return totals;
+    }
+
+    /**
+     * Сверка счётчиков с БД: база заменяется актуальной суммой, накопленные просмотры обнуляются.
+     * Просмотры, сохранённые во время чтения из БД, могут быть учтены дважды или не учтены
+     * до следующей сверки.
+     */
+    @Scheduled(fixedDelayString = "${stats.counters.sync-interval:PT5M}",
+            initialDelayString = "${stats.counters.sync-interval:PT5M}")
+    public void sync() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        Map<Integer, Long> totals = new HashMap<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (rollupProperties.isEnabled()) {
+                    counterRepository.forEachRollupTotal(totals::put);
+                    // приращения этого экземпляра, ещё не записанные в stats_rollup
+                    rollupAggregator.mergePending(key -> key.getGranularity() == RollupGranularity.DAY,
+                            (key, hits) -> totals.merge(key.getUriId(), hits, Long::sum));
+                } else {
+                    counterRepository.forEachRawTotal(totals::put);
+                }
+            });
+        } catch (RuntimeException e) {
+            log.warn("Ошибка сверки счётчиков просмотров: {}", e.getMessage());
+            return;
+        }
+
+        totals.forEach((uriId, hits) -> {
+            // uri, добавленные другими экземплярами, загружаются в словарь, чтобы по ним можно было читать счётчики
+            dictionary.getUri(uriId);
+            counters.put(uriId, new Counter(hits));
+        });
+        log.debug("Сверка счётчиков просмотров завершена: uri = {}", totals.size());
+    }
+
+    private static final class Counter {
+        private final long base;
+        private final LongAdder added = new LongAdder();
+
+        private Counter(long base) {
+            this.base = base;
+        }
+
+        long get() {
+            return base + added.sum();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package ru.practicum.stats.dictionary;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * Таблицы-словари строковых значений, в таблице stats хранятся их идентификаторы
+ */
+@Getter
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public enum DictionaryTable {
+    APP("stats_app", "name"),
+    URI("stats_uri", "uri");
+
+    String table;
+    String column;
+}
@@ -0,0 +1,195 @@
+package ru.practicum.stats.dictionary;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.dto.ViewStatsDto;
+import ru.practicum.stats.HitCount;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Кэш словарей названий сервисов и uri в обе стороны.
+ * Словари малы и только растут, поэтому загружаются целиком при старте,
+ * а значения, добавленные другими экземплярами сервиса, дочитываются из БД при промахе.
+ * Новые значения добавляются в текущем соединении без отдельной транзакции: запись просмотров
+ * кодирует их до начала своей транзакции, поэтому поток не занимает два соединения пула.
+ */
+@Slf4j
+@Component
+@DependsOn("statsEncodingMigration")
+public class StatsDictionary {
+    private final StatsDictionaryRepository repository;
+    private final Dictionary apps = new Dictionary(DictionaryTable.APP);
+    private final Dictionary uris = new Dictionary(DictionaryTable.URI);
+    private final UriTrie uriTrie = new UriTrie();
+
+    public StatsDictionary(StatsDictionaryRepository repository) {
+        this.repository = repository;
+    }
+
+    @PostConstruct
+    public void load() {
+        apps.load();
+        uris.load();
+        log.info("Загружены словари статистики: сервисов = {}, uri = {}", apps.size(), uris.size());
+    }
+
+    public int getAppId(String app) {
+        return apps.getOrCreateId(app);
+    }
+
+    public int getUriId(String uri) {
+        return uris.getOrCreateId(uri);
+    }
+
+    public String getApp(int appId) {
+        return apps.getValue(appId);
+    }
+
+    public String getUri(int uriId) {
+        return uris.getValue(uriId);
+    }
+
+    /**
+     * Идентификаторы известных uri, uri без просмотров пропускаются
+     */
+    public List<Integer> findUriIds(Collection<String> values) {
+        List<Integer> ids = new ArrayList<>(values.size());
+        for (String value : values) {
+            uris.findId(value).ifPresent(ids::add);
+        }
+        return ids;
+    }
+
+    /**
+     * Идентификаторы известных uri и uri, подходящих под шаблоны ({@link UriPattern}), без повторов.
+     * Кандидаты для шаблона отбираются по его префиксу в префиксном дереве, поэтому стоимость зависит
+     * от количества uri с этим префиксом, а не от размера словаря.
+     * Перед поиском по шаблонам дочитываются uri, добавленные другими экземплярами сервиса.
+     */
+    public List<Integer> resolveUriIds(Collection<String> values) {
+        if (values.stream().anyMatch(UriPattern::isPattern)) {
+            uris.loadNew();
+        }
+
+        Set<Integer> ids = new LinkedHashSet<>();
+        for (String value : values) {
+            if (!UriPattern.isPattern(value)) {
+                uris.findId(value).ifPresent(ids::add);
+                continue;
+            }
+
+            UriPattern pattern = UriPattern.compile(value);
+            uriTrie.forEachWithPrefix(pattern.getPrefix(), id -> {
+                if (pattern.matches(uris.getValue(id))) {
+                    ids.add(id);
+                }
+            });
+        }
+        return List.copyOf(ids);
+    }
+
+    /**
+     * Идентификатор uri только из кэша, без обращения к БД
+     */
+    public Optional<Integer> findCachedUriId(String value) {
+        return Optional.ofNullable(uris.ids.get(value));
+    }
+
+    public ViewStatsDto toViewStats(HitCount count) {
+        return new ViewStatsDto(getApp(count.getAppId()), getUri(count.getUriId()), count.getHits());
+    }
+
+    private final class Dictionary {
+        private final DictionaryTable table;
+        private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+        private final Map<Integer, String> values = new ConcurrentHashMap<>();
+        private final AtomicInteger maxId = new AtomicInteger();
+
+        private Dictionary(DictionaryTable table) {
+            this.table = table;
+        }
+
+        void load() {
+            repository.forEach(table, this::put);
+        }
+
+        /**
+         * Дочитать значения с id больше максимального известного
+         */
+        void loadNew() {
+            repository.forEachAfter(table, maxId.get(), this::put);
+        }
+
+        int size() {
+            return ids.size();
+        }
+
+        int getOrCreateId(String value) {
+            Integer id = ids.get(value);
+            if (id != null) {
+                return id;
+            }
+
+            int created = repository.getOrCreate(table, value);
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                // внутри транзакции значение попадает в кэш только после фиксации, чтобы откат
+                // не оставил в кэше несуществующий id
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        put(created, value);
+                    }
+                });
+            } else {
+                put(created, value);
+            }
+            return created;
+        }
+
+        Optional<Integer> findId(String value) {
+            Integer id = ids.get(value);
+            if (id != null) {
+                return Optional.of(id);
+            }
+
+            Optional<Integer> stored = repository.findId(table, value);
+            stored.ifPresent(storedId -> put(storedId, value));
+            return stored;
+        }
+
+        String getValue(int id) {
+            String value = values.get(id);
+            if (value != null) {
+                return value;
+            }
+
+            String stored = repository.findValue(table, id)
+                    .orElseThrow(() -> new IllegalStateException("Нет значения с id = " + id + " в " + table.getTable()));
+            put(id, stored);
+            return stored;
+        }
+
+        private void put(int id, String value) {
+            if (values.putIfAbsent(id, value) == null) {
+                ids.put(value, id);
+                maxId.accumulateAndGet(id, Math::max);
+                if (table == DictionaryTable.URI) {
+                    uriTrie.put(value, id);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package ru.practicum.stats.dictionary;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Хранилище словарей названий сервисов и uri
+ */
+@Repository
+@RequiredArgsConstructor
+public class StatsDictionaryRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    public void forEach(DictionaryTable table, EntryConsumer consumer) {
+        jdbcTemplate.query("SELECT id, " + table.getColumn() + " FROM " + table.getTable(),
+                (RowCallbackHandler) rs -> consumer.accept(rs.getInt(1), rs.getString(2)));
+    }
+
+    public void forEachAfter(DictionaryTable table, int afterId, EntryConsumer consumer) {
+        jdbcTemplate.query("SELECT id, " + table.getColumn() + " FROM " + table.getTable() + " WHERE id > ?",
+                (RowCallbackHandler) rs -> consumer.accept(rs.getInt(1), rs.getString(2)), afterId);
+    }
+
+    /**
+     * Идентификатор значения, значение добавляется в словарь, если его ещё нет.
+     * Если значение уже добавлено, в том числе параллельно, RETURNING пуст и id читается повторно.
+     */
+    public int getOrCreate(DictionaryTable table, String value) {
+        List<Integer> created = jdbcTemplate.queryForList("INSERT INTO " + table.getTable()
+                + " (" + table.getColumn() + ") VALUES (?)"
+                + " ON CONFLICT (" + table.getColumn() + ") DO NOTHING RETURNING id", Integer.class, value);
+        if (!created.isEmpty()) {
+            return created.getFirst();
+        }
+        return jdbcTemplate.queryForObject("SELECT id FROM " + table.getTable()
+                + " WHERE " + table.getColumn() + " = ?", Integer.class, value);
+    }
+
+    public Optional<Integer> findId(DictionaryTable table, String value) {
+        List<Integer> ids = jdbcTemplate.queryForList("SELECT id FROM " + table.getTable()
+                + " WHERE " + table.getColumn() + " = ?", Integer.class, value);
+        return ids.stream().findFirst();
+    }
+
+    public Optional<String> findValue(DictionaryTable table, int id) {
+        List<String> values = jdbcTemplate.queryForList("SELECT " + table.getColumn() + " FROM " + table.getTable()
+                + " WHERE id = ?", String.class, id);
+        return values.stream().findFirst();
+    }
+
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(int id, String value);
+    }
+}
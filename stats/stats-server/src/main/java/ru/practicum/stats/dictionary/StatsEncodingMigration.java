@@ -0,0 +1,91 @@
+package ru.practicum.stats.dictionary;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.stats.partition.StatsPartitionRepository;
+
+import java.util.List;
+
+/**
+ * Перевод таблицы stats со строковых app, uri и ip на идентификаторы словарей и тип inet,
+ * таблиц агрегатов stats_rollup и stats_hll - со строковых app и uri на идентификаторы словарей.
+ * Выполняется до старта веб-сервера и до остальных инициализаторов для таблиц, в которых ещё есть столбец app.
+ */
+@Slf4j
+@Component("statsEncodingMigration")
+@RequiredArgsConstructor
+public class StatsEncodingMigration {
+    private static final List<String> AGGREGATE_TABLES = List.of("stats_rollup", "stats_hll");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final StatsPartitionRepository partitionRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void migrate() {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (hasLegacyColumns("stats")) {
+                log.info("Таблица stats хранит строковые app и uri, выполняется перевод на словари");
+                migrateRows();
+                log.info("Перевод таблицы stats на словари завершён");
+            }
+            partitionRepository.createIndexes();
+
+            for (String table : AGGREGATE_TABLES) {
+                if (hasLegacyColumns(table)) {
+                    log.info("Таблица {} хранит строковые app и uri, выполняется перевод на словари", table);
+                    migrateAggregates(table);
+                }
+            }
+        });
+    }
+
+    private boolean hasLegacyColumns(String table) {
+        Boolean exists = jdbcTemplate.queryForObject("""
+                SELECT EXISTS (
+                    SELECT 1 FROM information_schema.columns
+                    WHERE table_schema = current_schema() AND table_name = ? AND column_name = 'app')""",
+                Boolean.class, table);
+        return Boolean.TRUE.equals(exists);
+    }
+
+    /**
+     * Для секционированной таблицы изменения столбцов распространяются на все партиции
+     */
+    private void migrateRows() {
+        jdbcTemplate.update("INSERT INTO stats_app (name) SELECT DISTINCT app FROM stats ON CONFLICT (name) DO NOTHING");
+        jdbcTemplate.update("INSERT INTO stats_uri (uri) SELECT DISTINCT uri FROM stats ON CONFLICT (uri) DO NOTHING");
+
+        jdbcTemplate.execute("ALTER TABLE stats ADD COLUMN app_id INTEGER, ADD COLUMN uri_id INTEGER");
+        jdbcTemplate.update("""
+                UPDATE stats s SET app_id = a.id, uri_id = u.id
+                FROM stats_app a, stats_uri u
+                WHERE a.name = s.app AND u.uri = s.uri""");
+        jdbcTemplate.execute("ALTER TABLE stats ALTER COLUMN app_id SET NOT NULL, ALTER COLUMN uri_id SET NOT NULL");
+        jdbcTemplate.execute("ALTER TABLE stats ALTER COLUMN ip TYPE INET USING ip::inet");
+        // вместе со столбцом uri удаляется и индекс stats_uri_idx, он создаётся заново по uri_id
+        jdbcTemplate.execute("ALTER TABLE stats DROP COLUMN app, DROP COLUMN uri");
+    }
+
+    /**
+     * Ключ таблицы агрегатов (granularity, bucket_start, app, uri) заменяется на (granularity, bucket_start, app_id, uri_id)
+     */
+    private void migrateAggregates(String table) {
+        jdbcTemplate.update("INSERT INTO stats_app (name) SELECT DISTINCT app FROM " + table
+                + " ON CONFLICT (name) DO NOTHING");
+        jdbcTemplate.update("INSERT INTO stats_uri (uri) SELECT DISTINCT uri FROM " + table
+                + " ON CONFLICT (uri) DO NOTHING");
+
+        jdbcTemplate.execute("ALTER TABLE " + table + " ADD COLUMN app_id INTEGER, ADD COLUMN uri_id INTEGER");
+        jdbcTemplate.update("UPDATE " + table + " t SET app_id = a.id, uri_id = u.id"
+                + " FROM stats_app a, stats_uri u WHERE a.name = t.app AND u.uri = t.uri");
+        jdbcTemplate.execute("ALTER TABLE " + table + " ALTER COLUMN app_id SET NOT NULL, ALTER COLUMN uri_id SET NOT NULL");
+        // первичный ключ по строковым столбцам удаляется вместе с ними
+        jdbcTemplate.execute("ALTER TABLE " + table + " DROP COLUMN app, DROP COLUMN uri");
+        jdbcTemplate.execute("ALTER TABLE " + table + " ADD PRIMARY KEY (granularity, bucket_start, app_id, uri_id)");
+    }
+}
@@ -0,0 +1,41 @@
+package ru.practicum.stats.dictionary;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Фильтр запроса статистики по uri с развёрнутыми шаблонами.
+ * Шаблоны и значения заменяются идентификаторами uri из словаря до запроса к БД,
+ * запрос получает их одним параметром-массивом независимо от количества.
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class UriFilter {
+    private static final UriFilter NONE = new UriFilter(null);
+
+    /**
+     * Идентификаторы uri для запросов по исходным записям, агрегатам и скетчам, null - без фильтра
+     */
+    private final List<Integer> uriIds;
+
+    /**
+     * @param uris значения и шаблоны uri из запроса, null - без фильтра
+     */
+    public static UriFilter resolve(List<String> uris, StatsDictionary dictionary) {
+        if (uris == null) {
+            return NONE;
+        }
+
+        return new UriFilter(dictionary.resolveUriIds(uris));
+    }
+
+    /**
+     * Ни один uri не подходит, запрос к БД не нужен
+     */
+    public boolean isEmpty() {
+        return uriIds != null && uriIds.isEmpty();
+    }
+}
@@ -0,0 +1,79 @@
+package ru.practicum.stats.dictionary;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.util.regex.Pattern;
+
+/**
+ * Шаблон uri в фильтре запроса статистики: * - любые символы внутри одного сегмента пути,
+ * ** - любые символы, включая /. Например, /events/* - все события, /compilations/** - всё под /compilations/.
+ */
+@Getter
+@EqualsAndHashCode(of = "pattern")
+public class UriPattern {
+    private static final char WILDCARD = '*';
+
+    private final String pattern;
+    /**
+     * Часть шаблона до первого *, по ней отбираются кандидаты в словаре
+     */
+    private final String prefix;
+    /**
+     * Шаблон вида prefix** совпадает со всеми uri с этим префиксом без проверки выражения
+     */
+    private final boolean prefixOnly;
+    private final Pattern regex;
+
+    private UriPattern(String pattern) {
+        this.pattern = pattern;
+        int wildcard = pattern.indexOf(WILDCARD);
+        this.prefix = pattern.substring(0, wildcard);
+        this.prefixOnly = pattern.substring(wildcard).equals("**");
+        this.regex = toRegex(pattern);
+    }
+
+    public static boolean isPattern(String uri) {
+        return uri.indexOf(WILDCARD) >= 0;
+    }
+
+    public static UriPattern compile(String pattern) {
+        return new UriPattern(pattern);
+    }
+
+    public boolean matches(String uri) {
+        return uri.startsWith(prefix) && (prefixOnly || regex.matcher(uri).matches());
+    }
+
+    @Override
+    public String toString() {
+        return pattern;
+    }
+
+    private static Pattern toRegex(String pattern) {
+        StringBuilder regex = new StringBuilder();
+        StringBuilder literal = new StringBuilder();
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c != WILDCARD) {
+                literal.append(c);
+                continue;
+            }
+
+            if (!literal.isEmpty()) {
+                regex.append(Pattern.quote(literal.toString()));
+                literal.setLength(0);
+            }
+            if (i + 1 < pattern.length() && pattern.charAt(i + 1) == WILDCARD) {
+                regex.append(".*");
+                i++;
+            } else {
+                regex.append("[^/]*");
+            }
+        }
+        if (!literal.isEmpty()) {
+            regex.append(Pattern.quote(literal.toString()));
+        }
+        return Pattern.compile(regex.toString());
+    }
+}
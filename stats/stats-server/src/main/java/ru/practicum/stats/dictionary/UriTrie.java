@@ -0,0 +1,128 @@
+package ru.practicum.stats.dictionary;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntConsumer;
+
+/**
+ * Сжатое префиксное дерево (radix trie) uri словаря для поиска идентификаторов по префиксу.
+ * Общие префиксы вида /events/ хранятся один раз, поиск по префиксу обходит только его поддерево.
+ */
+class UriTrie {
+    private static final int NO_ID = -1;
+
+    private final Node root = new Node("", NO_ID);
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    void put(String uri, int id) {
+        lock.writeLock().lock();
+        try {
+            insert(uri, id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Передать consumer идентификаторы всех uri, начинающихся с prefix
+     */
+    void forEachWithPrefix(String prefix, IntConsumer consumer) {
+        lock.readLock().lock();
+        try {
+            Node node = find(prefix);
+            if (node != null) {
+                forEachId(node, consumer);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void insert(String key, int id) {
+        Node node = root;
+        int position = 0;
+        while (position < key.length()) {
+            char first = key.charAt(position);
+            Node child = node.children.get(first);
+            if (child == null) {
+                node.children.put(first, new Node(key.substring(position), id));
+                return;
+            }
+
+            int common = commonPrefix(child.label, key, position);
+            if (common < child.label.length()) {
+                // ключ расходится с меткой посередине: метка делится на общую часть и остаток
+                Node split = new Node(child.label.substring(0, common), NO_ID);
+                child.label = child.label.substring(common);
+                split.children.put(child.label.charAt(0), child);
+                node.children.put(first, split);
+                child = split;
+            }
+            node = child;
+            position += common;
+        }
+        node.id = id;
+    }
+
+    /**
+     * Узел, поддерево которого содержит ровно ключи с префиксом prefix, null если таких ключей нет
+     */
+    private Node find(String prefix) {
+        Node node = root;
+        int position = 0;
+        while (position < prefix.length()) {
+            Node child = node.children.get(prefix.charAt(position));
+            if (child == null) {
+                return null;
+            }
+
+            int common = commonPrefix(child.label, prefix, position);
+            if (position + common == prefix.length()) {
+                // префикс закончился внутри или в конце метки
+                return child;
+            }
+            if (common < child.label.length()) {
+                return null;
+            }
+            node = child;
+            position += common;
+        }
+        return node;
+    }
+
+    private void forEachId(Node start, IntConsumer consumer) {
+        Deque<Node> stack = new ArrayDeque<>();
+        stack.push(start);
+        while (!stack.isEmpty()) {
+            Node node = stack.pop();
+            if (node.id != NO_ID) {
+                consumer.accept(node.id);
+            }
+            node.children.values().forEach(stack::push);
+        }
+    }
+
+    private static int commonPrefix(String label, String key, int offset) {
+        int max = Math.min(label.length(), key.length() - offset);
+        int i = 0;
+        while (i < max && label.charAt(i) == key.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static final class Node {
+        private final Map<Character, Node> children = new HashMap<>(4);
+        private String label;
+        private int id;
+
+        private Node(String label, int id) {
+            this.label = label;
+            this.id = id;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package ru.practicum.stats.hll;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.stats.rollup.RollupGranularity;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Построение скетчей уникальных ip по уже накопленным просмотрам до старта веб-сервера.
+ * Если таблица скетчей пуста, скетчи строятся по всем исходным записям. Иначе в них заново добавляются
+ * просмотры с последней записи скетчей этим экземпляром: скетчи, не записанные до сбоя, восстанавливаются,
+ * а повторное добавление уже учтённых ip скетч не меняет.
+ * Скетчи записываются в БД порциями по rebuild-batch-size, память не зависит от объёма истории.
+ * Скетчи uri за всё время при первом запуске строятся объединением суточных скетчей, затем дополняются
+ * вместе с суточными.
+ */
+@Slf4j
+@Component
+@DependsOn("statsEncodingMigration")
+@RequiredArgsConstructor
+public class HllInitializer {
+    private static final LocalDateTime ALL_TIME = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final HllSketchRepository sketchRepository;
+    private final HllWatermarkRepository watermarkRepository;
+    private final HllProperties properties;
+    private final TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        LocalDateTime startedAt = LocalDateTime.now();
+        if (sketchRepository.isEmpty()) {
+            log.info("Таблица скетчей уникальных ip пуста, выполняется построение по исходным записям");
+            log.info("Построено скетчей уникальных ip: {}", rebuild(ALL_TIME));
+        } else {
+            Optional<LocalDateTime> watermark = watermarkRepository.find(properties.getNodeId())
+                    .or(watermarkRepository::findOldest);
+            if (watermark.isPresent()) {
+                LocalDateTime from = watermark.get().minus(properties.getReplayMargin());
+                log.info("Скетчи уникальных ip дополнены просмотрами с {}: {}", from, rebuild(from));
+            }
+        }
+
+        if (sketchRepository.isTotalsEmpty()) {
+            log.info("Построено скетчей уникальных ip uri за всё время: {}", buildTotals());
+        }
+
+        watermarkRepository.save(properties.getNodeId(), startedAt);
+        watermarkRepository.deleteBefore(startedAt.minusDays(1));
+    }
+
+    /**
+     * Дополнение скетчей просмотрами с from. Скетчи uri за всё время дополняются при проходе по суткам,
+     * если они уже построены, иначе их строит {@link #buildTotals}
+     */
+    private int rebuild(LocalDateTime from) {
+        boolean withTotals = !sketchRepository.isTotalsEmpty();
+        int written = 0;
+        for (RollupGranularity granularity : HllSketchAggregator.GRANULARITIES) {
+            boolean daily = withTotals && granularity == RollupGranularity.DAY;
+            Map<SketchKey, HyperLogLog> batch = new HashMap<>();
+            Map<Integer, HyperLogLog> totals = new HashMap<>();
+            int[] flushed = {0};
+            transactionTemplate.executeWithoutResult(status -> {
+                sketchRepository.forEachDistinctVisitor(granularity, from, (key, ip) -> {
+                    if (batch.size() >= properties.getRebuildBatchSize() && !batch.containsKey(key)) {
+                        sketchRepository.mergeAll(batch);
+                        sketchRepository.mergeTotals(totals);
+                        flushed[0] += batch.size();
+                        batch.clear();
+                        totals.clear();
+                    }
+                    batch.computeIfAbsent(key, k -> new HyperLogLog(properties.getPrecision())).addIp(ip);
+                    if (daily) {
+                        totals.computeIfAbsent(key.getUriId(), k -> new HyperLogLog(properties.getPrecision())).addIp(ip);
+                    }
+                });
+                sketchRepository.mergeAll(batch);
+                sketchRepository.mergeTotals(totals);
+            });
+            written += flushed[0] + batch.size();
+        }
+        return written;
+    }
+
+    /**
+     * Построение скетчей uri за всё время объединением суточных скетчей, они упорядочены по uri,
+     * поэтому в памяти одновременно не больше rebuild-batch-size скетчей
+     */
+    private int buildTotals() {
+        Map<Integer, HyperLogLog> batch = new HashMap<>();
+        int[] flushed = {0};
+        transactionTemplate.executeWithoutResult(status -> {
+            sketchRepository.forEachDailySketch((uriId, sketch) -> {
+                if (batch.size() >= properties.getRebuildBatchSize() && !batch.containsKey(uriId)) {
+                    sketchRepository.mergeTotals(batch);
+                    flushed[0] += batch.size();
+                    batch.clear();
+                }
+                batch.computeIfAbsent(uriId, k -> new HyperLogLog(properties.getPrecision())).merge(sketch);
+            });
+            sketchRepository.mergeTotals(batch);
+        });
+        return flushed[0] + batch.size();
+    }
+}
@@ -0,0 +1,49 @@
+package ru.practicum.stats.hll;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Настройки приближённого подсчёта уникальных ip
+ */
+@Getter
+@Setter
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@ConfigurationProperties(prefix = "stats.hll")
+public class HllProperties {
+    /**
+     * Отвечать на запросы unique=true по скетчам HyperLogLog, если не запрошен точный подсчёт
+     */
+    boolean enabled = true;
+
+    /**
+     * Точность скетча: 2^precision регистров, относительная ошибка 1.04 / sqrt(2^precision).
+     * Скетчи разной точности не объединяются, при изменении таблицы stats_hll и stats_hll_total нужно очистить.
+     */
+    int precision = 12;
+
+    /**
+     * Идентификатор экземпляра сервиса, под ним в БД хранится время последней записи скетчей
+     */
+    String nodeId = "default";
+
+    /**
+     * При старте просмотры с момента последней записи скетчей этим экземпляром минус replay-margin
+     * заново добавляются в скетчи: запас покрывает просмотры, пришедшие с отстающим timestamp
+     */
+    Duration replayMargin = Duration.ofMinutes(5);
+
+    /**
+     * Количество скетчей в памяти, после которого построение по исходным записям записывает их в БД
+     */
+    int rebuildBatchSize = 10000;
+
+    public double getRelativeError() {
+        return HyperLogLog.relativeError(precision);
+    }
+}
@@ -0,0 +1,161 @@
+package ru.practicum.stats.hll;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.stats.HitListener;
+import ru.practicum.stats.StatsEntry;
+import ru.practicum.stats.rollup.RollupGranularity;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Накопление скетчей уникальных ip в памяти с периодической записью в БД.
+ * Скетчи ведутся в часовых и суточных интервалах и за всё время по каждому uri. Пока скетч не записан,
+ * он учитывается в запросах через {@link #mergePending} и {@link #mergePendingTotals}.
+ * Вместе со скетчами записывается время начала записи, с него {@link HllInitializer} восстанавливает
+ * скетчи, не записанные до сбоя.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class HllSketchAggregator implements HitListener {
+    public static final List<RollupGranularity> GRANULARITIES = List.of(RollupGranularity.HOUR, RollupGranularity.DAY);
+
+    private final HllSketchRepository sketchRepository;
+    private final HllWatermarkRepository watermarkRepository;
+    private final HllProperties properties;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<SketchKey, HyperLogLog> dirty = new ConcurrentHashMap<>();
+    private final Map<SketchKey, HyperLogLog> flushing = new ConcurrentHashMap<>();
+    private final Map<Integer, HyperLogLog> dirtyTotals = new ConcurrentHashMap<>();
+    private final Map<Integer, HyperLogLog> flushingTotals = new ConcurrentHashMap<>();
+
+    @Override
+    public void onHits(List<StatsEntry> entries) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        for (StatsEntry entry : entries) {
+            for (RollupGranularity granularity : GRANULARITIES) {
+                SketchKey key = new SketchKey(granularity, granularity.floor(entry.getTimestamp()),
+                        entry.getAppId(), entry.getUriId());
+                dirty.compute(key, (k, sketch) -> add(sketch, entry.getIp()));
+            }
+            dirtyTotals.compute(entry.getUriId(), (k, sketch) -> add(sketch, entry.getIp()));
+        }
+    }
+
+    private HyperLogLog add(HyperLogLog sketch, String ip) {
+        HyperLogLog result = (sketch == null) ? new HyperLogLog(properties.getPrecision()) : sketch;
+        result.addIp(ip);
+        return result;
+    }
+
+    /**
+     * Выборочное сохранение не должно терять ip, иначе уникальные просмотры популярных uri будут занижены
+     */
+    @Override
+    public void onSampledOut(List<StatsEntry> entries) {
+        onHits(entries);
+    }
+
+    /**
+     * Добавить к результату ещё не записанные в БД скетчи, ключ которых удовлетворяет условию
+     */
+    public void mergePending(Predicate<SketchKey> filter, HllSketchRepository.SketchConsumer consumer) {
+        flushing.forEach((key, sketch) -> {
+            if (filter.test(key)) {
+                consumer.accept(key.getAppId(), key.getUriId(), sketch);
+            }
+        });
+        dirty.forEach((key, sketch) -> {
+            if (filter.test(key)) {
+                consumer.accept(key.getAppId(), key.getUriId(), sketch);
+            }
+        });
+    }
+
+    /**
+     * Добавить к результату ещё не записанные в БД скетчи за всё время указанных uri
+     */
+    public void mergePendingTotals(Set<Integer> uriIds, HllSketchRepository.TotalConsumer consumer) {
+        for (Map<Integer, HyperLogLog> totals : List.of(flushingTotals, dirtyTotals)) {
+            totals.forEach((uriId, sketch) -> {
+                if (uriIds.contains(uriId)) {
+                    consumer.accept(uriId, sketch);
+                }
+            });
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${stats.hll.flush-interval:PT10S}")
+    public void flush() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        // все просмотры, учтённые до этого момента, попадают в записываемую порцию
+        LocalDateTime flushStartedAt = LocalDateTime.now();
+        if (dirty.isEmpty() && dirtyTotals.isEmpty()) {
+            watermarkRepository.save(properties.getNodeId(), flushStartedAt);
+            return;
+        }
+
+        Map<SketchKey, HyperLogLog> batch = new HashMap<>();
+        for (SketchKey key : dirty.keySet()) {
+            // скетч переносится в flushing атомарно, чтобы не пропасть из запросов на время записи
+            dirty.computeIfPresent(key, (k, sketch) -> {
+                flushing.put(k, sketch);
+                batch.put(k, sketch);
+                return null;
+            });
+        }
+        Map<Integer, HyperLogLog> totalsBatch = new HashMap<>();
+        for (Integer uriId : dirtyTotals.keySet()) {
+            dirtyTotals.computeIfPresent(uriId, (k, sketch) -> {
+                flushingTotals.put(k, sketch);
+                totalsBatch.put(k, sketch);
+                return null;
+            });
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                sketchRepository.mergeAll(batch);
+                sketchRepository.mergeTotals(totalsBatch);
+                watermarkRepository.save(properties.getNodeId(), flushStartedAt);
+            });
+            log.debug("Записано скетчей уникальных ip: {}", batch.size());
+        } catch (RuntimeException e) {
+            // возвращаем скетчи в очередь на запись, объединение идемпотентно
+            log.warn("Ошибка записи скетчей уникальных ip: {}", e.getMessage());
+            batch.forEach((key, sketch) -> dirty.merge(key, sketch, HllSketchAggregator::mergeInto));
+            totalsBatch.forEach((uriId, sketch) -> dirtyTotals.merge(uriId, sketch, HllSketchAggregator::mergeInto));
+        } finally {
+            batch.keySet().forEach(flushing::remove);
+            totalsBatch.keySet().forEach(flushingTotals::remove);
+        }
+    }
+
+    private static HyperLogLog mergeInto(HyperLogLog current, HyperLogLog failed) {
+        current.merge(failed);
+        return current;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+}
@@ -0,0 +1,207 @@
+package ru.practicum.stats.hll;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.stats.rollup.RollupGranularity;
+import ru.practicum.stats.rollup.RollupSegment;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Хранилище скетчей HyperLogLog уникальных ip по интервалам времени
+ */
+@Repository
+@RequiredArgsConstructor
+public class HllSketchRepository {
+    private static final String INSERT_SQL = """
+            INSERT INTO stats_hll (granularity, bucket_start, app_id, uri_id, sketch)
+            VALUES (?, ?, ?, ?, ?)
+            ON CONFLICT (granularity, bucket_start, app_id, uri_id) DO NOTHING""";
+
+    private static final String SELECT_FOR_UPDATE_SQL = """
+            SELECT sketch FROM stats_hll
+            WHERE granularity = ? AND bucket_start = ? AND app_id = ? AND uri_id = ?
+            FOR UPDATE""";
+
+    private static final String UPDATE_SQL = """
+            UPDATE stats_hll SET sketch = ?
+            WHERE granularity = ? AND bucket_start = ? AND app_id = ? AND uri_id = ?""";
+
+    private static final String INSERT_TOTAL_SQL = """
+            INSERT INTO stats_hll_total (uri_id, sketch) VALUES (?, ?)
+            ON CONFLICT (uri_id) DO NOTHING""";
+
+    private static final String SELECT_TOTAL_FOR_UPDATE_SQL = "SELECT sketch FROM stats_hll_total WHERE uri_id = ? FOR UPDATE";
+
+    private static final String UPDATE_TOTAL_SQL = "UPDATE stats_hll_total SET sketch = ? WHERE uri_id = ?";
+
+    private static final String DISTINCT_VISITORS_SQL = """
+            SELECT DISTINCT date_trunc(?, s.created) AS bucket_start, s.app_id, s.uri_id, host(s.ip) AS ip
+            FROM stats s
+            WHERE s.created >= ?
+            ORDER BY 1, 2, 3""";
+
+    private static final int VISITORS_FETCH_SIZE = 10000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    /**
+     * Объединить скетчи с сохранёнными. Объединение идемпотентно,
+     * поэтому повторная запись того же скетча не искажает результат.
+     */
+    public void mergeAll(Map<SketchKey, HyperLogLog> sketches) {
+        List<SketchKey> keys = new ArrayList<>(sketches.keySet());
+        keys.sort(SketchKey.ORDER);
+        for (SketchKey key : keys) {
+            merge(key, sketches.get(key));
+        }
+    }
+
+    /**
+     * Объединить скетчи uri за всё время с сохранёнными, uri обновляются в порядке возрастания идентификатора
+     */
+    public void mergeTotals(Map<Integer, HyperLogLog> sketches) {
+        List<Integer> uriIds = new ArrayList<>(sketches.keySet());
+        uriIds.sort(Comparator.naturalOrder());
+        for (Integer uriId : uriIds) {
+            HyperLogLog sketch = sketches.get(uriId);
+            if (jdbcTemplate.update(INSERT_TOTAL_SQL, uriId, sketch.toBytes()) > 0) {
+                continue;
+            }
+
+            HyperLogLog merged = HyperLogLog.fromBytes(
+                    jdbcTemplate.queryForObject(SELECT_TOTAL_FOR_UPDATE_SQL, byte[].class, uriId));
+            merged.merge(sketch);
+            jdbcTemplate.update(UPDATE_TOTAL_SQL, merged.toBytes(), uriId);
+        }
+    }
+
+    /**
+     * Скетчи уникальных ip за всё время указанных uri
+     */
+    public void findTotals(Collection<Integer> uriIds, TotalConsumer consumer) {
+        MapSqlParameterSource params = new MapSqlParameterSource("uriIds", uriIds.toArray(Integer[]::new));
+        namedJdbcTemplate.query("SELECT uri_id, sketch FROM stats_hll_total WHERE uri_id = ANY(CAST(:uriIds AS int[]))",
+                params, (RowCallbackHandler) rs ->
+                        consumer.accept(rs.getInt("uri_id"), HyperLogLog.fromBytes(rs.getBytes("sketch"))));
+    }
+
+    public boolean isTotalsEmpty() {
+        Boolean exists = jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM stats_hll_total)", Boolean.class);
+        return !Boolean.TRUE.equals(exists);
+    }
+
+    /**
+     * Обойти суточные скетчи, упорядоченные по uri, для построения скетчей за всё время.
+     * Должен вызываться в транзакции, иначе драйвер PostgreSQL читает результат целиком.
+     */
+    public void forEachDailySketch(TotalConsumer consumer) {
+        jdbcTemplate.query(con -> {
+            PreparedStatement statement = con.prepareStatement(
+                    "SELECT uri_id, sketch FROM stats_hll WHERE granularity = ? ORDER BY uri_id");
+            statement.setFetchSize(VISITORS_FETCH_SIZE);
+            statement.setString(1, RollupGranularity.DAY.name());
+            return statement;
+        }, (RowCallbackHandler) rs -> consumer.accept(rs.getInt("uri_id"), HyperLogLog.fromBytes(rs.getBytes("sketch"))));
+    }
+
+    /**
+     * Скетчи указанных сегментов, сегменты должны быть в гранулярности HOUR или DAY
+     * @param uriIds фильтр по идентификаторам uri, null - без фильтра
+     */
+    public void findBySegments(List<RollupSegment> segments, Collection<Integer> uriIds, SketchConsumer consumer) {
+        if (segments.isEmpty()) {
+            return;
+        }
+
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        StringBuilder sql = new StringBuilder("SELECT app_id, uri_id, sketch FROM stats_hll WHERE (");
+        for (int i = 0; i < segments.size(); i++) {
+            RollupSegment segment = segments.get(i);
+            if (i > 0) {
+                sql.append(" OR ");
+            }
+            sql.append("(granularity = :g").append(i)
+                    .append(" AND bucket_start >= :s").append(i)
+                    .append(" AND bucket_start < :e").append(i).append(')');
+            params.addValue("g" + i, segment.getGranularity().name());
+            params.addValue("s" + i, Timestamp.valueOf(segment.getStart()));
+            params.addValue("e" + i, Timestamp.valueOf(segment.getEnd()));
+        }
+        sql.append(')');
+
+        if (uriIds != null) {
+            sql.append(" AND uri_id = ANY(CAST(:uriIds AS int[]))");
+            params.addValue("uriIds", uriIds.toArray(Integer[]::new));
+        }
+
+        namedJdbcTemplate.query(sql.toString(), params, (RowCallbackHandler) rs ->
+                consumer.accept(rs.getInt("app_id"), rs.getInt("uri_id"),
+                        HyperLogLog.fromBytes(rs.getBytes("sketch"))));
+    }
+
+    public boolean isEmpty() {
+        Boolean exists = jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM stats_hll)", Boolean.class);
+        return !Boolean.TRUE.equals(exists);
+    }
+
+    /**
+     * Обойти уникальные (интервал, app_id, uri_id, ip) исходных записей с from для построения скетчей.
+     * Строки читаются курсором порциями и упорядочены по интервалу, app_id и uri_id, так что ip одного скетча идут подряд.
+     * Должен вызываться в транзакции, иначе драйвер PostgreSQL читает результат целиком.
+     */
+    public void forEachDistinctVisitor(RollupGranularity granularity, LocalDateTime from, VisitorConsumer consumer) {
+        jdbcTemplate.query(con -> {
+            PreparedStatement statement = con.prepareStatement(DISTINCT_VISITORS_SQL);
+            statement.setFetchSize(VISITORS_FETCH_SIZE);
+            statement.setString(1, granularity.name().toLowerCase());
+            statement.setTimestamp(2, Timestamp.valueOf(from));
+            return statement;
+        }, (RowCallbackHandler) rs ->
+                consumer.accept(new SketchKey(granularity, rs.getTimestamp("bucket_start").toLocalDateTime(),
+                        rs.getInt("app_id"), rs.getInt("uri_id")), rs.getString("ip")));
+    }
+
+    private void merge(SketchKey key, HyperLogLog sketch) {
+        Timestamp bucketStart = Timestamp.valueOf(key.getBucketStart());
+        int inserted = jdbcTemplate.update(INSERT_SQL,
+                key.getGranularity().name(), bucketStart, key.getAppId(), key.getUriId(), sketch.toBytes());
+        if (inserted > 0) {
+            return;
+        }
+
+        byte[] stored = jdbcTemplate.queryForObject(SELECT_FOR_UPDATE_SQL, byte[].class,
+                key.getGranularity().name(), bucketStart, key.getAppId(), key.getUriId());
+        HyperLogLog merged = HyperLogLog.fromBytes(stored);
+        merged.merge(sketch);
+        jdbcTemplate.update(UPDATE_SQL,
+                merged.toBytes(), key.getGranularity().name(), bucketStart, key.getAppId(), key.getUriId());
+    }
+
+    @FunctionalInterface
+    public interface SketchConsumer {
+        void accept(int appId, int uriId, HyperLogLog sketch);
+    }
+
+    @FunctionalInterface
+    public interface TotalConsumer {
+        void accept(int uriId, HyperLogLog sketch);
+    }
+
+    @FunctionalInterface
+    public interface VisitorConsumer {
+        void accept(SketchKey key, String ip);
+    }
+}
@@ -0,0 +1,126 @@
+package ru.practicum.stats.hll;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.dto.ViewStatsDto;
+import ru.practicum.stats.StatsRepository;
+import ru.practicum.stats.dictionary.StatsDictionary;
+import ru.practicum.stats.dictionary.UriFilter;
+import ru.practicum.stats.rollup.RollupGranularity;
+import ru.practicum.stats.rollup.RollupQueryPlanner;
+import ru.practicum.stats.rollup.RollupSegment;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Приближённое количество уникальных ip по скетчам HyperLogLog.
+ * Середина периода читается из часовых и суточных скетчей, края короче часа - из исходных записей.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class HllStatsService {
+    private final HllSketchRepository sketchRepository;
+    private final HllSketchAggregator sketchAggregator;
+    private final HllProperties properties;
+    private final StatsRepository statsRepository;
+    private final StatsDictionary dictionary;
+
+    /**
+     * Используется ли приближённый подсчёт для запроса
+     * @param exact запрошен точный подсчёт
+     */
+    public boolean isApplicable(boolean unique, boolean exact) {
+        return unique && !exact && properties.isEnabled();
+    }
+
+    public double getRelativeError() {
+        return properties.getRelativeError();
+    }
+
+    @Transactional(readOnly = true)
+    public List<ViewStatsDto> getStats(LocalDateTime start, LocalDateTime end, UriFilter filter) {
+        List<RollupSegment> segments = RollupQueryPlanner.plan(start, end, RollupGranularity.HOUR);
+        log.debug("План запроса уникальных ip по скетчам: {}", segments);
+
+        if (filter.isEmpty()) {
+            return List.of();
+        }
+        List<Integer> uriIds = filter.getUriIds();
+
+        Map<List<Integer>, HyperLogLog> merged = new LinkedHashMap<>();
+        List<RollupSegment> sketchSegments = new ArrayList<>();
+        for (RollupSegment segment : segments) {
+            if (!segment.isRaw()) {
+                sketchSegments.add(segment);
+                continue;
+            }
+
+            List<Object[]> visitors = (uriIds == null)
+                    ? statsRepository.findDistinctVisitors(segment.getStart(), segment.getEnd())
+                    : statsRepository.findDistinctVisitorsByUris(segment.getStart(), segment.getEnd(),
+                            uriIds.toArray(Integer[]::new));
+            for (Object[] visitor : visitors) {
+                sketchFor(merged, List.of((Integer) visitor[0], (Integer) visitor[1])).addIp((String) visitor[2]);
+            }
+        }
+
+        HllSketchRepository.SketchConsumer collector = (appId, uriId, sketch) ->
+                sketchFor(merged, List.of(appId, uriId)).merge(sketch);
+        sketchRepository.findBySegments(sketchSegments, uriIds, collector);
+
+        Set<Integer> uriFilter = (uriIds == null) ? null : new HashSet<>(uriIds);
+        sketchAggregator.mergePending(key -> (uriFilter == null || uriFilter.contains(key.getUriId()))
+                && sketchSegments.stream().anyMatch(segment -> covers(segment, key)), collector);
+
+        return merged.entrySet().stream()
+                .map(entry -> new ViewStatsDto(dictionary.getApp(entry.getKey().get(0)),
+                        dictionary.getUri(entry.getKey().get(1)), entry.getValue().estimate()))
+                .sorted(Comparator.comparing(ViewStatsDto::getHits).reversed())
+                .toList();
+    }
+
+    /**
+     * Приближённое количество уникальных ip за всё время по каждому uri из скетча uri за всё время,
+     * стоимость не зависит от срока жизни uri
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Long> getUniqueViews(Collection<String> uris) {
+        List<Integer> uriIds = dictionary.findUriIds(uris);
+        if (uriIds.isEmpty()) {
+            return Map.of();
+        }
+
+        Map<Integer, HyperLogLog> merged = new HashMap<>();
+        HllSketchRepository.TotalConsumer collector = (uriId, sketch) ->
+                merged.computeIfAbsent(uriId, key -> new HyperLogLog(properties.getPrecision())).merge(sketch);
+
+        sketchRepository.findTotals(uriIds, collector);
+        sketchAggregator.mergePendingTotals(new HashSet<>(uriIds), collector);
+
+        Map<String, Long> views = new HashMap<>(merged.size());
+        merged.forEach((uriId, sketch) -> views.put(dictionary.getUri(uriId), sketch.estimate()));
+        return views;
+    }
+
+    private HyperLogLog sketchFor(Map<List<Integer>, HyperLogLog> merged, List<Integer> appAndUri) {
+        return merged.computeIfAbsent(appAndUri, key -> new HyperLogLog(properties.getPrecision()));
+    }
+
+    private boolean covers(RollupSegment segment, SketchKey key) {
+        return segment.getGranularity() == key.getGranularity()
+                && !key.getBucketStart().isBefore(segment.getStart())
+                && key.getBucketStart().isBefore(segment.getEnd());
+    }
+}
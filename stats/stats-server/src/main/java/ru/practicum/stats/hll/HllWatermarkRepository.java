@@ -0,0 +1,50 @@
+package ru.practicum.stats.hll;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Время, до которого скетчи каждого экземпляра записаны в stats_hll. Обновляется в одной транзакции
+ * с записью скетчей, поэтому после сбоя в скетчи достаточно заново добавить просмотры с этого времени.
+ */
+@Repository
+@RequiredArgsConstructor
+public class HllWatermarkRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    public Optional<LocalDateTime> find(String nodeId) {
+        List<Timestamp> flushedAt = jdbcTemplate.queryForList(
+                "SELECT flushed_at FROM stats_hll_watermark WHERE node_id = ?", Timestamp.class, nodeId);
+        return flushedAt.stream().findFirst().map(Timestamp::toLocalDateTime);
+    }
+
+    /**
+     * Самая ранняя отметка всех экземпляров, для экземпляра, запущенного под новым идентификатором
+     */
+    public Optional<LocalDateTime> findOldest() {
+        Timestamp flushedAt = jdbcTemplate.queryForObject("SELECT min(flushed_at) FROM stats_hll_watermark",
+                Timestamp.class);
+        return Optional.ofNullable(flushedAt).map(Timestamp::toLocalDateTime);
+    }
+
+    public void save(String nodeId, LocalDateTime flushedAt) {
+        jdbcTemplate.update("""
+                INSERT INTO stats_hll_watermark (node_id, flushed_at)
+                VALUES (?, ?)
+                ON CONFLICT (node_id) DO UPDATE SET flushed_at = EXCLUDED.flushed_at""",
+                nodeId, Timestamp.valueOf(flushedAt));
+    }
+
+    /**
+     * Удалить отметки экземпляров, которые давно не записывали скетчи
+     */
+    public void deleteBefore(LocalDateTime before) {
+        jdbcTemplate.update("DELETE FROM stats_hll_watermark WHERE flushed_at < ?", Timestamp.valueOf(before));
+    }
+}
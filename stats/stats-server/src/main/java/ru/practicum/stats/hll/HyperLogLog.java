@@ -0,0 +1,167 @@
+package ru.practicum.stats.hll;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Скетч HyperLogLog для приближённого подсчёта уникальных значений.
+ * Размер - 2^precision однобайтовых регистров, относительная ошибка 1.04 / sqrt(2^precision).
+ * Скетчи с одинаковой точностью объединяются поэлементным максимумом регистров.
+ */
+public class HyperLogLog {
+    private static final byte DENSE = 0;
+    private static final byte SPARSE = 1;
+
+    private final int precision;
+    private final byte[] registers;
+
+    public HyperLogLog(int precision) {
+        if (precision < 4 || precision > 16) {
+            throw new IllegalArgumentException("HyperLogLog precision must be in [4, 16], but was " + precision);
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    public static double relativeError(int precision) {
+        return 1.04 / Math.sqrt(1 << precision);
+    }
+
+    public int getPrecision() {
+        return precision;
+    }
+
+    public synchronized void add(String value) {
+        long hash = hash64(value);
+        int index = (int) (hash >>> (64 - precision));
+        long rest = (hash << precision) | (1L << (precision - 1));
+        byte rank = (byte) (Long.numberOfLeadingZeros(rest) + 1);
+        if (registers[index] < rank) {
+            registers[index] = rank;
+        }
+    }
+
+    /**
+     * Добавить ip в каноническом виде {@link InetAddress#getHostAddress}, чтобы адрес из запроса /hit
+     * и тот же адрес, прочитанный из столбца inet, давали одно значение хеша
+     */
+    public void addIp(String ip) {
+        add(normalizeIp(ip));
+    }
+
+    static String normalizeIp(String ip) {
+        try {
+            // ip проверен при приёме просмотра, для адреса getByName не обращается к DNS
+            return InetAddress.getByName(ip).getHostAddress();
+        } catch (UnknownHostException e) {
+            return ip;
+        }
+    }
+
+    public void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Cannot merge HyperLogLog with different precision");
+        }
+        byte[] otherRegisters = other.snapshot();
+        synchronized (this) {
+            for (int i = 0; i < registers.length; i++) {
+                if (registers[i] < otherRegisters[i]) {
+                    registers[i] = otherRegisters[i];
+                }
+            }
+        }
+    }
+
+    public synchronized long estimate() {
+        int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+
+        double alpha = 0.7213 / (1 + 1.079 / m);
+        double estimate = alpha * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0) {
+            // поправка для малых мощностей (linear counting)
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * Сериализация: точность, формат и регистры.
+     * Для малозаполненных скетчей хранятся только ненулевые регистры (индекс, значение).
+     */
+    public byte[] toBytes() {
+        byte[] copy = snapshot();
+        int nonZero = 0;
+        for (byte register : copy) {
+            if (register != 0) {
+                nonZero++;
+            }
+        }
+
+        int sparseSize = 2 + Integer.BYTES + nonZero * (Short.BYTES + 1);
+        if (sparseSize >= 2 + copy.length) {
+            return ByteBuffer.allocate(2 + copy.length)
+                    .put((byte) precision)
+                    .put(DENSE)
+                    .put(copy)
+                    .array();
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(sparseSize)
+                .put((byte) precision)
+                .put(SPARSE)
+                .putInt(nonZero);
+        for (int i = 0; i < copy.length; i++) {
+            if (copy[i] != 0) {
+                buffer.putShort((short) i).put(copy[i]);
+            }
+        }
+        return buffer.array();
+    }
+
+    public static HyperLogLog fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        HyperLogLog hll = new HyperLogLog(buffer.get());
+        byte format = buffer.get();
+        if (format == DENSE) {
+            buffer.get(hll.registers);
+        } else {
+            int nonZero = buffer.getInt();
+            for (int i = 0; i < nonZero; i++) {
+                int index = Short.toUnsignedInt(buffer.getShort());
+                hll.registers[index] = buffer.get();
+            }
+        }
+        return hll;
+    }
+
+    private synchronized byte[] snapshot() {
+        return registers.clone();
+    }
+
+    /**
+     * 64-битный FNV-1a с финальным перемешиванием из MurmurHash3
+     */
+    private static long hash64(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,33 @@
+package ru.practicum.stats.hll;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import lombok.experimental.FieldDefaults;
+import ru.practicum.stats.rollup.RollupGranularity;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+
+/**
+ * Ключ скетча: интервал времени и пара (app_id, uri_id)
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class SketchKey {
+    public static final Comparator<SketchKey> ORDER = Comparator
+            .comparing(SketchKey::getGranularity)
+            .thenComparing(SketchKey::getBucketStart)
+            .thenComparingInt(SketchKey::getAppId)
+            .thenComparingInt(SketchKey::getUriId);
+
+    RollupGranularity granularity;
+    LocalDateTime bucketStart;
+    int appId;
+    int uriId;
+}
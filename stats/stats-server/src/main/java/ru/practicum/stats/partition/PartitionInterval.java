@@ -0,0 +1,55 @@
+package ru.practicum.stats.partition;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Optional;
+
+/**
+ * Размер партиции таблицы stats
+ */
+public enum PartitionInterval {
+    DAY(DateTimeFormatter.ofPattern("yyyy_MM_dd")),
+    MONTH(DateTimeFormatter.ofPattern("yyyy_MM"));
+
+    private static final String PREFIX = "stats_p";
+
+    private final DateTimeFormatter suffixFormat;
+
+    PartitionInterval(DateTimeFormatter suffixFormat) {
+        this.suffixFormat = suffixFormat;
+    }
+
+    /**
+     * Начало партиции, в которую попадает дата
+     */
+    public LocalDate floor(LocalDate date) {
+        return this == MONTH ? date.withDayOfMonth(1) : date;
+    }
+
+    public LocalDate next(LocalDate partitionStart) {
+        return this == MONTH ? partitionStart.plusMonths(1) : partitionStart.plusDays(1);
+    }
+
+    public String tableName(LocalDate partitionStart) {
+        return PREFIX + suffixFormat.format(partitionStart);
+    }
+
+    /**
+     * Начало партиции по имени таблицы, пусто для таблиц с другим форматом имени
+     */
+    public Optional<LocalDate> parseStart(String tableName) {
+        if (!tableName.startsWith(PREFIX)) {
+            return Optional.empty();
+        }
+        String suffix = tableName.substring(PREFIX.length());
+        try {
+            if (this == MONTH) {
+                return Optional.of(LocalDate.parse(suffix + "_01", DAY.suffixFormat));
+            }
+            return Optional.of(LocalDate.parse(suffix, suffixFormat));
+        } catch (DateTimeParseException e) {
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package ru.practicum.stats.partition;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Настройки секционирования таблицы stats
+ */
+@Getter
+@Setter
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@ConfigurationProperties(prefix = "stats.partitioning")
+public class PartitionProperties {
+    PartitionInterval interval = PartitionInterval.MONTH;
+
+    /**
+     * Количество партиций, создаваемых заранее после текущей
+     */
+    int precreate = 3;
+
+    /**
+     * Срок хранения исходных записей, null - хранить бессрочно
+     */
+    Duration retention;
+
+    RetentionAction retentionAction = RetentionAction.DROP;
+
+    /**
+     * Пересчитать часовые и суточные агрегаты по партиции перед её удалением или отсоединением,
+     * минутные агрегаты удаляемого периода при этом удаляются
+     */
+    boolean downsample = true;
+}
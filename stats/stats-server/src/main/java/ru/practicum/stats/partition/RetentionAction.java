@@ -0,0 +1,16 @@
+package ru.practicum.stats.partition;
+
+/**
+ * Действие с партицией, вышедшей за срок хранения
+ */
+public enum RetentionAction {
+    /**
+     * Удалить партицию
+     */
+    DROP,
+
+    /**
+     * Отсоединить партицию от таблицы stats, оставив её для архивирования
+     */
+    DETACH
+}
@@ -0,0 +1,179 @@
+package ru.practicum.stats.partition;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.stats.rollup.StatsRollupRepository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Обслуживание партиций таблицы stats: создание партиций заранее,
+ * удаление или отсоединение партиций старше срока хранения с предварительным прореживанием агрегатов.
+ * Партиция stats_legacy с диапазоном от MINVALUE удаляется целиком, когда весь её диапазон старше срока хранения,
+ * до этого устаревшие записи удаляются из неё по периодам.
+ */
+@Slf4j
+@Component
+@DependsOn("statsEncodingMigration")
+@RequiredArgsConstructor
+public class StatsPartitionManager {
+    private final StatsPartitionRepository partitionRepository;
+    private final StatsRollupRepository rollupRepository;
+    private final PartitionProperties properties;
+    private final TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!partitionRepository.isPartitioned()) {
+                LocalDateTime cutover = legacyCutover();
+                log.info("Таблица stats не секционирована, выполняется миграция, граница stats_legacy: {}", cutover);
+                partitionRepository.migrateLegacyTable(cutover);
+            }
+            partitionRepository.createDefaultPartition();
+        });
+        maintain();
+    }
+
+    @Scheduled(cron = "${stats.partitioning.maintenance-cron:0 0 3 * * *}")
+    public void maintain() {
+        createFuturePartitions();
+        if (properties.getRetention() != null) {
+            applyRetention();
+        }
+    }
+
+    private void createFuturePartitions() {
+        PartitionInterval interval = properties.getInterval();
+        Set<String> existing = new HashSet<>(partitionRepository.findPartitions());
+        Optional<LocalDateTime> legacyBound = partitionRepository.findLegacyUpperBound();
+
+        LocalDate start = interval.floor(LocalDate.now());
+        for (int i = 0; i <= properties.getPrecreate(); i++) {
+            LocalDate end = interval.next(start);
+            String name = interval.tableName(start);
+            // диапазон до верхней границы stats_legacy уже покрыт ею
+            boolean coveredByLegacy = legacyBound.isPresent() && start.atStartOfDay().isBefore(legacyBound.get());
+            if (!existing.contains(name) && !coveredByLegacy) {
+                LocalDate from = start;
+                try {
+                    transactionTemplate.executeWithoutResult(status -> partitionRepository.createPartition(name, from, end));
+                    log.info("Создана партиция {}: [{}, {})", name, from, end);
+                } catch (RuntimeException e) {
+                    log.warn("Ошибка создания партиции {}: {}", name, e.getMessage());
+                }
+            }
+            start = end;
+        }
+    }
+
+    private void applyRetention() {
+        PartitionInterval interval = properties.getInterval();
+        LocalDateTime threshold = LocalDateTime.now().minus(properties.getRetention());
+
+        for (String name : partitionRepository.findPartitions()) {
+            if (StatsPartitionRepository.LEGACY_PARTITION.equals(name)) {
+                applyLegacyRetention(threshold);
+                continue;
+            }
+
+            Optional<LocalDate> start = interval.parseStart(name);
+            if (start.isEmpty()) {
+                continue;
+            }
+
+            LocalDateTime from = start.get().atStartOfDay();
+            LocalDateTime to = interval.next(start.get()).atStartOfDay();
+            if (to.isAfter(threshold)) {
+                continue;
+            }
+
+            expirePartition(name, from, to);
+        }
+    }
+
+    /**
+     * Срок хранения для stats_legacy: устаревшие записи удаляются по одному периоду секционирования в транзакции,
+     * партиция целиком обрабатывается по stats.partitioning.retention-action после устаревания верхней границы
+     */
+    private void applyLegacyRetention(LocalDateTime threshold) {
+        Optional<LocalDateTime> upperBound = partitionRepository.findLegacyUpperBound();
+        Optional<LocalDateTime> minCreated = partitionRepository.findMinCreated(StatsPartitionRepository.LEGACY_PARTITION);
+        if (upperBound.isEmpty() || minCreated.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime from = minCreated.get().toLocalDate().atStartOfDay();
+        if (!upperBound.get().isAfter(threshold)) {
+            expirePartition(StatsPartitionRepository.LEGACY_PARTITION, from, upperBound.get());
+            return;
+        }
+
+        PartitionInterval interval = properties.getInterval();
+        LocalDateTime expiredEnd = threshold.toLocalDate().atStartOfDay();
+        while (from.isBefore(expiredEnd)) {
+            LocalDateTime periodStart = from;
+            LocalDateTime periodEnd = min(interval.next(interval.floor(from.toLocalDate())).atStartOfDay(), expiredEnd);
+            try {
+                int deleted = transactionTemplate.execute(status -> {
+                    if (properties.isDownsample()) {
+                        rollupRepository.downsample(periodStart, periodEnd);
+                    }
+                    return partitionRepository.deleteRange(StatsPartitionRepository.LEGACY_PARTITION,
+                            periodStart, periodEnd);
+                });
+                log.info("Из партиции {} удалены записи старше срока хранения за [{}, {}): {}",
+                        StatsPartitionRepository.LEGACY_PARTITION, periodStart, periodEnd, deleted);
+            } catch (RuntimeException e) {
+                log.warn("Ошибка удаления устаревших записей партиции {} за [{}, {}): {}",
+                        StatsPartitionRepository.LEGACY_PARTITION, periodStart, periodEnd, e.getMessage());
+                return;
+            }
+            from = periodEnd;
+        }
+    }
+
+    private void expirePartition(String name, LocalDateTime from, LocalDateTime to) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (properties.isDownsample()) {
+                    rollupRepository.downsample(from, to);
+                }
+                if (properties.getRetentionAction() == RetentionAction.DETACH) {
+                    partitionRepository.detachPartition(name);
+                } else {
+                    partitionRepository.dropPartition(name);
+                }
+            });
+            log.info("Партиция {} старше срока хранения: {}", name, properties.getRetentionAction());
+        } catch (RuntimeException e) {
+            log.warn("Ошибка обработки устаревшей партиции {}: {}", name, e.getMessage());
+        }
+    }
+
+    private static LocalDateTime min(LocalDateTime a, LocalDateTime b) {
+        return a.isBefore(b) ? a : b;
+    }
+
+    /**
+     * Граница stats_legacy при миграции: конец текущего периода, но не раньше последней существующей записи
+     */
+    private LocalDateTime legacyCutover() {
+        PartitionInterval interval = properties.getInterval();
+        LocalDate cutover = interval.next(interval.floor(LocalDate.now()));
+        Optional<LocalDateTime> maxCreated = partitionRepository.findMaxCreated();
+        if (maxCreated.isPresent() && !maxCreated.get().isBefore(cutover.atStartOfDay())) {
+            cutover = interval.next(interval.floor(maxCreated.get().toLocalDate()));
+        }
+        return cutover.atStartOfDay();
+    }
+}
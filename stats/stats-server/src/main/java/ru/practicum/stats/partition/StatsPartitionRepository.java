@@ -0,0 +1,157 @@
+package ru.practicum.stats.partition;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * DDL операции с партициями таблицы stats.
+ * Имена таблиц и границы формируются только внутри сервиса, поэтому подставляются в текст запроса.
+ */
+@Repository
+@RequiredArgsConstructor
+public class StatsPartitionRepository {
+    public static final String DEFAULT_PARTITION = "stats_default";
+    public static final String LEGACY_PARTITION = "stats_legacy";
+
+    private static final String COLUMNS = "id, app_id, uri_id, ip, created, weight";
+    private static final DateTimeFormatter BOUND_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final Pattern UPPER_BOUND = Pattern.compile("TO \\('([^']+)'\\)");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Является ли таблица stats секционированной
+     */
+    public boolean isPartitioned() {
+        Boolean partitioned = jdbcTemplate.queryForObject("""
+                SELECT c.relkind = 'p'
+                FROM pg_class c
+                WHERE c.relname = 'stats' AND c.relnamespace = current_schema()::regnamespace""", Boolean.class);
+        return Boolean.TRUE.equals(partitioned);
+    }
+
+    /**
+     * Перевод несекционированной таблицы stats в секционированную.
+     * Существующие записи остаются в партиции stats_legacy с диапазоном до момента миграции.
+     */
+    public void migrateLegacyTable(LocalDateTime cutover) {
+        jdbcTemplate.execute("ALTER TABLE stats RENAME TO " + LEGACY_PARTITION);
+        jdbcTemplate.execute("ALTER INDEX IF EXISTS stats_uri_idx RENAME TO stats_legacy_uri_idx");
+        jdbcTemplate.execute("ALTER INDEX IF EXISTS stats_created_idx RENAME TO stats_legacy_created_idx");
+        jdbcTemplate.execute("ALTER INDEX IF EXISTS stats_pkey RENAME TO stats_legacy_pkey");
+        jdbcTemplate.execute("ALTER TABLE " + LEGACY_PARTITION + " ALTER COLUMN id DROP IDENTITY IF EXISTS");
+
+        jdbcTemplate.execute("""
+                CREATE TABLE stats (
+                    id BIGINT GENERATED ALWAYS AS IDENTITY,
+                    app_id INTEGER NOT NULL,
+                    uri_id INTEGER NOT NULL,
+                    ip INET NOT NULL,
+                    created TIMESTAMP NOT NULL,
+                    weight INTEGER NOT NULL DEFAULT 1,
+                    PRIMARY KEY (id, created)
+                ) PARTITION BY RANGE (created)""");
+        Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + LEGACY_PARTITION, Long.class);
+        jdbcTemplate.execute("ALTER TABLE stats ALTER COLUMN id RESTART WITH " + (maxId + 1));
+
+        jdbcTemplate.execute("ALTER TABLE " + LEGACY_PARTITION + " DROP CONSTRAINT IF EXISTS stats_legacy_pkey");
+        jdbcTemplate.execute("ALTER TABLE " + LEGACY_PARTITION + " ADD PRIMARY KEY (id, created)");
+        jdbcTemplate.execute("ALTER TABLE stats ATTACH PARTITION " + LEGACY_PARTITION
+                + " FOR VALUES FROM (MINVALUE) TO ('" + BOUND_FORMAT.format(cutover) + "')");
+        createIndexes();
+    }
+
+    public Optional<LocalDateTime> findMaxCreated() {
+        return Optional.ofNullable(jdbcTemplate.queryForObject("SELECT MAX(created) FROM stats", LocalDateTime.class));
+    }
+
+    /**
+     * Время самой ранней записи партиции, пусто если партиция пуста
+     */
+    public Optional<LocalDateTime> findMinCreated(String partition) {
+        return Optional.ofNullable(jdbcTemplate.queryForObject("SELECT MIN(created) FROM " + partition,
+                LocalDateTime.class));
+    }
+
+    /**
+     * Удаление записей партиции за период [from, to)
+     * @return количество удалённых записей
+     */
+    public int deleteRange(String partition, LocalDateTime from, LocalDateTime to) {
+        return jdbcTemplate.update("DELETE FROM " + partition + " WHERE created >= ? AND created < ?", from, to);
+    }
+
+    /**
+     * Верхняя граница партиции stats_legacy, пусто если её нет
+     */
+    public Optional<LocalDateTime> findLegacyUpperBound() {
+        List<String> bounds = jdbcTemplate.queryForList("""
+                SELECT pg_get_expr(c.relpartbound, c.oid)
+                FROM pg_class c
+                WHERE c.relname = ? AND c.relnamespace = current_schema()::regnamespace AND c.relispartition""",
+                String.class, LEGACY_PARTITION);
+        if (bounds.isEmpty()) {
+            return Optional.empty();
+        }
+
+        Matcher matcher = UPPER_BOUND.matcher(bounds.getFirst());
+        return matcher.find()
+                ? Optional.of(LocalDateTime.parse(matcher.group(1), BOUND_FORMAT))
+                : Optional.empty();
+    }
+
+    public void createIndexes() {
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS stats_uri_idx ON stats (uri_id)");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS stats_created_idx ON stats (created)");
+    }
+
+    public void createDefaultPartition() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + DEFAULT_PARTITION + " PARTITION OF stats DEFAULT");
+    }
+
+    /**
+     * Имена всех партиций таблицы stats
+     */
+    public List<String> findPartitions() {
+        return jdbcTemplate.queryForList("""
+                SELECT c.relname
+                FROM pg_inherits i
+                JOIN pg_class c ON c.oid = i.inhrelid
+                JOIN pg_class p ON p.oid = i.inhparent
+                WHERE p.relname = 'stats' AND p.relnamespace = current_schema()::regnamespace""", String.class);
+    }
+
+    /**
+     * Создание партиции [from, to). Записи этого диапазона, попавшие в партицию по умолчанию,
+     * переносятся в новую партицию, иначе PostgreSQL не позволит её присоединить.
+     */
+    public void createPartition(String name, LocalDate from, LocalDate to) {
+        String lower = BOUND_FORMAT.format(from.atStartOfDay());
+        String upper = BOUND_FORMAT.format(to.atStartOfDay());
+
+        jdbcTemplate.execute("CREATE TABLE " + name + " (LIKE stats INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+        jdbcTemplate.update("INSERT INTO " + name + " (" + COLUMNS + ") SELECT " + COLUMNS + " FROM " + DEFAULT_PARTITION
+                + " WHERE created >= '" + lower + "' AND created < '" + upper + "'");
+        jdbcTemplate.update("DELETE FROM " + DEFAULT_PARTITION
+                + " WHERE created >= '" + lower + "' AND created < '" + upper + "'");
+        jdbcTemplate.execute("ALTER TABLE stats ATTACH PARTITION " + name
+                + " FOR VALUES FROM ('" + lower + "') TO ('" + upper + "')");
+    }
+
+    public void detachPartition(String name) {
+        jdbcTemplate.execute("ALTER TABLE stats DETACH PARTITION " + name);
+    }
+
+    public void dropPartition(String name) {
+        jdbcTemplate.execute("DROP TABLE " + name);
+    }
+}
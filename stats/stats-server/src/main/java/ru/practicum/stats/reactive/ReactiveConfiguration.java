@@ -0,0 +1,39 @@
+package ru.practicum.stats.reactive;
+
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+/**
+ * Пул R2DBC соединений для реактивного режима.
+ * Менеджер транзакций R2DBC не регистрируется как бин, чтобы не заменять менеджер JPA
+ * в @Transactional блокирующих сервисов, транзакции записи оформляются через {@link TransactionalOperator}.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveConfiguration {
+    @Bean
+    public ConnectionFactory statsConnectionFactory(ReactiveProperties properties) {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(properties.getUrl()).mutate()
+                .option(ConnectionFactoryOptions.USER, properties.getUsername())
+                .option(ConnectionFactoryOptions.PASSWORD, properties.getPassword())
+                .build();
+        return ConnectionFactories.get(options);
+    }
+
+    @Bean
+    public DatabaseClient statsDatabaseClient(ConnectionFactory statsConnectionFactory) {
+        return DatabaseClient.create(statsConnectionFactory);
+    }
+
+    @Bean
+    public TransactionalOperator statsTransactionalOperator(ConnectionFactory statsConnectionFactory) {
+        return TransactionalOperator.create(new R2dbcTransactionManager(statsConnectionFactory));
+    }
+}
@@ -0,0 +1,25 @@
+package ru.practicum.stats.reactive;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Подключение к БД через R2DBC для реактивного режима (spring.main.web-application-type=reactive)
+ */
+@Getter
+@Setter
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@ConfigurationProperties(prefix = "stats.reactive")
+public class ReactiveProperties {
+    /**
+     * Адрес БД, например r2dbc:pool:postgresql://localhost:5432/ewm_stats_db?maxSize=18
+     */
+    String url;
+
+    String username;
+
+    String password;
+}
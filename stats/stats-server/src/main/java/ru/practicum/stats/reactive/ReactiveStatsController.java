@@ -0,0 +1,208 @@
+package ru.practicum.stats.reactive;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.practicum.dto.EndpointHitDto;
+import ru.practicum.dto.EventViewsRequestDto;
+import ru.practicum.dto.HitBatchResultDto;
+import ru.practicum.dto.TimeSeriesDto;
+import ru.practicum.dto.TopViewStatsDto;
+import ru.practicum.dto.ViewStatsDto;
+import ru.practicum.stats.HitBatchProperties;
+import ru.practicum.stats.StatsController;
+import ru.practicum.stats.StatsEntry;
+import ru.practicum.stats.StatsRequestValidator;
+import ru.practicum.stats.StatsService;
+import ru.practicum.stats.abuse.HitRateFilter;
+import ru.practicum.stats.hll.HllStatsService;
+import ru.practicum.stats.rollup.RollupGranularity;
+import ru.practicum.stats.timeseries.TimeSeriesService;
+import ru.practicum.stats.topk.TopKService;
+import ru.practicum.stats.trending.TrendingCounters;
+import ru.practicum.stats.trending.TrendingWindow;
+import ru.practicum.stats.wal.HitWriteAheadLog;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static ru.practicum.stats.reactive.ReactiveStatsService.blocking;
+
+/**
+ * API {@link StatsController} на WebFlux: те же адреса, параметры, заголовки и коды ответов
+ */
+@RestController
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveStatsController {
+    private final ReactiveStatsService reactiveStatsService;
+    private final StatsService statsService;
+    private final HllStatsService hllStatsService;
+    private final HitBatchProperties hitBatchProperties;
+    private final ObjectProvider<HitWriteAheadLog> writeAheadLogProvider;
+    private final TopKService topKService;
+    private final TimeSeriesService timeSeriesService;
+    private final HitRateFilter hitRateFilter;
+    private final TrendingCounters trendingCounters;
+    private final StatsRequestValidator validator;
+
+    /**
+     * Сохранение просмотра. При включённом журнале просмотр подтверждается после записи в журнал
+     */
+    @PostMapping("/hit")
+    @ResponseStatus(HttpStatus.CREATED)
+    public Mono<Void> saveNewHit(@RequestBody EndpointHitDto hitDto) {
+        HitWriteAheadLog writeAheadLog = writeAheadLogProvider.getIfAvailable();
+        if (writeAheadLog == null) {
+            return reactiveStatsService.prepareHits(List.of(hitDto))
+                    .flatMap(prepared -> {
+                        if (prepared.getInvalid() > 0) {
+                            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid hit"));
+                        }
+                        return reactiveStatsService.save(prepared);
+                    })
+                    .then();
+        }
+
+        return blocking(() -> {
+            if (!hitRateFilter.admit(hitDto)) {
+                return true;
+            }
+            StatsEntry entry = statsService.encodeHit(hitDto)
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid hit"));
+            return writeAheadLog.append(entry);
+        }).flatMap(appended -> appended
+                ? Mono.<Void>empty()
+                : Mono.error(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Hit log is full")));
+    }
+
+    /**
+     * Пакетное сохранение просмотров, тело запроса - JSON массив
+     */
+    @PostMapping(value = "/hit/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseStatus(HttpStatus.CREATED)
+    public Mono<HitBatchResultDto> saveHitBatch(@RequestBody List<EndpointHitDto> hits) {
+        validator.checkBatchSize(hits.size());
+        return reactiveStatsService.saveHits(hits);
+    }
+
+    /**
+     * Пакетное сохранение просмотров, тело запроса - NDJSON поток (один просмотр на строку).
+     * Чтение прекращается, как только размер пакета превышает ограничение
+     */
+    @PostMapping(value = "/hit/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    @ResponseStatus(HttpStatus.CREATED)
+    public Mono<HitBatchResultDto> saveHitBatchNdjson(@RequestBody Flux<EndpointHitDto> body) {
+        return body.take(hitBatchProperties.getMaxSize() + 1L)
+                .collectList()
+                .flatMap(hits -> {
+                    validator.checkBatchSize(hits.size());
+                    return reactiveStatsService.saveHits(hits);
+                });
+    }
+
+    /**
+     * Статистика по просмотрам, параметры и формат ответа как у {@link StatsController#getStats}
+     */
+    @GetMapping("/stats")
+    public Mono<ResponseEntity<Flux<ViewStatsDto>>> getStats(@RequestParam("start") @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime start,
+                                                             @RequestParam("end") @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime end,
+                                                             @RequestParam(required = false) List<String> uris,
+                                                             @RequestParam(defaultValue = "false") boolean unique,
+                                                             @RequestParam(defaultValue = "false") boolean exact,
+                                                             @RequestParam(required = false) Integer limit,
+                                                             @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        validator.checkPeriod(start, end);
+        validator.checkLimit(limit);
+
+        if (accept != null && accept.contains(MediaType.APPLICATION_NDJSON_VALUE)) {
+            return Mono.just(ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .body(reactiveStatsService.streamStats(start, end, uris, unique, limit)));
+        }
+
+        return reactiveStatsService.getStats(start, end, uris, unique, exact, limit)
+                .map(stats -> {
+                    ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON);
+                    if (hllStatsService.isApplicable(unique, exact)) {
+                        response.header(StatsController.ERROR_BOUND_HEADER,
+                                String.valueOf(hllStatsService.getRelativeError()));
+                    }
+                    return response.body(Flux.fromIterable(stats));
+                });
+    }
+
+    /**
+     * n самых просматриваемых uri за период по скетчам Space-Saving
+     */
+    @GetMapping("/stats/top")
+    public Mono<ResponseEntity<List<TopViewStatsDto>>> getTop(@RequestParam("start") @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime start,
+                                                              @RequestParam("end") @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime end,
+                                                              @RequestParam(defaultValue = "10") int n) {
+        validator.checkPeriod(start, end);
+        validator.checkTopSize(n);
+
+        if (!topKService.isEnabled()) {
+            return reactiveStatsService.getStats(start, end, null, false, true, n)
+                    .map(stats -> ResponseEntity.ok(stats.stream()
+                            .map(dto -> new TopViewStatsDto(dto.getApp(), dto.getUri(), dto.getHits(), 0L))
+                            .toList()));
+        }
+
+        return blocking(() -> topKService.getTop(start, end, n))
+                .map(result -> ResponseEntity.ok()
+                        .header(StatsController.TOP_ERROR_BOUND_HEADER, String.valueOf(result.getErrorBound()))
+                        .body(result.getTop()));
+    }
+
+    /**
+     * Самые просматриваемые сейчас uri событий за последний час, сутки или неделю (window = 1h, 24h, 7d)
+     */
+    @GetMapping("/stats/trending")
+    public List<ViewStatsDto> getTrending(@RequestParam(defaultValue = "24h") String window,
+                                         @RequestParam(defaultValue = "10") int n) {
+        TrendingWindow trendingWindow = validator.checkTrending(window, n);
+
+        return trendingCounters.getTop(trendingWindow, n);
+    }
+
+    /**
+     * Просмотры по интервалам bucket (1m, 1h, 1d) для построения графиков
+     */
+    @GetMapping("/stats/timeseries")
+    public Mono<TimeSeriesDto> getTimeSeries(@RequestParam("start") @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime start,
+                                             @RequestParam("end") @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime end,
+                                             @RequestParam(required = false) List<String> uris,
+                                             @RequestParam(defaultValue = "1h") String bucket,
+                                             @RequestParam(defaultValue = "false") boolean unique) {
+        RollupGranularity granularity = validator.checkTimeSeries(start, end, bucket);
+
+        return blocking(() -> timeSeriesService.getTimeSeries(start, end, uris, granularity, unique));
+    }
+
+    /**
+     * Количество просмотров событий за всё время, ответ - отображение id события на количество просмотров
+     */
+    @PostMapping("/stats/events/views")
+    public Mono<Map<Long, Long>> getEventViews(@RequestBody EventViewsRequestDto request) {
+        return reactiveStatsService.getEventViews(request.getEventIds(), request.isUnique());
+    }
+
+    /**
+     * Количество просмотров за всё время по каждому uri, ответ - отображение uri на количество просмотров
+     */
+    @GetMapping("/stats/totals")
+    public Mono<Map<String, Long>> getUriTotals(@RequestParam List<String> uris) {
+        return reactiveStatsService.getUriTotals(uris);
+    }
+}
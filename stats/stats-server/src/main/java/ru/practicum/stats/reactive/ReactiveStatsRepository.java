@@ -0,0 +1,115 @@
+package ru.practicum.stats.reactive;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.practicum.stats.HitBatchProperties;
+import ru.practicum.stats.HitCount;
+import ru.practicum.stats.StatsEntry;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Неблокирующий доступ к таблице stats, запросы повторяют {@link ru.practicum.stats.StatsRepository}.
+ * Пакеты записываются многострочными INSERT: привязки параметров объединяются через Statement.add
+ * и отправляются драйверу порциями по stats.hit-batch.jdbc-batch-size строк.
+ */
+@Repository
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveStatsRepository {
+    private static final String INSERT_SQL = "INSERT INTO stats (app_id, uri_id, ip, created, weight) VALUES ($1, $2, $3::inet, $4, $5)";
+
+    private final DatabaseClient databaseClient;
+    private final HitBatchProperties properties;
+
+    /**
+     * Сгруппированное по (app, uri) количество просмотров за период в порядке убывания
+     * @param uriIds фильтр по идентификаторам uri, null - без фильтра
+     * @param limit ограничение количества строк, null - без ограничения
+     */
+    public Flux<HitCount> streamStats(LocalDateTime start, LocalDateTime end, List<Integer> uriIds,
+                                      boolean unique, Integer limit) {
+        StringBuilder sql = new StringBuilder("SELECT app_id, uri_id, ")
+                .append(unique ? "count(DISTINCT ip)" : "sum(weight)")
+                .append(" AS hits FROM stats WHERE created >= :start AND created < :end");
+        if (uriIds != null) {
+            sql.append(" AND uri_id = ANY(:uriIds)");
+        }
+        sql.append(" GROUP BY app_id, uri_id ORDER BY hits DESC");
+        if (limit != null) {
+            sql.append(" LIMIT :limit");
+        }
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString())
+                .bind("start", start)
+                .bind("end", end);
+        if (uriIds != null) {
+            spec = spec.bind("uriIds", uriIds.toArray(new Integer[0]));
+        }
+        if (limit != null) {
+            spec = spec.bind("limit", limit);
+        }
+        return spec.map((row, metadata) -> new HitCount(
+                        row.get("app_id", Integer.class),
+                        row.get("uri_id", Integer.class),
+                        row.get("hits", Long.class)))
+                .all();
+    }
+
+    /**
+     * Количество просмотров за всё время по каждому идентификатору uri
+     */
+    public Mono<Map<Integer, Long>> countHitsByUris(Collection<Integer> uriIds, boolean unique) {
+        String sql = "SELECT uri_id, " + (unique ? "count(DISTINCT ip)" : "sum(weight)")
+                + " AS hits FROM stats WHERE uri_id = ANY(:uriIds) GROUP BY uri_id";
+        return databaseClient.sql(sql)
+                .bind("uriIds", uriIds.toArray(new Integer[0]))
+                .map((row, metadata) -> Map.entry(row.get("uri_id", Integer.class), row.get("hits", Long.class)))
+                .all()
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue);
+    }
+
+    public Mono<Integer> saveAll(List<StatsEntry> entries) {
+        return executeBatch(INSERT_SQL, entries, (statement, entry) -> statement
+                .bind(0, entry.getAppId())
+                .bind(1, entry.getUriId())
+                .bind(2, entry.getIp())
+                .bind(3, entry.getTimestamp())
+                .bind(4, entry.getWeight()))
+                .thenReturn(entries.size());
+    }
+
+    private <T> Mono<Void> executeBatch(String sql, List<T> rows, BiConsumer<Statement, T> binder) {
+        if (rows.isEmpty()) {
+            return Mono.empty();
+        }
+
+        int batchSize = properties.getJdbcBatchSize();
+        return databaseClient.inConnectionMany(connection -> Flux.range(0, (rows.size() + batchSize - 1) / batchSize)
+                        .concatMap(chunk -> execute(connection, sql,
+                                rows.subList(chunk * batchSize, Math.min(rows.size(), (chunk + 1) * batchSize)), binder)))
+                .then();
+    }
+
+    private <T> Flux<Long> execute(Connection connection, String sql, List<T> rows, BiConsumer<Statement, T> binder) {
+        Statement statement = connection.createStatement(sql);
+        for (int i = 0; i < rows.size(); i++) {
+            if (i > 0) {
+                statement.add();
+            }
+            binder.accept(statement, rows.get(i));
+        }
+        return Flux.from(statement.execute()).flatMap(Result::getRowsUpdated);
+    }
+}
@@ -0,0 +1,187 @@
+package ru.practicum.stats.reactive;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import ru.practicum.dto.EndpointHitDto;
+import ru.practicum.dto.HitBatchResultDto;
+import ru.practicum.dto.ViewStatsDto;
+import ru.practicum.stats.HitCount;
+import ru.practicum.stats.HitListener;
+import ru.practicum.stats.PreparedHits;
+import ru.practicum.stats.StatsEntry;
+import ru.practicum.stats.StatsService;
+import ru.practicum.stats.admission.AdmissionProperties;
+import ru.practicum.stats.counter.HitCounters;
+import ru.practicum.stats.dictionary.StatsDictionary;
+import ru.practicum.stats.dictionary.UriFilter;
+import ru.practicum.stats.hll.HllStatsService;
+import ru.practicum.stats.rollup.RollupProperties;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Запись просмотров и точная статистика по исходным записям через R2DBC.
+ * Запросы, которые обслуживаются скетчами, агрегатами или счётчиками в памяти, а также
+ * обращения к словарям при промахе кэша выполняются блокирующими сервисами на boundedElastic.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveStatsService {
+    private static final String EVENT_URI_PREFIX = "/events/";
+
+    private final StatsService statsService;
+    private final ReactiveStatsRepository repository;
+    private final StatsDictionary dictionary;
+    private final HllStatsService hllStatsService;
+    private final HitCounters hitCounters;
+    private final RollupProperties rollupProperties;
+    private final AdmissionProperties admissionProperties;
+    private final TransactionalOperator statsTransactionalOperator;
+    private final List<HitListener> hitListeners;
+
+    /**
+     * Проверка, фильтр частоты, кодирование и выборочное сохранение, как в {@link StatsService#prepareHits}
+     */
+    public Mono<PreparedHits> prepareHits(List<EndpointHitDto> hits) {
+        return blocking(() -> statsService.prepareHits(hits));
+    }
+
+    /**
+     * Запись подготовленных просмотров одной транзакцией, обработчики, в том числе агрегаты,
+     * уведомляются после её фиксации
+     * @return количество сохранённых записей
+     */
+    public Mono<Integer> save(PreparedHits prepared) {
+        List<StatsEntry> entries = prepared.getEntries();
+        if (entries.isEmpty()) {
+            return Mono.fromSupplier(() -> {
+                HitListener.dispatch(hitListeners, prepared);
+                return 0;
+            });
+        }
+
+        return statsTransactionalOperator.transactional(repository.saveAll(entries))
+                .doOnSuccess(saved -> HitListener.dispatch(hitListeners, prepared));
+    }
+
+    public Mono<HitBatchResultDto> saveHits(List<EndpointHitDto> hits) {
+        return prepareHits(hits)
+                .flatMap(prepared -> save(prepared).map(saved -> HitBatchResultDto.builder()
+                        .received(hits.size())
+                        .saved(saved)
+                        .rejected(prepared.getRejected())
+                        .build()))
+                .doOnNext(result -> log.info("Сохранён пакет просмотров: получено = {}, сохранено = {}, отклонено = {}",
+                        result.getReceived(), result.getSaved(), result.getRejected()));
+    }
+
+    /**
+     * Статистика по просмотрам. Приближённый подсчёт и подсчёт по агрегатам выполняются
+     * {@link StatsService#getStats} с кэшем результатов, точный подсчёт - запросом через R2DBC
+     */
+    public Mono<List<ViewStatsDto>> getStats(LocalDateTime startTime, LocalDateTime endTime, List<String> uris,
+                                             boolean unique, boolean exact, Integer limit) {
+        if (hllStatsService.isApplicable(unique, exact) || (!unique && rollupProperties.isEnabled())) {
+            return blocking(() -> statsService.getStats(startTime, endTime, uris, unique, exact, limit));
+        }
+        return streamStats(startTime, endTime, uris, unique, limit).collectList();
+    }
+
+    /**
+     * Точная статистика по исходным записям с передачей строк по мере чтения.
+     * Запрос прерывается по истечении stats.admission.query-timeout.
+     */
+    public Flux<ViewStatsDto> streamStats(LocalDateTime startTime, LocalDateTime endTime, List<String> uris,
+                                          boolean unique, Integer limit) {
+        log.debug("Потоковый запрос статистики c {} по {}, фильтр по uri: {}, уникальный ip: {}, limit: {}",
+                startTime, endTime, uris, unique, limit);
+
+        return blocking(() -> UriFilter.resolve(uris, dictionary))
+                .flatMapMany(filter -> {
+                    if (filter.isEmpty()) {
+                        return Flux.empty();
+                    }
+
+                    // имена app и uri при промахе кэша словаря читаются из БД блокирующим вызовом
+                    return repository.streamStats(startTime, endTime, filter.getUriIds(), unique, limit)
+                            .publishOn(Schedulers.boundedElastic())
+                            .map(dictionary::toViewStats);
+                })
+                .timeout(admissionProperties.getQueryTimeout())
+                .onErrorMap(TimeoutException.class, e -> new QueryTimeoutException("Stats query timed out", e));
+    }
+
+    /**
+     * Количество просмотров событий за всё время, см. {@link StatsService#getEventViews}
+     */
+    public Mono<Map<Long, Long>> getEventViews(Collection<Long> eventIds, boolean unique) {
+        if (eventIds == null || eventIds.isEmpty()) {
+            return Mono.just(Map.of());
+        }
+        if ((!unique && hitCounters.isEnabled()) || hllStatsService.isApplicable(unique, false)) {
+            return blocking(() -> statsService.getEventViews(eventIds, unique));
+        }
+
+        Map<String, Long> uriToEventId = new HashMap<>();
+        for (Long eventId : eventIds) {
+            uriToEventId.put(EVENT_URI_PREFIX + eventId, eventId);
+        }
+        return countHitsByUris(uriToEventId.keySet(), unique)
+                .map(hitsByUri -> {
+                    Map<Long, Long> views = new HashMap<>(hitsByUri.size());
+                    hitsByUri.forEach((uri, hits) -> views.put(uriToEventId.get(uri), hits));
+                    return views;
+                });
+    }
+
+    /**
+     * Количество просмотров за всё время по каждому uri, для uri без просмотров - 0
+     */
+    public Mono<Map<String, Long>> getUriTotals(Collection<String> uris) {
+        if (hitCounters.isEnabled()) {
+            return Mono.fromSupplier(() -> hitCounters.getTotals(uris));
+        }
+
+        return countHitsByUris(uris, false)
+                .map(hitsByUri -> {
+                    Map<String, Long> totals = new LinkedHashMap<>(uris.size());
+                    uris.forEach(uri -> totals.put(uri, hitsByUri.getOrDefault(uri, 0L)));
+                    return totals;
+                });
+    }
+
+    /**
+     * Выполнение блокирующего вызова на пуле boundedElastic, чтобы не занимать потоки event loop
+     */
+    public static <T> Mono<T> blocking(Callable<T> callable) {
+        return Mono.fromCallable(callable).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private Mono<Map<String, Long>> countHitsByUris(Collection<String> uris, boolean unique) {
+        return blocking(() -> dictionary.findUriIds(uris))
+                .flatMap(uriIds -> uriIds.isEmpty()
+                        ? Mono.just(Map.<Integer, Long>of())
+                        : repository.countHitsByUris(uriIds, unique))
+                .flatMap(hitsByUriId -> blocking(() -> {
+                    Map<String, Long> hitsByUri = new HashMap<>(hitsByUriId.size());
+                    hitsByUriId.forEach((uriId, hits) -> hitsByUri.put(dictionary.getUri(uriId), hits));
+                    return hitsByUri;
+                }));
+    }
+}
@@ -0,0 +1,133 @@
+package ru.practicum.stats.rollup;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.stats.HitListener;
+import ru.practicum.stats.StatsEntry;
+import ru.practicum.stats.rollup.StatsRollupRepository.RollupKey;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Накопление приращений агрегатов в памяти с периодической записью в БД.
+ * Пакеты просмотров не обновляют общие строки stats_rollup в транзакции записи, поэтому параллельные пакеты
+ * популярных uri не ждут блокировок друг друга. Пока приращение не записано, оно учитывается в запросах
+ * этого экземпляра через {@link #mergePending}, другие экземпляры видят его через stats.rollup.flush-interval.
+ * Приращения, не записанные до аварийной остановки, теряются, их восстанавливает пересчёт агрегатов.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RollupAggregator implements HitListener {
+    private final StatsRollupRepository rollupRepository;
+    private final RollupProperties properties;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<RollupKey, Long> dirty = new ConcurrentHashMap<>();
+    private final Map<RollupKey, Long> flushing = new ConcurrentHashMap<>();
+
+    @Override
+    public void onHits(List<StatsEntry> entries) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        for (StatsEntry entry : entries) {
+            for (RollupGranularity granularity : RollupGranularity.values()) {
+                RollupKey key = new RollupKey(granularity, granularity.floor(entry.getTimestamp()),
+                        entry.getAppId(), entry.getUriId());
+                dirty.merge(key, (long) entry.getWeight(), Long::sum);
+            }
+        }
+    }
+
+    /**
+     * Добавить к результату ещё не записанные в БД приращения, ключ которых удовлетворяет условию
+     */
+    public void mergePending(Predicate<RollupKey> filter, PendingConsumer consumer) {
+        flushing.forEach((key, hits) -> {
+            if (filter.test(key)) {
+                consumer.accept(key, hits);
+            }
+        });
+        dirty.forEach((key, hits) -> {
+            if (filter.test(key)) {
+                consumer.accept(key, hits);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${stats.rollup.flush-interval:PT2S}")
+    public void flush() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+
+        Map<RollupKey, Long> batch = new HashMap<>();
+        for (RollupKey key : dirty.keySet()) {
+            // приращение переносится в flushing атомарно, чтобы не пропасть из запросов на время записи
+            dirty.computeIfPresent(key, (k, hits) -> {
+                flushing.put(k, hits);
+                batch.put(k, hits);
+                return null;
+            });
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> rollupRepository.mergeAll(batch));
+            log.debug("Записано приращений агрегатов: {}", batch.size());
+        } catch (RuntimeException e) {
+            // транзакция не зафиксирована, возвращаем приращения в очередь на запись
+            log.warn("Ошибка записи приращений агрегатов: {}", e.getMessage());
+            batch.forEach((key, hits) -> dirty.merge(key, hits, Long::sum));
+        } finally {
+            batch.keySet().forEach(flushing::remove);
+        }
+    }
+
+    /**
+     * Удаление минутных агрегатов старше stats.rollup.minute-retention.
+     * Запросы по более раннему периоду используют часовые агрегаты и исходные записи
+     */
+    @Scheduled(cron = "${stats.rollup.prune-cron:0 30 3 * * *}")
+    public void pruneMinutes() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        LocalDateTime boundary = minuteBoundary();
+        try {
+            int deleted = transactionTemplate.execute(status ->
+                    rollupRepository.deleteBefore(RollupGranularity.MINUTE, boundary));
+            log.info("Удалены минутные агрегаты до {}: {}", boundary, deleted);
+        } catch (RuntimeException e) {
+            log.warn("Ошибка удаления минутных агрегатов: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Начало периода, за который хранятся минутные агрегаты
+     */
+    public LocalDateTime minuteBoundary() {
+        return RollupGranularity.HOUR.floor(LocalDateTime.now().minus(properties.getMinuteRetention()));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    @FunctionalInterface
+    public interface PendingConsumer {
+        void accept(RollupKey key, long hits);
+    }
+}
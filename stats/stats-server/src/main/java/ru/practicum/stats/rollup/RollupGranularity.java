@@ -0,0 +1,76 @@
+package ru.practicum.stats.rollup;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Размер временного интервала (bucket) агрегированной статистики
+ */
+public enum RollupGranularity {
+    MINUTE(ChronoUnit.MINUTES, "1m"),
+    HOUR(ChronoUnit.HOURS, "1h"),
+    DAY(ChronoUnit.DAYS, "1d");
+
+    private final ChronoUnit unit;
+    private final String bucket;
+
+    RollupGranularity(ChronoUnit unit, String bucket) {
+        this.unit = unit;
+        this.bucket = bucket;
+    }
+
+    /**
+     * Гранулярность по обозначению размера интервала в запросе: 1m, 1h, 1d
+     */
+    public static Optional<RollupGranularity> fromBucket(String bucket) {
+        return Arrays.stream(values())
+                .filter(granularity -> granularity.bucket.equalsIgnoreCase(bucket))
+                .findFirst();
+    }
+
+    public String getBucket() {
+        return bucket;
+    }
+
+    /**
+     * Начало интервала, в который попадает момент времени
+     */
+    public LocalDateTime floor(LocalDateTime time) {
+        return time.truncatedTo(unit);
+    }
+
+    /**
+     * Начало ближайшего интервала, который начинается не раньше момента времени
+     */
+    public LocalDateTime ceil(LocalDateTime time) {
+        LocalDateTime floor = floor(time);
+        return floor.equals(time) ? floor : floor.plus(1, unit);
+    }
+
+    /**
+     * Начало следующего интервала
+     */
+    public LocalDateTime next(LocalDateTime bucketStart) {
+        return bucketStart.plus(1, unit);
+    }
+
+    /**
+     * Количество интервалов между началами интервалов from и to
+     */
+    public long between(LocalDateTime from, LocalDateTime to) {
+        return unit.between(from, to);
+    }
+
+    /**
+     * Следующая более мелкая гранулярность, null для MINUTE
+     */
+    public RollupGranularity finer() {
+        return switch (this) {
+            case DAY -> HOUR;
+            case HOUR -> MINUTE;
+            case MINUTE -> null;
+        };
+    }
+}
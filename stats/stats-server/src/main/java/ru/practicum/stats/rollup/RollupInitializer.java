@@ -0,0 +1,33 @@
+package ru.practicum.stats.rollup;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Первичное заполнение агрегатов по уже накопленным просмотрам.
+ * Выполняется до старта веб-сервера, если таблица агрегатов пуста.
+ */
+@Slf4j
+@Component
+@DependsOn("statsEncodingMigration")
+@RequiredArgsConstructor
+public class RollupInitializer {
+    private final StatsRollupRepository rollupRepository;
+    private final RollupProperties properties;
+    private final TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        if (!properties.isEnabled() || !rollupRepository.isEmpty()) {
+            return;
+        }
+
+        log.info("Таблица агрегатов статистики пуста, выполняется пересчёт по исходным записям");
+        transactionTemplate.executeWithoutResult(status -> rollupRepository.rebuild());
+        log.info("Пересчёт агрегатов статистики завершён");
+    }
+}
@@ -0,0 +1,28 @@
+package ru.practicum.stats.rollup;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Настройки агрегированной статистики
+ */
+@Getter
+@Setter
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@ConfigurationProperties(prefix = "stats.rollup")
+public class RollupProperties {
+    /**
+     * Вести агрегаты при сохранении просмотров и использовать их для запросов без unique
+     */
+    boolean enabled = true;
+
+    /**
+     * Срок хранения минутных агрегатов. Должен быть не меньше часа: по ним загружается минутное окно рейтинга
+     */
+    Duration minuteRetention = Duration.ofDays(7);
+}
@@ -0,0 +1,50 @@
+package ru.practicum.stats.rollup;
+
+import lombok.experimental.UtilityClass;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Разбиение периода запроса на сегменты: середина периода покрывается самыми крупными
+ * целыми интервалами, края - более мелкими, а остаток меньше минуты читается из исходных записей.
+ */
+@UtilityClass
+public class RollupQueryPlanner {
+
+    public static List<RollupSegment> plan(LocalDateTime start, LocalDateTime end) {
+        return plan(start, end, RollupGranularity.MINUTE);
+    }
+
+    /**
+     * @param finest самая мелкая гранулярность, которая есть в хранилище агрегатов
+     */
+    public static List<RollupSegment> plan(LocalDateTime start, LocalDateTime end, RollupGranularity finest) {
+        List<RollupSegment> segments = new ArrayList<>();
+        decompose(start, end, RollupGranularity.DAY, finest, segments);
+        return segments;
+    }
+
+    private static void decompose(LocalDateTime start, LocalDateTime end, RollupGranularity granularity,
+                                  RollupGranularity finest, List<RollupSegment> segments) {
+        if (!start.isBefore(end)) {
+            return;
+        }
+        if (granularity == null) {
+            segments.add(new RollupSegment(null, start, end));
+            return;
+        }
+
+        RollupGranularity finer = (granularity == finest) ? null : granularity.finer();
+        LocalDateTime alignedStart = granularity.ceil(start);
+        LocalDateTime alignedEnd = granularity.floor(end);
+        if (alignedStart.isBefore(alignedEnd)) {
+            decompose(start, alignedStart, finer, finest, segments);
+            segments.add(new RollupSegment(granularity, alignedStart, alignedEnd));
+            decompose(alignedEnd, end, finer, finest, segments);
+        } else {
+            decompose(start, end, finer, finest, segments);
+        }
+    }
+}
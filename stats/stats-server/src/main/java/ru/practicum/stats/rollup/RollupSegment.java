@@ -0,0 +1,27 @@
+package ru.practicum.stats.rollup;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import lombok.experimental.FieldDefaults;
+
+import java.time.LocalDateTime;
+
+/**
+ * Часть запрошенного периода [start, end), которая читается из агрегатов одной гранулярности
+ * или, если granularity == null, из исходных записей таблицы stats
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class RollupSegment {
+    RollupGranularity granularity;
+    LocalDateTime start;
+    LocalDateTime end;
+
+    public boolean isRaw() {
+        return granularity == null;
+    }
+}
@@ -0,0 +1,88 @@
+package ru.practicum.stats.rollup;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.dto.ViewStatsDto;
+import ru.practicum.stats.HitCount;
+import ru.practicum.stats.StatsRepository;
+import ru.practicum.stats.dictionary.StatsDictionary;
+import ru.practicum.stats.dictionary.UriFilter;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Статистика без учёта уникальности ip по агрегатам.
+ * Стоимость запроса зависит от количества интервалов и uri, а не от количества просмотров.
+ * Приращения, ещё не записанные {@link RollupAggregator}, добавляются к результату из памяти.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RollupStatsService {
+    private final StatsRollupRepository rollupRepository;
+    private final RollupAggregator rollupAggregator;
+    private final StatsRepository statsRepository;
+    private final StatsDictionary dictionary;
+
+    @Transactional(readOnly = true)
+    public List<ViewStatsDto> getStats(LocalDateTime start, LocalDateTime end, UriFilter filter) {
+        // минутные агрегаты хранятся ограниченное время, более ранние края периода читаются из исходных записей
+        RollupGranularity finest = start.isBefore(rollupAggregator.minuteBoundary())
+                ? RollupGranularity.HOUR
+                : RollupGranularity.MINUTE;
+        List<RollupSegment> segments = RollupQueryPlanner.plan(start, end, finest);
+        log.debug("План запроса статистики по агрегатам: {}", segments);
+
+        if (filter.isEmpty()) {
+            return List.of();
+        }
+        List<Integer> uriIds = filter.getUriIds();
+
+        Map<List<Integer>, Long> hits = new LinkedHashMap<>();
+        List<RollupSegment> rollupSegments = new ArrayList<>();
+        for (RollupSegment segment : segments) {
+            if (segment.isRaw()) {
+                try (Stream<HitCount> raw = (uriIds == null)
+                        ? statsRepository.streamStats(segment.getStart(), segment.getEnd(), Limit.unlimited())
+                        : statsRepository.streamStatsByUris(segment.getStart(), segment.getEnd(), uriIds, Limit.unlimited())) {
+                    raw.forEach(count -> merge(hits, count));
+                }
+            } else {
+                rollupSegments.add(segment);
+            }
+        }
+        rollupRepository.getStats(rollupSegments, uriIds).forEach(count -> merge(hits, count));
+
+        Set<Integer> uriFilter = (uriIds == null) ? null : new HashSet<>(uriIds);
+        rollupAggregator.mergePending(key -> (uriFilter == null || uriFilter.contains(key.getUriId()))
+                        && rollupSegments.stream().anyMatch(segment -> covers(segment, key)),
+                (key, pending) -> hits.merge(List.of(key.getAppId(), key.getUriId()), pending, Long::sum));
+
+        return hits.entrySet().stream()
+                .map(entry -> dictionary.toViewStats(new HitCount(entry.getKey().get(0), entry.getKey().get(1),
+                        entry.getValue())))
+                .sorted(Comparator.comparing(ViewStatsDto::getHits).reversed())
+                .toList();
+    }
+
+    private boolean covers(RollupSegment segment, StatsRollupRepository.RollupKey key) {
+        return segment.getGranularity() == key.getGranularity()
+                && !key.getBucketStart().isBefore(segment.getStart())
+                && key.getBucketStart().isBefore(segment.getEnd());
+    }
+
+    private void merge(Map<List<Integer>, Long> hits, HitCount count) {
+        hits.merge(List.of(count.getAppId(), count.getUriId()), count.getHits(), Long::sum);
+    }
+}
@@ -0,0 +1,172 @@
+package ru.practicum.stats.rollup;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.stats.HitCount;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Агрегированное количество просмотров по (app_id, uri_id) в минутных, часовых и суточных интервалах
+ */
+@Repository
+@RequiredArgsConstructor
+public class StatsRollupRepository {
+    private static final String UPSERT_SQL = """
+            INSERT INTO stats_rollup (granularity, bucket_start, app_id, uri_id, hits)
+            VALUES (?, ?, ?, ?, ?)
+            ON CONFLICT (granularity, bucket_start, app_id, uri_id)
+            DO UPDATE SET hits = stats_rollup.hits + EXCLUDED.hits""";
+
+    private static final String REBUILD_SQL = """
+            INSERT INTO stats_rollup (granularity, bucket_start, app_id, uri_id, hits)
+            SELECT ?, date_trunc(?, s.created), s.app_id, s.uri_id, sum(s.weight)
+            FROM stats s
+            GROUP BY 2, 3, 4
+            ON CONFLICT (granularity, bucket_start, app_id, uri_id)
+            DO UPDATE SET hits = EXCLUDED.hits""";
+
+    private static final String REBUILD_RANGE_SQL = """
+            INSERT INTO stats_rollup (granularity, bucket_start, app_id, uri_id, hits)
+            SELECT ?, date_trunc(?, s.created), s.app_id, s.uri_id, sum(s.weight)
+            FROM stats s
+            WHERE s.created >= ? AND s.created < ?
+            GROUP BY 2, 3, 4
+            ON CONFLICT (granularity, bucket_start, app_id, uri_id)
+            DO UPDATE SET hits = EXCLUDED.hits""";
+
+    private static final Comparator<RollupKey> KEY_ORDER = Comparator
+            .comparing(RollupKey::getGranularity)
+            .thenComparing(RollupKey::getBucketStart)
+            .thenComparingInt(RollupKey::getAppId)
+            .thenComparingInt(RollupKey::getUriId);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    /**
+     * Увеличить агрегаты на накопленные приращения.
+     * Ключи обновляются в фиксированном порядке, чтобы записи разных экземпляров не блокировали друг друга взаимно.
+     */
+    public void mergeAll(Map<RollupKey, Long> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        List<Map.Entry<RollupKey, Long>> rows = new ArrayList<>(deltas.entrySet());
+        rows.sort(Map.Entry.comparingByKey(KEY_ORDER));
+        jdbcTemplate.batchUpdate(UPSERT_SQL, rows, rows.size(), (ps, row) -> {
+            RollupKey key = row.getKey();
+            ps.setString(1, key.getGranularity().name());
+            ps.setTimestamp(2, Timestamp.valueOf(key.getBucketStart()));
+            ps.setInt(3, key.getAppId());
+            ps.setInt(4, key.getUriId());
+            ps.setLong(5, row.getValue());
+        });
+    }
+
+    /**
+     * Сумма просмотров по (app_id, uri_id) из агрегатов указанных сегментов
+     * @param uriIds фильтр по идентификаторам uri, null - без фильтра
+     */
+    public List<HitCount> getStats(List<RollupSegment> segments, List<Integer> uriIds) {
+        if (segments.isEmpty()) {
+            return List.of();
+        }
+
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        StringBuilder sql = new StringBuilder("SELECT app_id, uri_id, SUM(hits) AS hits FROM stats_rollup WHERE (");
+        for (int i = 0; i < segments.size(); i++) {
+            RollupSegment segment = segments.get(i);
+            if (i > 0) {
+                sql.append(" OR ");
+            }
+            sql.append("(granularity = :g").append(i)
+                    .append(" AND bucket_start >= :s").append(i)
+                    .append(" AND bucket_start < :e").append(i).append(')');
+            params.addValue("g" + i, segment.getGranularity().name());
+            params.addValue("s" + i, Timestamp.valueOf(segment.getStart()));
+            params.addValue("e" + i, Timestamp.valueOf(segment.getEnd()));
+        }
+        sql.append(')');
+
+        if (uriIds != null) {
+            sql.append(" AND uri_id = ANY(CAST(:uriIds AS int[]))");
+            params.addValue("uriIds", uriIds.toArray(Integer[]::new));
+        }
+        sql.append(" GROUP BY app_id, uri_id");
+
+        return namedJdbcTemplate.query(sql.toString(), params, (rs, rowNum) ->
+                new HitCount(rs.getInt("app_id"), rs.getInt("uri_id"), rs.getLong("hits")));
+    }
+
+    public boolean isEmpty() {
+        Boolean exists = jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM stats_rollup)", Boolean.class);
+        return !Boolean.TRUE.equals(exists);
+    }
+
+    /**
+     * Пересчитать агрегаты по исходным записям таблицы stats
+     */
+    public void rebuild() {
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            jdbcTemplate.update(REBUILD_SQL, granularity.name(), granularity.name().toLowerCase());
+        }
+    }
+
+    /**
+     * Прореживание агрегатов периода [start, end) перед удалением его исходных записей:
+     * часовые и суточные агрегаты пересчитываются по исходным записям, минутные удаляются.
+     * Границы периода должны быть выровнены по суткам, иначе крайние интервалы будут посчитаны не полностью.
+     */
+    public void downsample(LocalDateTime start, LocalDateTime end) {
+        for (RollupGranularity granularity : List.of(RollupGranularity.HOUR, RollupGranularity.DAY)) {
+            jdbcTemplate.update(REBUILD_RANGE_SQL, granularity.name(), granularity.name().toLowerCase(),
+                    Timestamp.valueOf(start), Timestamp.valueOf(end));
+        }
+        delete(RollupGranularity.MINUTE, start, end);
+    }
+
+    /**
+     * Удалить агрегаты гранулярности с началом интервала раньше boundary
+     * @return количество удалённых строк
+     */
+    public int deleteBefore(RollupGranularity granularity, LocalDateTime boundary) {
+        return jdbcTemplate.update("DELETE FROM stats_rollup WHERE granularity = ? AND bucket_start < ?",
+                granularity.name(), Timestamp.valueOf(boundary));
+    }
+
+    /**
+     * Удалить агрегаты гранулярности с началом интервала в [start, end)
+     * @return количество удалённых строк
+     */
+    public int delete(RollupGranularity granularity, LocalDateTime start, LocalDateTime end) {
+        return jdbcTemplate.update(
+                "DELETE FROM stats_rollup WHERE granularity = ? AND bucket_start >= ? AND bucket_start < ?",
+                granularity.name(), Timestamp.valueOf(start), Timestamp.valueOf(end));
+    }
+
+    @Getter
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+    public static class RollupKey {
+        RollupGranularity granularity;
+        LocalDateTime bucketStart;
+        int appId;
+        int uriId;
+    }
+}
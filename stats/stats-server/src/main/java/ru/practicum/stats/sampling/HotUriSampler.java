@@ -0,0 +1,89 @@
+package ru.practicum.stats.sampling;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Выборочное сохранение просмотров популярных uri.
+ * Первые threshold просмотров uri за окно сохраняются с весом 1, n-й просмотр сверх порога сохраняется
+ * с вероятностью 1/N и весом N, где N = ceil(n / threshold). Математическое ожидание суммы весов равно
+ * точному количеству просмотров, а количество записей за окно растёт как threshold * (1 + ln(n / threshold)).
+ * Решение принимается без блокировок: счётчики окна uri атомарные, случайное число - из ThreadLocalRandom.
+ */
+@Component
+public class HotUriSampler {
+    private final SamplingProperties properties;
+    private final Map<Integer, UriRate> rates = new ConcurrentHashMap<>();
+    private final Counter sampledOut;
+
+    public HotUriSampler(SamplingProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.sampledOut = Counter.builder("stats.ingest.sampled_out")
+                .description("Просмотры популярных uri, не сохранённые при выборочном сохранении")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Вес, с которым нужно сохранить просмотр uri, 0 - просмотр не сохраняется
+     */
+    public int sample(int uriId) {
+        if (!properties.isEnabled()) {
+            return 1;
+        }
+
+        long now = System.currentTimeMillis();
+        UriRate rate = rates.get(uriId);
+        if (rate == null) {
+            rate = rates.computeIfAbsent(uriId, id -> new UriRate(now));
+        }
+        long count = rate.increment(now, properties.getWindow().toMillis());
+        if (count <= properties.getThreshold()) {
+            return 1;
+        }
+
+        int weight = (int) Math.min(Integer.MAX_VALUE, Math.ceilDiv(count, properties.getThreshold()));
+        if (ThreadLocalRandom.current().nextInt(weight) == 0) {
+            return weight;
+        }
+        sampledOut.increment();
+        return 0;
+    }
+
+    /**
+     * Удаление счётчиков uri без просмотров дольше двух окон
+     */
+    @Scheduled(fixedDelayString = "${stats.sampling.window:PT1M}")
+    public void evictIdle() {
+        long idleBefore = System.currentTimeMillis() - 2 * properties.getWindow().toMillis();
+        rates.values().removeIf(rate -> rate.windowStart.get() < idleBefore);
+    }
+
+    private static final class UriRate {
+        private final AtomicLong windowStart;
+        private final AtomicLong count = new AtomicLong();
+
+        private UriRate(long now) {
+            this.windowStart = new AtomicLong(now);
+        }
+
+        /**
+         * Учесть просмотр, при истечении окна начинается новое
+         * @return номер просмотра в текущем окне
+         */
+        long increment(long now, long windowMillis) {
+            long start = windowStart.get();
+            if (now - start >= windowMillis && windowStart.compareAndSet(start, now)) {
+                // просмотры, учтённые другими потоками между сдвигом и сбросом, теряются - это только занижает n
+                count.set(0);
+            }
+            return count.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package ru.practicum.stats.sampling;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Настройки выборочного сохранения просмотров популярных uri
+ */
+@Getter
+@Setter
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@ConfigurationProperties(prefix = "stats.sampling")
+public class SamplingProperties {
+    /**
+     * Сохранять просмотры uri сверх порога выборочно с весом.
+     * Точный подсчёт уникальных ip по исходным записям при этом занижен для популярных uri,
+     * поэтому выборочное сохранение выключено по умолчанию
+     */
+    boolean enabled = false;
+
+    /**
+     * Окно, в котором считается частота просмотров uri
+     */
+    Duration window = Duration.ofMinutes(1);
+
+    /**
+     * Количество просмотров uri за окно, сохраняемых полностью
+     */
+    long threshold = 1000;
+}
@@ -0,0 +1,74 @@
+package ru.practicum.stats.timeseries;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.stats.rollup.RollupGranularity;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+/**
+ * Количество просмотров по интервалам одним сгруппированным запросом
+ */
+@Repository
+@RequiredArgsConstructor
+public class TimeSeriesRepository {
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    /**
+     * Просмотры из агрегатов гранулярности granularity за интервалы, начинающиеся в [from, to)
+     * @param uriIds фильтр по идентификаторам uri, null - без фильтра
+     */
+    public void forEachRollupBucket(RollupGranularity granularity, LocalDateTime from, LocalDateTime to,
+                                    Collection<Integer> uriIds, BucketConsumer consumer) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("granularity", granularity.name())
+                .addValue("from", Timestamp.valueOf(from))
+                .addValue("to", Timestamp.valueOf(to));
+        StringBuilder sql = new StringBuilder("""
+                SELECT bucket_start, app_id, uri_id, hits
+                FROM stats_rollup
+                WHERE granularity = :granularity AND bucket_start >= :from AND bucket_start < :to""");
+        if (uriIds != null) {
+            sql.append(" AND uri_id = ANY(CAST(:uriIds AS int[]))");
+            params.addValue("uriIds", uriIds.toArray(Integer[]::new));
+        }
+
+        namedJdbcTemplate.query(sql.toString(), params, (RowCallbackHandler) rs ->
+                consumer.accept(rs.getTimestamp("bucket_start").toLocalDateTime(),
+                        rs.getInt("app_id"), rs.getInt("uri_id"), rs.getLong("hits")));
+    }
+
+    /**
+     * Просмотры по исходным записям, сгруппированные по интервалам
+     * @param uriIds фильтр по идентификаторам uri, null - без фильтра
+     */
+    public void forEachRawBucket(RollupGranularity granularity, LocalDateTime from, LocalDateTime to,
+                                 Collection<Integer> uriIds, boolean unique, BucketConsumer consumer) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("unit", granularity.name().toLowerCase())
+                .addValue("from", Timestamp.valueOf(from))
+                .addValue("to", Timestamp.valueOf(to));
+        StringBuilder sql = new StringBuilder("SELECT date_trunc(:unit, created) AS bucket_start, app_id, uri_id, ")
+                .append(unique ? "count(DISTINCT ip)" : "sum(weight)")
+                .append(" AS hits FROM stats WHERE created >= :from AND created < :to");
+        if (uriIds != null) {
+            sql.append(" AND uri_id = ANY(CAST(:uriIds AS int[]))");
+            params.addValue("uriIds", uriIds.toArray(Integer[]::new));
+        }
+        sql.append(" GROUP BY 1, 2, 3");
+
+        namedJdbcTemplate.query(sql.toString(), params, (RowCallbackHandler) rs ->
+                consumer.accept(rs.getTimestamp("bucket_start").toLocalDateTime(),
+                        rs.getInt("app_id"), rs.getInt("uri_id"), rs.getLong("hits")));
+    }
+
+    @FunctionalInterface
+    public interface BucketConsumer {
+        void accept(LocalDateTime bucketStart, int appId, int uriId, long hits);
+    }
+}
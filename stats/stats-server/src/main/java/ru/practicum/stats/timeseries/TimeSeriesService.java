@@ -0,0 +1,105 @@
+package ru.practicum.stats.timeseries;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import ru.practicum.dto.SeriesDto;
+import ru.practicum.dto.TimeSeriesDto;
+import ru.practicum.stats.admission.QueryTransactions;
+import ru.practicum.stats.dictionary.StatsDictionary;
+import ru.practicum.stats.dictionary.UriFilter;
+import ru.practicum.stats.rollup.RollupAggregator;
+import ru.practicum.stats.rollup.RollupGranularity;
+import ru.practicum.stats.rollup.RollupProperties;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Просмотры по интервалам для графиков.
+ * Период расширяется до границ интервалов: первый интервал начинается в floor(start), последний содержит end.
+ * Без unique ряды читаются из агрегатов вместе с ещё не записанными приращениями, иначе - одним сгруппированным
+ * запросом по исходным записям. Минутные ряды за период старше stats.rollup.minute-retention
+ * также читаются из исходных записей.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TimeSeriesService {
+    public static final int MAX_BUCKETS = 10_000;
+
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final TimeSeriesRepository timeSeriesRepository;
+    private final RollupProperties rollupProperties;
+    private final RollupAggregator rollupAggregator;
+    private final StatsDictionary dictionary;
+    private final QueryTransactions queryTransactions;
+
+    /**
+     * Количество интервалов в ответе
+     */
+    public long countBuckets(LocalDateTime start, LocalDateTime end, RollupGranularity granularity) {
+        return granularity.between(granularity.floor(start), granularity.next(granularity.floor(end)));
+    }
+
+    public TimeSeriesDto getTimeSeries(LocalDateTime start, LocalDateTime end, List<String> uris,
+                                       RollupGranularity granularity, boolean unique) {
+        LocalDateTime from = granularity.floor(start);
+        LocalDateTime to = granularity.next(granularity.floor(end));
+        int size = (int) granularity.between(from, to);
+        log.debug("Запрос рядов просмотров c {} по {}, интервал: {}, фильтр по uri: {}, уникальный ip: {}",
+                from, to, granularity, uris, unique);
+
+        List<String> timestamps = new ArrayList<>(size);
+        for (LocalDateTime bucket = from; bucket.isBefore(to); bucket = granularity.next(bucket)) {
+            timestamps.add(TIMESTAMP_FORMAT.format(bucket));
+        }
+
+        Map<List<Integer>, long[]> series = new LinkedHashMap<>();
+        List<SeriesDto> result = queryTransactions.execute(() -> {
+            collect(from, to, uris, granularity, unique, size, series);
+            return series.entrySet().stream()
+                    .map(entry -> new SeriesDto(dictionary.getApp(entry.getKey().get(0)),
+                            dictionary.getUri(entry.getKey().get(1)),
+                            Arrays.stream(entry.getValue()).boxed().toList()))
+                    .toList();
+        });
+        return new TimeSeriesDto(granularity.getBucket(), timestamps, result);
+    }
+
+    private void collect(LocalDateTime from, LocalDateTime to, List<String> uris, RollupGranularity granularity,
+                         boolean unique, int size, Map<List<Integer>, long[]> series) {
+        UriFilter filter = UriFilter.resolve(uris, dictionary);
+        if (filter.isEmpty()) {
+            return;
+        }
+
+        boolean minutesPruned = granularity == RollupGranularity.MINUTE
+                && from.isBefore(rollupAggregator.minuteBoundary());
+        if (!unique && rollupProperties.isEnabled() && !minutesPruned) {
+            timeSeriesRepository.forEachRollupBucket(granularity, from, to, filter.getUriIds(), (bucketStart, appId, uriId, hits) ->
+                    series.computeIfAbsent(List.of(appId, uriId), key -> new long[size])
+                            [(int) granularity.between(from, bucketStart)] += hits);
+
+            Set<Integer> uriFilter = (filter.getUriIds() == null) ? null : new HashSet<>(filter.getUriIds());
+            rollupAggregator.mergePending(key -> key.getGranularity() == granularity
+                            && !key.getBucketStart().isBefore(from) && key.getBucketStart().isBefore(to)
+                            && (uriFilter == null || uriFilter.contains(key.getUriId())),
+                    (key, hits) -> series.computeIfAbsent(List.of(key.getAppId(), key.getUriId()), k -> new long[size])
+                            [(int) granularity.between(from, key.getBucketStart())] += hits);
+            return;
+        }
+
+        timeSeriesRepository.forEachRawBucket(granularity, from, to, filter.getUriIds(), unique, (bucketStart, appId, uriId, hits) ->
+                series.computeIfAbsent(List.of(appId, uriId), key -> new long[size])
+                        [(int) granularity.between(from, bucketStart)] += hits);
+    }
+}
@@ -0,0 +1,180 @@
+package ru.practicum.stats.topk;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Скетч Space-Saving для поиска самых частых элементов.
+ * Хранит не более capacity счётчиков. Новый элемент при заполненном скетче вытесняет счётчик
+ * с минимальным значением и наследует его значение как ошибку, поэтому значение счётчика -
+ * оценка сверху, а значение минус ошибка - оценка снизу. Количество любого неотслеживаемого
+ * элемента не больше минимального счётчика.
+ */
+public class SpaceSaving {
+    private static final Comparator<Counter> COUNT_ORDER = Comparator
+            .comparingLong((Counter counter) -> counter.count)
+            .thenComparingLong(counter -> counter.item);
+
+    private final int capacity;
+    private final Map<Long, Counter> counters = new HashMap<>();
+    private final TreeSet<Counter> byCount = new TreeSet<>(COUNT_ORDER);
+
+    public SpaceSaving(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("SpaceSaving capacity must be positive, but was " + capacity);
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * Элемент из пары идентификаторов сервиса и uri
+     */
+    public static long item(int appId, int uriId) {
+        return ((long) appId << 32) | (uriId & 0xFFFFFFFFL);
+    }
+
+    public static int appId(long item) {
+        return (int) (item >>> 32);
+    }
+
+    public static int uriId(long item) {
+        return (int) item;
+    }
+
+    public synchronized void add(long item, long weight) {
+        Counter counter = counters.get(item);
+        if (counter != null) {
+            byCount.remove(counter);
+            counter.count += weight;
+            byCount.add(counter);
+            return;
+        }
+
+        long error = 0;
+        if (counters.size() >= capacity) {
+            Counter evicted = byCount.pollFirst();
+            counters.remove(evicted.item);
+            error = evicted.count;
+        }
+        put(new Counter(item, error + weight, error));
+    }
+
+    /**
+     * Граница количества для неотслеживаемых элементов
+     */
+    public synchronized long minCount() {
+        return (counters.size() < capacity) ? 0 : byCount.first().count;
+    }
+
+    /**
+     * Объединение со скетчем другого интервала. Для элемента, отсутствующего в одном из скетчей,
+     * из него берётся минимальный счётчик как оценка сверху и как ошибка.
+     */
+    public void merge(SpaceSaving other) {
+        List<Counter> otherCounters = other.snapshot();
+        long otherMin = other.minCount();
+
+        synchronized (this) {
+            long min = minCount();
+            Map<Long, Counter> merged = new HashMap<>();
+            for (Counter counter : counters.values()) {
+                merged.put(counter.item, new Counter(counter.item, counter.count + otherMin, counter.error + otherMin));
+            }
+            for (Counter counter : otherCounters) {
+                Counter own = merged.get(counter.item);
+                if (own == null) {
+                    merged.put(counter.item, new Counter(counter.item, counter.count + min, counter.error + min));
+                } else {
+                    // отслеживается обоими скетчами, минимум другого скетча был добавлен выше
+                    own.count += counter.count - otherMin;
+                    own.error += counter.error - otherMin;
+                }
+            }
+
+            List<Counter> sorted = new ArrayList<>(merged.values());
+            sorted.sort(COUNT_ORDER.reversed());
+            counters.clear();
+            byCount.clear();
+            sorted.stream().limit(capacity).forEach(this::put);
+        }
+    }
+
+    /**
+     * Не более n элементов в порядке убывания количества
+     */
+    public synchronized List<Counter> top(int n) {
+        return byCount.descendingSet().stream()
+                .limit(n)
+                .map(Counter::copy)
+                .toList();
+    }
+
+    /**
+     * Сериализация: capacity, количество счётчиков и счётчики (элемент, значение, ошибка)
+     */
+    public synchronized byte[] toBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(2 * Integer.BYTES + counters.size() * 3 * Long.BYTES);
+        buffer.putInt(capacity);
+        buffer.putInt(counters.size());
+        for (Counter counter : counters.values()) {
+            buffer.putLong(counter.item);
+            buffer.putLong(counter.count);
+            buffer.putLong(counter.error);
+        }
+        return buffer.array();
+    }
+
+    public static SpaceSaving fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        SpaceSaving sketch = new SpaceSaving(buffer.getInt());
+        int size = buffer.getInt();
+        for (int i = 0; i < size; i++) {
+            sketch.put(new Counter(buffer.getLong(), buffer.getLong(), buffer.getLong()));
+        }
+        return sketch;
+    }
+
+    private synchronized List<Counter> snapshot() {
+        return counters.values().stream()
+                .map(Counter::copy)
+                .toList();
+    }
+
+    private void put(Counter counter) {
+        counters.put(counter.item, counter);
+        byCount.add(counter);
+    }
+
+    public static final class Counter {
+        private final long item;
+        private long count;
+        private long error;
+
+        private Counter(long item, long count, long error) {
+            this.item = item;
+            this.count = count;
+            this.error = error;
+        }
+
+        public long getItem() {
+            return item;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getError() {
+            return error;
+        }
+
+        private Counter copy() {
+            return new Counter(item, count, error);
+        }
+    }
+}
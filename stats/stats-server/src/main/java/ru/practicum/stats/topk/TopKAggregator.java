@@ -0,0 +1,106 @@
+package ru.practicum.stats.topk;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.stats.HitListener;
+import ru.practicum.stats.StatsEntry;
+import ru.practicum.stats.rollup.RollupGranularity;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Накопление скетчей самых просматриваемых uri в памяти с периодической записью в БД.
+ * Скетчи ведутся в часовых и суточных интервалах. Пока скетч не записан,
+ * он учитывается в запросах через {@link #mergePending}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TopKAggregator implements HitListener {
+    public static final List<RollupGranularity> GRANULARITIES = List.of(RollupGranularity.HOUR, RollupGranularity.DAY);
+
+    private final TopKRepository topKRepository;
+    private final TopKProperties properties;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<TopKKey, SpaceSaving> dirty = new ConcurrentHashMap<>();
+    private final Map<TopKKey, SpaceSaving> flushing = new ConcurrentHashMap<>();
+
+    @Override
+    public void onHits(List<StatsEntry> entries) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        for (StatsEntry entry : entries) {
+            long item = SpaceSaving.item(entry.getAppId(), entry.getUriId());
+            for (RollupGranularity granularity : GRANULARITIES) {
+                TopKKey key = new TopKKey(granularity, granularity.floor(entry.getTimestamp()));
+                dirty.compute(key, (k, sketch) -> {
+                    SpaceSaving result = (sketch == null) ? new SpaceSaving(properties.getCapacity()) : sketch;
+                    result.add(item, entry.getWeight());
+                    return result;
+                });
+            }
+        }
+    }
+
+    /**
+     * Добавить к результату ещё не записанные в БД скетчи, ключ которых удовлетворяет условию
+     */
+    public void mergePending(Predicate<TopKKey> filter, TopKRepository.SketchConsumer consumer) {
+        flushing.forEach((key, sketch) -> {
+            if (filter.test(key)) {
+                consumer.accept(sketch);
+            }
+        });
+        dirty.forEach((key, sketch) -> {
+            if (filter.test(key)) {
+                consumer.accept(sketch);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${stats.topk.flush-interval:PT10S}")
+    public void flush() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+
+        Map<TopKKey, SpaceSaving> batch = new HashMap<>();
+        for (TopKKey key : dirty.keySet()) {
+            dirty.computeIfPresent(key, (k, sketch) -> {
+                flushing.put(k, sketch);
+                batch.put(k, sketch);
+                return null;
+            });
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> topKRepository.mergeAll(batch));
+            log.debug("Записано скетчей самых просматриваемых uri: {}", batch.size());
+        } catch (RuntimeException e) {
+            // возвращаем скетчи в очередь на запись
+            log.warn("Ошибка записи скетчей самых просматриваемых uri: {}", e.getMessage());
+            batch.forEach((key, sketch) -> dirty.merge(key, sketch, (current, failed) -> {
+                current.merge(failed);
+                return current;
+            }));
+        } finally {
+            batch.keySet().forEach(flushing::remove);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+}
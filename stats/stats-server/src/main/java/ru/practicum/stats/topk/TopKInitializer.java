@@ -0,0 +1,52 @@
+package ru.practicum.stats.topk;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.stats.rollup.RollupGranularity;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Первичное построение скетчей самых просматриваемых uri по уже накопленным просмотрам.
+ * Выполняется до старта веб-сервера, если таблица скетчей пуста.
+ */
+@Slf4j
+@Component
+@DependsOn("statsEncodingMigration")
+@RequiredArgsConstructor
+public class TopKInitializer {
+    private final TopKRepository topKRepository;
+    private final TopKProperties properties;
+    private final TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        if (!properties.isEnabled() || !topKRepository.isEmpty()) {
+            return;
+        }
+
+        log.info("Таблица скетчей самых просматриваемых uri пуста, выполняется построение по исходным записям");
+        transactionTemplate.executeWithoutResult(status -> {
+            for (RollupGranularity granularity : TopKAggregator.GRANULARITIES) {
+                // интервалы обходятся по порядку, поэтому в памяти строится только скетч текущего интервала
+                Map<TopKKey, SpaceSaving> current = new HashMap<>();
+                topKRepository.forEachBucketCount(granularity, (bucketStart, appId, uriId, hits) -> {
+                    TopKKey key = new TopKKey(granularity, bucketStart);
+                    if (!current.isEmpty() && !current.containsKey(key)) {
+                        topKRepository.mergeAll(current);
+                        current.clear();
+                    }
+                    current.computeIfAbsent(key, k -> new SpaceSaving(properties.getCapacity()))
+                            .add(SpaceSaving.item(appId, uriId), hits);
+                });
+                topKRepository.mergeAll(current);
+            }
+        });
+        log.info("Построение скетчей самых просматриваемых uri завершено");
+    }
+}
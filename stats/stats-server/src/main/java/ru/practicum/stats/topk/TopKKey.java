@@ -0,0 +1,29 @@
+package ru.practicum.stats.topk;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import lombok.experimental.FieldDefaults;
+import ru.practicum.stats.rollup.RollupGranularity;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+
+/**
+ * Ключ скетча самых просматриваемых uri: интервал времени
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class TopKKey {
+    public static final Comparator<TopKKey> ORDER = Comparator
+            .comparing(TopKKey::getGranularity)
+            .thenComparing(TopKKey::getBucketStart);
+
+    RollupGranularity granularity;
+    LocalDateTime bucketStart;
+}
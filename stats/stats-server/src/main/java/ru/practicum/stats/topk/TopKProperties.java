@@ -0,0 +1,27 @@
+package ru.practicum.stats.topk;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Настройки поиска самых просматриваемых uri
+ */
+@Getter
+@Setter
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@ConfigurationProperties(prefix = "stats.topk")
+public class TopKProperties {
+    /**
+     * Вести скетчи Space-Saving при сохранении просмотров и отвечать по ним на /stats/top
+     */
+    boolean enabled = true;
+
+    /**
+     * Количество счётчиков в скетче интервала, это же максимальное n в запросе.
+     * При изменении таблицу stats_topk нужно очистить.
+     */
+    int capacity = 200;
+}
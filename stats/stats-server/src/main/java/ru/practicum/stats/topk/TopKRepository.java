@@ -0,0 +1,123 @@
+package ru.practicum.stats.topk;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.stats.rollup.RollupGranularity;
+import ru.practicum.stats.rollup.RollupSegment;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Хранилище скетчей Space-Saving самых просматриваемых uri по интервалам времени
+ */
+@Repository
+@RequiredArgsConstructor
+public class TopKRepository {
+    private static final String INSERT_SQL = """
+            INSERT INTO stats_topk (granularity, bucket_start, sketch)
+            VALUES (?, ?, ?)
+            ON CONFLICT (granularity, bucket_start) DO NOTHING""";
+
+    private static final String SELECT_FOR_UPDATE_SQL = """
+            SELECT sketch FROM stats_topk
+            WHERE granularity = ? AND bucket_start = ?
+            FOR UPDATE""";
+
+    private static final String UPDATE_SQL = """
+            UPDATE stats_topk SET sketch = ?
+            WHERE granularity = ? AND bucket_start = ?""";
+
+    private static final String BUCKET_COUNTS_SQL = """
+            SELECT date_trunc(?, created) AS bucket_start, app_id, uri_id, sum(weight) AS hits
+            FROM stats
+            GROUP BY 1, 2, 3
+            ORDER BY 1""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    /**
+     * Объединить скетчи с сохранёнными, ключи блокируются в фиксированном порядке
+     */
+    public void mergeAll(Map<TopKKey, SpaceSaving> sketches) {
+        List<TopKKey> keys = new ArrayList<>(sketches.keySet());
+        keys.sort(TopKKey.ORDER);
+        for (TopKKey key : keys) {
+            merge(key, sketches.get(key));
+        }
+    }
+
+    /**
+     * Скетчи указанных сегментов, сегменты должны быть в гранулярности HOUR или DAY
+     */
+    public void findBySegments(List<RollupSegment> segments, SketchConsumer consumer) {
+        if (segments.isEmpty()) {
+            return;
+        }
+
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        StringBuilder sql = new StringBuilder("SELECT sketch FROM stats_topk WHERE ");
+        for (int i = 0; i < segments.size(); i++) {
+            RollupSegment segment = segments.get(i);
+            if (i > 0) {
+                sql.append(" OR ");
+            }
+            sql.append("(granularity = :g").append(i)
+                    .append(" AND bucket_start >= :s").append(i)
+                    .append(" AND bucket_start < :e").append(i).append(')');
+            params.addValue("g" + i, segment.getGranularity().name());
+            params.addValue("s" + i, Timestamp.valueOf(segment.getStart()));
+            params.addValue("e" + i, Timestamp.valueOf(segment.getEnd()));
+        }
+
+        namedJdbcTemplate.query(sql.toString(), params, (RowCallbackHandler) rs ->
+                consumer.accept(SpaceSaving.fromBytes(rs.getBytes("sketch"))));
+    }
+
+    public boolean isEmpty() {
+        Boolean exists = jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM stats_topk)", Boolean.class);
+        return !Boolean.TRUE.equals(exists);
+    }
+
+    /**
+     * Обойти количество просмотров по (интервал, app_id, uri_id) исходных записей в порядке интервалов
+     */
+    public void forEachBucketCount(RollupGranularity granularity, BucketCountConsumer consumer) {
+        jdbcTemplate.query(BUCKET_COUNTS_SQL, (RowCallbackHandler) rs ->
+                consumer.accept(rs.getTimestamp("bucket_start").toLocalDateTime(),
+                        rs.getInt("app_id"), rs.getInt("uri_id"), rs.getLong("hits")),
+                granularity.name().toLowerCase());
+    }
+
+    private void merge(TopKKey key, SpaceSaving sketch) {
+        Timestamp bucketStart = Timestamp.valueOf(key.getBucketStart());
+        int inserted = jdbcTemplate.update(INSERT_SQL, key.getGranularity().name(), bucketStart, sketch.toBytes());
+        if (inserted > 0) {
+            return;
+        }
+
+        byte[] stored = jdbcTemplate.queryForObject(SELECT_FOR_UPDATE_SQL, byte[].class,
+                key.getGranularity().name(), bucketStart);
+        SpaceSaving merged = SpaceSaving.fromBytes(stored);
+        merged.merge(sketch);
+        jdbcTemplate.update(UPDATE_SQL, merged.toBytes(), key.getGranularity().name(), bucketStart);
+    }
+
+    @FunctionalInterface
+    public interface SketchConsumer {
+        void accept(SpaceSaving sketch);
+    }
+
+    @FunctionalInterface
+    public interface BucketCountConsumer {
+        void accept(LocalDateTime bucketStart, int appId, int uriId, long hits);
+    }
+}
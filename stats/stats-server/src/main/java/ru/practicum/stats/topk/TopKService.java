@@ -0,0 +1,106 @@
+package ru.practicum.stats.topk;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import ru.practicum.dto.TopViewStatsDto;
+import ru.practicum.stats.HitCount;
+import ru.practicum.stats.StatsRepository;
+import ru.practicum.stats.admission.QueryTransactions;
+import ru.practicum.stats.dictionary.StatsDictionary;
+import ru.practicum.stats.rollup.RollupGranularity;
+import ru.practicum.stats.rollup.RollupQueryPlanner;
+import ru.practicum.stats.rollup.RollupSegment;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Самые просматриваемые uri по скетчам Space-Saving.
+ * Середина периода читается из часовых и суточных скетчей, края короче часа - из исходных записей
+ * с ограничением capacity строк. Стоимость запроса зависит от количества интервалов и capacity,
+ * а не от количества uri.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TopKService {
+    private final TopKRepository topKRepository;
+    private final TopKAggregator topKAggregator;
+    private final TopKProperties properties;
+    private final StatsRepository statsRepository;
+    private final StatsDictionary dictionary;
+    private final QueryTransactions queryTransactions;
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    public int getCapacity() {
+        return properties.getCapacity();
+    }
+
+    public TopResult getTop(LocalDateTime start, LocalDateTime end, int n) {
+        return queryTransactions.execute(() -> computeTop(start, end, n));
+    }
+
+    private TopResult computeTop(LocalDateTime start, LocalDateTime end, int n) {
+        List<RollupSegment> segments = RollupQueryPlanner.plan(start, end, RollupGranularity.HOUR);
+        log.debug("План запроса самых просматриваемых uri: {}", segments);
+
+        SpaceSaving merged = new SpaceSaving(properties.getCapacity());
+        List<RollupSegment> sketchSegments = new ArrayList<>();
+        for (RollupSegment segment : segments) {
+            if (!segment.isRaw()) {
+                sketchSegments.add(segment);
+                continue;
+            }
+
+            // точные значения capacity самых просматриваемых uri края - тоже скетч Space-Saving:
+            // количество любого не вошедшего uri не больше последнего значения
+            SpaceSaving edge = new SpaceSaving(properties.getCapacity());
+            try (Stream<HitCount> counts = statsRepository.streamStats(segment.getStart(), segment.getEnd(),
+                    Limit.of(properties.getCapacity()))) {
+                counts.forEach(count -> edge.add(SpaceSaving.item(count.getAppId(), count.getUriId()), count.getHits()));
+            }
+            merged.merge(edge);
+        }
+
+        topKRepository.findBySegments(sketchSegments, merged::merge);
+        topKAggregator.mergePending(key -> sketchSegments.stream().anyMatch(segment -> covers(segment, key)),
+                merged::merge);
+
+        List<TopViewStatsDto> top = merged.top(n).stream()
+                .map(counter -> new TopViewStatsDto(
+                        dictionary.getApp(SpaceSaving.appId(counter.getItem())),
+                        dictionary.getUri(SpaceSaving.uriId(counter.getItem())),
+                        counter.getCount(),
+                        counter.getError()))
+                .toList();
+        return new TopResult(top, merged.minCount());
+    }
+
+    private boolean covers(RollupSegment segment, TopKKey key) {
+        return segment.getGranularity() == key.getGranularity()
+                && !key.getBucketStart().isBefore(segment.getStart())
+                && key.getBucketStart().isBefore(segment.getEnd());
+    }
+
+    /**
+     * Самые просматриваемые uri и граница количества просмотров для uri, не вошедших в результат
+     */
+    @Getter
+    @AllArgsConstructor
+    @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+    public static class TopResult {
+        List<TopViewStatsDto> top;
+        long errorBound;
+    }
+}
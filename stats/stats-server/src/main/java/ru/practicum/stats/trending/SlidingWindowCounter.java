@@ -0,0 +1,84 @@
+package ru.practicum.stats.trending;
+
+/**
+ * Просмотры одного uri в кольцевых буферах: 60 минутных ячеек и 168 часовых.
+ * Ячейка хранит номер своей минуты (часа) от начала эпохи, ячейка другого номера при записи
+ * начинается заново, а при чтении пропускается. Записи старше буфера игнорируются.
+ * Ячейки пополняются просмотрами этого экземпляра и заменяются значениями общих агрегатов всех экземпляров.
+ */
+class SlidingWindowCounter {
+    static final int MINUTES = 60;
+    static final int HOURS = 7 * 24;
+
+    private final long[] minuteIds = new long[MINUTES];
+    private final long[] minuteHits = new long[MINUTES];
+    private final long[] hourIds = new long[HOURS];
+    private final long[] hourHits = new long[HOURS];
+    private long lastMinute;
+
+    synchronized void add(long epochMinute, long hits) {
+        add(minuteIds, minuteHits, epochMinute, hits);
+        add(hourIds, hourHits, epochMinute / 60, hits);
+        lastMinute = Math.max(lastMinute, epochMinute);
+    }
+
+    /**
+     * Заменить просмотры минуты epochMinute значением агрегата
+     */
+    synchronized void setMinute(long epochMinute, long hits) {
+        set(minuteIds, minuteHits, epochMinute, hits);
+        lastMinute = Math.max(lastMinute, epochMinute);
+    }
+
+    /**
+     * Заменить просмотры часа epochHour значением агрегата
+     */
+    synchronized void setHour(long epochHour, long hits) {
+        set(hourIds, hourHits, epochHour, hits);
+        lastMinute = Math.max(lastMinute, epochHour * 60);
+    }
+
+    /**
+     * Просмотры за окно, заканчивающееся в минуте nowMinute включительно.
+     * Окна суток и недели считаются по часам, поэтому включают начало текущего часа.
+     */
+    synchronized long sum(TrendingWindow window, long nowMinute) {
+        return switch (window) {
+            case HOUR -> sum(minuteIds, minuteHits, nowMinute, MINUTES);
+            case DAY -> sum(hourIds, hourHits, nowMinute / 60, 24);
+            case WEEK -> sum(hourIds, hourHits, nowMinute / 60, HOURS);
+        };
+    }
+
+    synchronized long getLastMinute() {
+        return lastMinute;
+    }
+
+    private static void add(long[] ids, long[] hits, long id, long value) {
+        int slot = (int) (id % ids.length);
+        if (ids[slot] < id) {
+            ids[slot] = id;
+            hits[slot] = value;
+        } else if (ids[slot] == id) {
+            hits[slot] += value;
+        }
+    }
+
+    private static void set(long[] ids, long[] hits, long id, long value) {
+        int slot = (int) (id % ids.length);
+        if (ids[slot] <= id) {
+            ids[slot] = id;
+            hits[slot] = value;
+        }
+    }
+
+    private static long sum(long[] ids, long[] hits, long now, int length) {
+        long total = 0;
+        for (int slot = 0; slot < ids.length; slot++) {
+            if (ids[slot] <= now && ids[slot] > now - length) {
+                total += hits[slot];
+            }
+        }
+        return total;
+    }
+}
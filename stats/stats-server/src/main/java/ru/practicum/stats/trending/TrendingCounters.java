@@ -0,0 +1,146 @@
+package ru.practicum.stats.trending;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.dto.ViewStatsDto;
+import ru.practicum.stats.HitListener;
+import ru.practicum.stats.StatsEntry;
+import ru.practicum.stats.dictionary.StatsDictionary;
+import ru.practicum.stats.topk.SpaceSaving;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Счётчики просмотров uri в скользящих окнах 1h, 24h, 7d и рейтинги самых просматриваемых uri по ним.
+ * Счётчики обновляются при сохранении просмотров, рейтинги пересчитываются по расписанию
+ * обходом счётчиков без обращения к БД. Счётчики без просмотров за неделю удаляются.
+ * Просмотры, сохранённые другими экземплярами, учитываются синхронизацией с агрегатами, см. {@link TrendingInitializer}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TrendingCounters implements HitListener {
+    private static final long WEEK_MINUTES = SlidingWindowCounter.HOURS * 60L;
+    private static final Comparator<Ranked> BY_HITS = Comparator.comparingLong(Ranked::getHits);
+
+    private final TrendingProperties properties;
+    private final StatsDictionary dictionary;
+
+    private final Map<Long, SlidingWindowCounter> counters = new ConcurrentHashMap<>();
+    private volatile Map<TrendingWindow, List<Ranked>> leaderboards = new EnumMap<>(TrendingWindow.class);
+
+    @Override
+    public void onHits(List<StatsEntry> entries) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        long nowMinute = epochMinute(LocalDateTime.now());
+        for (StatsEntry entry : entries) {
+            if (entry.getUri() == null || !entry.getUri().startsWith(properties.getUriPrefix())) {
+                continue;
+            }
+            long minute = epochMinute(entry.getTimestamp());
+            // просмотры старше недели или из будущего в рейтинг не попадают
+            if (minute <= nowMinute - WEEK_MINUTES || minute > nowMinute + 1) {
+                continue;
+            }
+            counter(entry.getAppId(), entry.getUriId()).add(minute, entry.getWeight());
+        }
+    }
+
+    void setMinute(LocalDateTime minuteStart, int appId, int uriId, long hits) {
+        counter(appId, uriId).setMinute(epochMinute(minuteStart), hits);
+    }
+
+    void setHour(LocalDateTime hourStart, int appId, int uriId, long hits) {
+        counter(appId, uriId).setHour(epochMinute(hourStart) / 60, hits);
+    }
+
+    /**
+     * n самых просматриваемых uri за окно на момент последнего пересчёта рейтинга
+     */
+    public List<ViewStatsDto> getTop(TrendingWindow window, int n) {
+        List<Ranked> leaderboard = leaderboards.getOrDefault(window, List.of());
+        return leaderboard.subList(0, Math.min(n, leaderboard.size())).stream()
+                .map(ranked -> new ViewStatsDto(
+                        dictionary.getApp(SpaceSaving.appId(ranked.getItem())),
+                        dictionary.getUri(SpaceSaving.uriId(ranked.getItem())),
+                        ranked.getHits()))
+                .toList();
+    }
+
+    public int getSize() {
+        return properties.getSize();
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Пересчёт рейтингов всех окон одним обходом счётчиков с кучей размера size на окно
+     */
+    @Scheduled(fixedDelayString = "${stats.trending.refresh-interval:PT10S}")
+    public void refresh() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        long nowMinute = epochMinute(LocalDateTime.now());
+        Map<TrendingWindow, PriorityQueue<Ranked>> heaps = new EnumMap<>(TrendingWindow.class);
+        for (TrendingWindow window : TrendingWindow.values()) {
+            heaps.put(window, new PriorityQueue<>(properties.getSize() + 1, BY_HITS));
+        }
+
+        counters.entrySet().removeIf(entry -> entry.getValue().getLastMinute() <= nowMinute - WEEK_MINUTES);
+        counters.forEach((item, counter) -> {
+            for (TrendingWindow window : TrendingWindow.values()) {
+                long hits = counter.sum(window, nowMinute);
+                PriorityQueue<Ranked> heap = heaps.get(window);
+                if (hits > 0 && (heap.size() < properties.getSize() || hits > heap.peek().getHits())) {
+                    heap.add(new Ranked(item, hits));
+                    if (heap.size() > properties.getSize()) {
+                        heap.poll();
+                    }
+                }
+            }
+        });
+
+        Map<TrendingWindow, List<Ranked>> updated = new EnumMap<>(TrendingWindow.class);
+        heaps.forEach((window, heap) -> {
+            List<Ranked> leaderboard = new ArrayList<>(heap);
+            leaderboard.sort(BY_HITS.reversed());
+            updated.put(window, List.copyOf(leaderboard));
+        });
+        leaderboards = updated;
+        log.debug("Пересчитаны рейтинги популярных uri, счётчиков: {}", counters.size());
+    }
+
+    private SlidingWindowCounter counter(int appId, int uriId) {
+        return counters.computeIfAbsent(SpaceSaving.item(appId, uriId), item -> new SlidingWindowCounter());
+    }
+
+    private static long epochMinute(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) / 60;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class Ranked {
+        private final long item;
+        private final long hits;
+    }
+}
@@ -0,0 +1,76 @@
+package ru.practicum.stats.trending;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.stats.rollup.RollupGranularity;
+import ru.practicum.stats.rollup.RollupProperties;
+
+import java.time.LocalDateTime;
+
+/**
+ * Заполнение счётчиков скользящих окон просмотрами за последнюю неделю при старте:
+ * последний час - по минутам, неделя - по часам. При включённых агрегатах читаются они, иначе исходные записи.
+ * Затем раз в sync-interval последние интервалы перечитываются и заменяют значения счётчиков, так что рейтинг
+ * каждого экземпляра включает просмотры, сохранённые остальными. Просмотр, учтённый в счётчике между чтением
+ * и заменой, может быть посчитан дважды до следующей синхронизации.
+ */
+@Slf4j
+@Component
+@DependsOn("statsEncodingMigration")
+@RequiredArgsConstructor
+public class TrendingInitializer {
+    private final TrendingRepository trendingRepository;
+    private final TrendingCounters trendingCounters;
+    private final TrendingProperties properties;
+    private final RollupProperties rollupProperties;
+    private final TransactionTemplate transactionTemplate;
+
+    private volatile LocalDateTime syncedAt;
+
+    @PostConstruct
+    public void init() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime hourFrom = RollupGranularity.MINUTE.floor(now).minusMinutes(SlidingWindowCounter.MINUTES - 1);
+        LocalDateTime weekFrom = RollupGranularity.HOUR.floor(now).minusHours(SlidingWindowCounter.HOURS - 1);
+        load(hourFrom, weekFrom);
+        syncedAt = now;
+        trendingCounters.refresh();
+        log.info("Счётчики популярных uri заполнены просмотрами с {}", weekFrom);
+    }
+
+    /**
+     * Перечитывание интервалов с предыдущей синхронизации, включая предыдущие минуту и час,
+     * в которые могли дописаться просмотры после прошлого чтения
+     */
+    @Scheduled(fixedDelayString = "${stats.trending.sync-interval:PT1M}",
+            initialDelayString = "${stats.trending.sync-interval:PT1M}")
+    public void sync() {
+        if (!properties.isEnabled() || syncedAt == null) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        load(RollupGranularity.MINUTE.floor(syncedAt).minusMinutes(1), RollupGranularity.HOUR.floor(syncedAt).minusHours(1));
+        syncedAt = now;
+        log.debug("Счётчики популярных uri синхронизированы с БД");
+    }
+
+    private void load(LocalDateTime minuteFrom, LocalDateTime hourFrom) {
+        boolean useRollup = rollupProperties.isEnabled();
+        transactionTemplate.executeWithoutResult(status -> {
+            trendingRepository.forEachBucket(RollupGranularity.MINUTE, minuteFrom, properties.getUriPrefix(), useRollup,
+                    trendingCounters::setMinute);
+            trendingRepository.forEachBucket(RollupGranularity.HOUR, hourFrom, properties.getUriPrefix(), useRollup,
+                    trendingCounters::setHour);
+        });
+    }
+}
@@ -0,0 +1,31 @@
+package ru.practicum.stats.trending;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Настройки рейтинга популярных сейчас uri
+ */
+@Getter
+@Setter
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@ConfigurationProperties(prefix = "stats.trending")
+public class TrendingProperties {
+    /**
+     * Вести счётчики скользящих окон при сохранении просмотров
+     */
+    boolean enabled = true;
+
+    /**
+     * Счётчики ведутся только для uri с этим префиксом
+     */
+    String uriPrefix = "/events/";
+
+    /**
+     * Длина рейтинга каждого окна, это же максимальное n в запросе
+     */
+    int size = 100;
+}
@@ -0,0 +1,57 @@
+package ru.practicum.stats.trending;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import ru.practicum.stats.rollup.RollupGranularity;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * Начальное заполнение счётчиков скользящих окон из агрегатов или исходных записей
+ */
+@Repository
+@RequiredArgsConstructor
+public class TrendingRepository {
+    private static final String ROLLUP_SQL = """
+            SELECT r.bucket_start, r.app_id, r.uri_id, r.hits
+            FROM stats_rollup r
+            JOIN stats_uri u ON u.id = r.uri_id
+            WHERE r.granularity = ? AND r.bucket_start >= ? AND u.uri LIKE ?""";
+
+    private static final String RAW_SQL = """
+            SELECT date_trunc(?, s.created) AS bucket_start, s.app_id, s.uri_id, sum(s.weight) AS hits
+            FROM stats s
+            JOIN stats_uri u ON u.id = s.uri_id
+            WHERE s.created >= ? AND u.uri LIKE ?
+            GROUP BY 1, 2, 3""";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Просмотры uri с префиксом uriPrefix по интервалам гранулярности granularity, начиная с from
+     * @param useRollup читать из stats_rollup, иначе из stats
+     */
+    public void forEachBucket(RollupGranularity granularity, LocalDateTime from, String uriPrefix, boolean useRollup,
+                              BucketConsumer consumer) {
+        String pattern = escapeLike(uriPrefix) + "%";
+        RowCallbackHandler handler = rs -> consumer.accept(rs.getTimestamp("bucket_start").toLocalDateTime(),
+                rs.getInt("app_id"), rs.getInt("uri_id"), rs.getLong("hits"));
+        if (useRollup) {
+            jdbcTemplate.query(ROLLUP_SQL, handler, granularity.name(), Timestamp.valueOf(from), pattern);
+        } else {
+            jdbcTemplate.query(RAW_SQL, handler, granularity.name().toLowerCase(), Timestamp.valueOf(from), pattern);
+        }
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    @FunctionalInterface
+    public interface BucketConsumer {
+        void accept(LocalDateTime bucketStart, int appId, int uriId, long hits);
+    }
+}
@@ -0,0 +1,28 @@
+package ru.practicum.stats.trending;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Скользящее окно рейтинга: последний час по минутам, последние сутки и неделя по часам
+ */
+public enum TrendingWindow {
+    HOUR("1h"),
+    DAY("24h"),
+    WEEK("7d");
+
+    private final String param;
+
+    TrendingWindow(String param) {
+        this.param = param;
+    }
+
+    /**
+     * Окно по обозначению в запросе: 1h, 24h, 7d
+     */
+    public static Optional<TrendingWindow> fromParam(String param) {
+        return Arrays.stream(values())
+                .filter(window -> window.param.equalsIgnoreCase(param))
+                .findFirst();
+    }
+}
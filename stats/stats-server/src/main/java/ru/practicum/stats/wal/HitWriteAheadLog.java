@@ -0,0 +1,213 @@
+package ru.practicum.stats.wal;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+import ru.practicum.stats.StatsEntry;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Журнал принятых просмотров из сегментов, отображённых в память.
+ * Просмотр подтверждается после записи в сегмент и переживает падение процесса, изменённые страницы
+ * сбрасываются на диск раз в stats.wal.force-interval собственным потоком, чтобы длительные фоновые задачи
+ * на общем планировщике не увеличивали окно возможной потери. Загрузку в таблицу stats выполняет {@link WalLoader}.
+ * Загруженные сегменты переименовываются в free-*.wal и используются повторно.
+ */
+@Slf4j
+@Component
+@DependsOn("statsEncodingMigration")
+@ConditionalOnProperty(prefix = "stats.wal", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class HitWriteAheadLog {
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String FREE_PREFIX = "free-";
+    private static final String SUFFIX = ".wal";
+    private static final int MAX_FREE_FILES = 4;
+
+    private final WalProperties properties;
+    private final WalCheckpointRepository checkpointRepository;
+
+    private final NavigableMap<Long, WalSegment> segments = new ConcurrentSkipListMap<>();
+    private final Deque<Path> freeFiles = new ConcurrentLinkedDeque<>();
+    private final Object appendLock = new Object();
+
+    private Path directory;
+    private ScheduledExecutorService forceExecutor;
+    private volatile WalSegment active;
+    private volatile WalPosition loaded;
+
+    @PostConstruct
+    public void open() throws IOException {
+        directory = Path.of(properties.getDirectory());
+        Files.createDirectories(directory);
+        WalPosition checkpoint = checkpointRepository.find(properties.getNodeId()).orElse(new WalPosition(0, 0));
+
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            if (name.startsWith(FREE_PREFIX)) {
+                freeFiles.add(file);
+            } else if (name.startsWith(SEGMENT_PREFIX)) {
+                long sequence = Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SUFFIX.length()));
+                if (sequence < checkpoint.getSegment()) {
+                    release(file, sequence);
+                } else {
+                    segments.put(sequence, WalSegment.recover(sequence, file, properties.getSegmentRecords()));
+                }
+            }
+        }
+
+        // существующие сегменты только загружаются, запись начинается в новый сегмент.
+        // номер нового сегмента больше позиции загрузки, даже если каталог журнала был утерян
+        long next = Math.max(segments.isEmpty() ? 0 : segments.lastKey(), checkpoint.getSegment()) + 1;
+        active = createSegment(next);
+        loaded = segments.containsKey(checkpoint.getSegment()) ? checkpoint : new WalPosition(segments.firstKey(), 0);
+
+        long pending = segments.values().stream().mapToLong(WalSegment::size).sum() - loaded.getRecord();
+        log.info("Журнал просмотров открыт: каталог = {}, сегментов = {}, позиция загрузки = {}, ожидают загрузки = {}",
+                directory.toAbsolutePath(), segments.size(), loaded, pending);
+
+        long forceMillis = properties.getForceInterval().toMillis();
+        forceExecutor = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("stats-wal-force").daemon(true).factory());
+        forceExecutor.scheduleWithFixedDelay(this::force, forceMillis, forceMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Записать просмотр в журнал
+     * @return false, если количество незагруженных сегментов достигло stats.wal.max-segments
+     */
+    public boolean append(StatsEntry entry) {
+        synchronized (appendLock) {
+            if (active.append(entry)) {
+                return true;
+            }
+            if (segments.size() >= properties.getMaxSegments()) {
+                return false;
+            }
+
+            active.force();
+            active = createSegment(active.getSequence() + 1);
+            return active.append(entry);
+        }
+    }
+
+    /**
+     * Прочитать до max записей с позиции загрузки
+     * @return позиция после последней прочитанной записи
+     */
+    public WalPosition read(int max, List<StatsEntry> out) {
+        long sequence = loaded.getSegment();
+        int index = loaded.getRecord();
+        while (out.size() < max) {
+            WalSegment segment = segments.get(sequence);
+            if (segment == null) {
+                break;
+            }
+
+            // признак закрытого сегмента читается до размера, иначе можно пропустить записи, добавленные перед закрытием
+            boolean sealed = segment != active;
+            int size = segment.size();
+            while (index < size && out.size() < max) {
+                out.add(segment.read(index++));
+            }
+            if (index < size || !sealed) {
+                break;
+            }
+
+            Long nextSequence = segments.higherKey(sequence);
+            if (nextSequence == null) {
+                break;
+            }
+            sequence = nextSequence;
+            index = 0;
+        }
+        return new WalPosition(sequence, index);
+    }
+
+    /**
+     * Отметить записи до позиции загруженными, полностью загруженные сегменты освобождаются
+     */
+    public void markLoaded(WalPosition position) {
+        loaded = position;
+        for (Long sequence : new ArrayList<>(segments.headMap(position.getSegment()).keySet())) {
+            WalSegment segment = segments.remove(sequence);
+            try {
+                segment.close();
+                release(segment.getPath(), sequence);
+            } catch (IOException e) {
+                log.warn("Ошибка освобождения сегмента журнала {}: {}", segment.getPath(), e.getMessage());
+            }
+        }
+    }
+
+    public void force() {
+        try {
+            active.force();
+        } catch (RuntimeException e) {
+            // исключение остановило бы периодический сброс
+            log.warn("Ошибка сброса сегмента журнала на диск: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        forceExecutor.shutdown();
+        synchronized (appendLock) {
+            active.force();
+            for (WalSegment segment : segments.values()) {
+                try {
+                    segment.close();
+                } catch (IOException e) {
+                    log.warn("Ошибка закрытия сегмента журнала {}: {}", segment.getPath(), e.getMessage());
+                }
+            }
+        }
+    }
+
+    private WalSegment createSegment(long sequence) {
+        Path path = directory.resolve(SEGMENT_PREFIX + String.format("%019d", sequence) + SUFFIX);
+        try {
+            Path free = freeFiles.poll();
+            if (free != null) {
+                Files.move(free, path);
+            }
+            WalSegment segment = WalSegment.create(sequence, path, properties.getSegmentRecords());
+            segments.put(sequence, segment);
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ошибка создания сегмента журнала " + path, e);
+        }
+    }
+
+    private void release(Path file, long sequence) throws IOException {
+        if (freeFiles.size() >= MAX_FREE_FILES) {
+            Files.delete(file);
+            return;
+        }
+        Path free = directory.resolve(FREE_PREFIX + sequence + SUFFIX);
+        Files.move(file, free);
+        freeFiles.add(free);
+    }
+}
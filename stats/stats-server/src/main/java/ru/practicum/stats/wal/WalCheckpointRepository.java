@@ -0,0 +1,34 @@
+package ru.practicum.stats.wal;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Позиция загрузки журнала в таблицу stats. Обновляется в одной транзакции с загружаемыми просмотрами,
+ * поэтому после сбоя журнал загружается повторно ровно с незагруженной записи.
+ */
+@Repository
+@RequiredArgsConstructor
+public class WalCheckpointRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    public Optional<WalPosition> find(String nodeId) {
+        List<WalPosition> positions = jdbcTemplate.query(
+                "SELECT segment, record FROM stats_wal_checkpoint WHERE node_id = ?",
+                (rs, rowNum) -> new WalPosition(rs.getLong("segment"), rs.getInt("record")),
+                nodeId);
+        return positions.stream().findFirst();
+    }
+
+    public void save(String nodeId, WalPosition position) {
+        jdbcTemplate.update("""
+                INSERT INTO stats_wal_checkpoint (node_id, segment, record)
+                VALUES (?, ?, ?)
+                ON CONFLICT (node_id) DO UPDATE SET segment = EXCLUDED.segment, record = EXCLUDED.record""",
+                nodeId, position.getSegment(), position.getRecord());
+    }
+}
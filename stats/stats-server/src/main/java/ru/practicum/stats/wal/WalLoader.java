@@ -0,0 +1,88 @@
+package ru.practicum.stats.wal;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.stats.StatsEntry;
+import ru.practicum.stats.StatsService;
+import ru.practicum.stats.dictionary.StatsDictionary;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Фоновая загрузка журнала просмотров в таблицу stats.
+ * Просмотры и новая позиция загрузки записываются одной транзакцией. При недоступности БД
+ * записи остаются в журнале и загружаются при следующем запуске.
+ * Загрузка выполняется собственным потоком: цикл до опустошения журнала не занимает общий планировщик.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "stats.wal", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class WalLoader {
+    private final HitWriteAheadLog writeAheadLog;
+    private final WalCheckpointRepository checkpointRepository;
+    private final WalProperties properties;
+    private final StatsService statsService;
+    private final StatsDictionary dictionary;
+    private final TransactionTemplate transactionTemplate;
+
+    private ScheduledExecutorService executor;
+
+    @PostConstruct
+    public void start() {
+        long intervalMillis = properties.getLoadInterval().toMillis();
+        executor = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("stats-wal-loader").daemon(true).factory());
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                load();
+            } catch (RuntimeException e) {
+                // исключение остановило бы периодическую загрузку
+                log.warn("Ошибка загрузки журнала просмотров: {}", e.getMessage());
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(properties.getLoadInterval().toMillis() * 10, TimeUnit.MILLISECONDS);
+    }
+
+    public void load() {
+        while (true) {
+            List<StatsEntry> batch = new ArrayList<>(properties.getLoadBatchSize());
+            WalPosition position = writeAheadLog.read(properties.getLoadBatchSize(), batch);
+            if (batch.isEmpty()) {
+                writeAheadLog.markLoaded(position);
+                return;
+            }
+
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    for (StatsEntry entry : batch) {
+                        entry.setApp(dictionary.getApp(entry.getAppId()));
+                        entry.setUri(dictionary.getUri(entry.getUriId()));
+                    }
+                    statsService.saveEntries(batch);
+                    checkpointRepository.save(properties.getNodeId(), position);
+                });
+            } catch (RuntimeException e) {
+                log.warn("Ошибка загрузки журнала просмотров, повтор через stats.wal.load-interval: {}", e.getMessage());
+                return;
+            }
+
+            writeAheadLog.markLoaded(position);
+            log.debug("Загружено просмотров из журнала: {}, позиция = {}", batch.size(), position);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package ru.practicum.stats.wal;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Настройки журнала приёма просмотров
+ */
+@Getter
+@Setter
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@ConfigurationProperties(prefix = "stats.wal")
+public class WalProperties {
+    /**
+     * Подтверждать просмотры после записи в журнал, загрузка в таблицу stats выполняется в фоне
+     */
+    boolean enabled = false;
+
+    /**
+     * Каталог сегментов журнала
+     */
+    String directory = "data/stats-wal";
+
+    /**
+     * Идентификатор экземпляра сервиса, под ним в БД хранится позиция загрузки журнала.
+     * У каждого экземпляра должны быть свой каталог и свой идентификатор.
+     */
+    String nodeId = "default";
+
+    /**
+     * Количество записей в одном сегменте
+     */
+    int segmentRecords = 262_144;
+
+    /**
+     * Максимальное количество сегментов, ожидающих загрузки. При превышении просмотры не принимаются.
+     */
+    int maxSegments = 64;
+
+    /**
+     * Максимальное количество записей, загружаемых в БД одной транзакцией
+     */
+    int loadBatchSize = 5_000;
+
+    /**
+     * Пауза между загрузками журнала в БД, загрузка выполняется в отдельном потоке stats-wal-loader
+     */
+    Duration loadInterval = Duration.ofSeconds(1);
+
+    /**
+     * Период сброса изменённых страниц активного сегмента на диск, выполняется в отдельном потоке stats-wal-force.
+     * Просмотры, принятые за последний период, могут быть потеряны при отключении питания
+     */
+    Duration forceInterval = Duration.ofMillis(200);
+}
@@ -0,0 +1,84 @@
+package ru.practicum.stats.wal;
+
+import ru.practicum.stats.StatsEntry;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.zip.CRC32C;
+
+/**
+ * Кодирование просмотра в запись журнала фиксированного размера.
+ * Формат: crc (4), признак записи (1), длина ip (1), резерв (2), app_id (4), uri_id (4),
+ * created в секундах UTC (8), ip (16).
+ * Контрольная сумма считается вместе с номером сегмента, поэтому записи переиспользованного
+ * файла сегмента не считаются корректными в новом сегменте.
+ */
+final class WalRecord {
+    static final int SIZE = 40;
+
+    private static final byte WRITTEN = 1;
+    private static final int PAYLOAD_OFFSET = 4;
+
+    private WalRecord() {
+    }
+
+    static byte[] encode(long segment, StatsEntry entry) {
+        byte[] ip = ipBytes(entry.getIp());
+        ByteBuffer record = ByteBuffer.allocate(SIZE);
+        record.position(PAYLOAD_OFFSET);
+        record.put(WRITTEN);
+        record.put((byte) ip.length);
+        record.putShort((short) 0);
+        record.putInt(entry.getAppId());
+        record.putInt(entry.getUriId());
+        record.putLong(entry.getTimestamp().toEpochSecond(ZoneOffset.UTC));
+        record.put(ip);
+        record.putInt(0, (int) checksum(segment, record.array()));
+        return record.array();
+    }
+
+    /**
+     * Просмотр из записи или null, если запись не заполнена или повреждена
+     */
+    static StatsEntry decode(long segment, byte[] bytes) {
+        ByteBuffer record = ByteBuffer.wrap(bytes);
+        if (record.get(PAYLOAD_OFFSET) != WRITTEN || record.getInt(0) != (int) checksum(segment, bytes)) {
+            return null;
+        }
+
+        record.position(PAYLOAD_OFFSET + 1);
+        int ipLength = record.get();
+        record.getShort();
+        StatsEntry entry = new StatsEntry();
+        entry.setAppId(record.getInt());
+        entry.setUriId(record.getInt());
+        entry.setTimestamp(LocalDateTime.ofEpochSecond(record.getLong(), 0, ZoneOffset.UTC));
+        byte[] ip = new byte[ipLength];
+        record.get(ip);
+        try {
+            entry.setIp(InetAddress.getByAddress(ip).getHostAddress());
+        } catch (UnknownHostException e) {
+            return null;
+        }
+        return entry;
+    }
+
+    private static long checksum(long segment, byte[] record) {
+        CRC32C crc = new CRC32C();
+        crc.update(ByteBuffer.allocate(Long.BYTES).putLong(0, segment));
+        crc.update(record, PAYLOAD_OFFSET, SIZE - PAYLOAD_OFFSET);
+        return crc.getValue();
+    }
+
+    private static byte[] ipBytes(String ip) {
+        try {
+            // ip проверен при приёме просмотра, для адреса в текстовом виде обращения к DNS нет
+            return InetAddress.getByName(ip).getAddress();
+        } catch (UnknownHostException e) {
+            throw new IllegalArgumentException("Некорректный ip: " + ip, e);
+        }
+    }
+}
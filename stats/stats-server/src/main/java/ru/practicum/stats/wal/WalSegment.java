@@ -0,0 +1,97 @@
+package ru.practicum.stats.wal;
+
+import ru.practicum.stats.StatsEntry;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Сегмент журнала - файл фиксированного размера, отображённый в память.
+ * Запись выполняется одним потоком, количество записей публикуется через volatile поле,
+ * поэтому загрузчик читает только полностью записанные записи.
+ */
+final class WalSegment implements Closeable {
+    private final long sequence;
+    private final Path path;
+    private final int capacity;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private volatile int size;
+
+    private WalSegment(long sequence, Path path, int capacity) throws IOException {
+        this.sequence = sequence;
+        this.path = path;
+        this.capacity = capacity;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) capacity * WalRecord.SIZE);
+    }
+
+    /**
+     * Новый сегмент. Файл может быть переиспользованным, старые записи в нём не пройдут проверку контрольной суммы.
+     */
+    static WalSegment create(long sequence, Path path, int capacity) throws IOException {
+        return new WalSegment(sequence, path, capacity);
+    }
+
+    /**
+     * Существующий сегмент, количество записей определяется по первой незаполненной или повреждённой записи
+     */
+    static WalSegment recover(long sequence, Path path, int capacity) throws IOException {
+        WalSegment segment = new WalSegment(sequence, path, capacity);
+        int recovered = 0;
+        while (recovered < capacity && segment.read(recovered) != null) {
+            recovered++;
+        }
+        segment.size = recovered;
+        return segment;
+    }
+
+    boolean append(StatsEntry entry) {
+        int index = size;
+        if (index >= capacity) {
+            return false;
+        }
+
+        buffer.put(index * WalRecord.SIZE, WalRecord.encode(sequence, entry));
+        size = index + 1;
+        return true;
+    }
+
+    StatsEntry read(int index) {
+        byte[] record = new byte[WalRecord.SIZE];
+        buffer.get(index * WalRecord.SIZE, record);
+        return WalRecord.decode(sequence, record);
+    }
+
+    /**
+     * Запись изменённых страниц на диск
+     */
+    void force() {
+        buffer.force();
+    }
+
+    long getSequence() {
+        return sequence;
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isFull() {
+        return size >= capacity;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
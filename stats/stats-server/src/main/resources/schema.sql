@@ -1,7 +1,73 @@
+-- словарь названий сервисов
+CREATE TABLE IF NOT EXISTS stats_app (
+    id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name VARCHAR(255) NOT NULL UNIQUE
+);
+
+-- словарь URI
+CREATE TABLE IF NOT EXISTS stats_uri (
+    id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    uri VARCHAR(255) NOT NULL UNIQUE
+);
+
+-- таблица секционирована по created, партиции создаются и удаляются StatsPartitionManager.
+-- индексы создаются StatsEncodingMigration после перевода существующих данных на словари
 CREATE TABLE IF NOT EXISTS stats (
-    id BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
-    app VARCHAR(255) NOT NULL, -- название сервиса, для которого записывается информация
-    uri VARCHAR(255) NOT NULL, -- URI, для которого был осуществлён запрос
-    ip VARCHAR(15) NOT NULL, -- IP адрес пользователя, осуществившего запрос
-    created TIMESTAMP NOT NULL -- дата и время, когда был совершен запрос
-);
\ No newline at end of file
+    id BIGINT GENERATED ALWAYS AS IDENTITY,
+    app_id INTEGER NOT NULL, -- идентификатор сервиса, для которого записывается информация, из stats_app
+    uri_id INTEGER NOT NULL, -- идентификатор URI, для которого был осуществлён запрос, из stats_uri
+    ip INET NOT NULL, -- IP адрес (IPv4 или IPv6) пользователя, осуществившего запрос
+    created TIMESTAMP NOT NULL, -- дата и время, когда был совершен запрос
+    weight INTEGER NOT NULL DEFAULT 1, -- сколько просмотров представляет запись, больше 1 при выборочном сохранении
+    PRIMARY KEY (id, created)
+) PARTITION BY RANGE (created);
+
+ALTER TABLE stats ADD COLUMN IF NOT EXISTS weight INTEGER NOT NULL DEFAULT 1;
+
+-- агрегированное количество просмотров (app_id, uri_id) по интервалам MINUTE, HOUR, DAY.
+-- таблицы со строковыми app и uri переводятся на словари StatsEncodingMigration
+CREATE TABLE IF NOT EXISTS stats_rollup (
+    granularity VARCHAR(10) NOT NULL,
+    bucket_start TIMESTAMP NOT NULL, -- начало интервала
+    app_id INTEGER NOT NULL, -- из stats_app
+    uri_id INTEGER NOT NULL, -- из stats_uri
+    hits BIGINT NOT NULL,
+    PRIMARY KEY (granularity, bucket_start, app_id, uri_id)
+);
+
+-- скетчи HyperLogLog уникальных ip (app_id, uri_id) по интервалам HOUR, DAY
+CREATE TABLE IF NOT EXISTS stats_hll (
+    granularity VARCHAR(10) NOT NULL,
+    bucket_start TIMESTAMP NOT NULL, -- начало интервала
+    app_id INTEGER NOT NULL, -- из stats_app
+    uri_id INTEGER NOT NULL, -- из stats_uri
+    sketch BYTEA NOT NULL,
+    PRIMARY KEY (granularity, bucket_start, app_id, uri_id)
+);
+
+-- скетчи HyperLogLog уникальных ip каждого uri за всё время
+CREATE TABLE IF NOT EXISTS stats_hll_total (
+    uri_id INTEGER PRIMARY KEY, -- из stats_uri
+    sketch BYTEA NOT NULL
+);
+
+-- время, до которого скетчи HyperLogLog каждого экземпляра stats-server записаны в stats_hll
+CREATE TABLE IF NOT EXISTS stats_hll_watermark (
+    node_id VARCHAR(255) PRIMARY KEY,
+    flushed_at TIMESTAMP NOT NULL
+);
+
+-- скетчи Space-Saving самых просматриваемых (app_id, uri_id) по интервалам HOUR, DAY
+CREATE TABLE IF NOT EXISTS stats_topk (
+    granularity VARCHAR(10) NOT NULL,
+    bucket_start TIMESTAMP NOT NULL, -- начало интервала
+    sketch BYTEA NOT NULL,
+    PRIMARY KEY (granularity, bucket_start)
+);
+
+-- позиция загрузки журнала просмотров каждого экземпляра stats-server в таблицу stats
+CREATE TABLE IF NOT EXISTS stats_wal_checkpoint (
+    node_id VARCHAR(255) PRIMARY KEY,
+    segment BIGINT NOT NULL, -- номер сегмента журнала
+    record INTEGER NOT NULL -- номер первой незагруженной записи в сегменте
+);
@@ -0,0 +1,82 @@
+package ru.practicum.stats.hll;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class HyperLogLogTest {
+    private static final int PRECISION = 14;
+
+    @Test
+    void estimateIsExactForSmallCardinality() {
+        HyperLogLog sketch = new HyperLogLog(PRECISION);
+        for (int i = 0; i < 100; i++) {
+            sketch.add("value-" + (i % 10));
+        }
+
+        assertThat(sketch.estimate()).isEqualTo(10);
+    }
+
+    @Test
+    void estimateIsWithinRelativeError() {
+        HyperLogLog sketch = new HyperLogLog(PRECISION);
+        int cardinality = 100_000;
+        for (int i = 0; i < cardinality; i++) {
+            sketch.add("value-" + i);
+        }
+
+        double error = 3 * HyperLogLog.relativeError(PRECISION);
+        assertThat((double) sketch.estimate()).isCloseTo(cardinality, within(cardinality * error));
+    }
+
+    @Test
+    void mergeCountsUnionOfSketches() {
+        HyperLogLog left = new HyperLogLog(PRECISION);
+        HyperLogLog right = new HyperLogLog(PRECISION);
+        for (int i = 0; i < 30_000; i++) {
+            left.add("value-" + i);
+            right.add("value-" + (i + 20_000));
+        }
+
+        left.merge(right);
+
+        double error = 3 * HyperLogLog.relativeError(PRECISION);
+        assertThat((double) left.estimate()).isCloseTo(50_000, within(50_000 * error));
+    }
+
+    @Test
+    void mergeRejectsDifferentPrecision() {
+        HyperLogLog sketch = new HyperLogLog(PRECISION);
+
+        assertThatThrownBy(() -> sketch.merge(new HyperLogLog(PRECISION - 1)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void fromBytesRestoresSparseAndDenseSketches() {
+        HyperLogLog sparse = new HyperLogLog(PRECISION);
+        HyperLogLog dense = new HyperLogLog(PRECISION);
+        for (int i = 0; i < 100_000; i++) {
+            dense.add("value-" + i);
+            if (i < 50) {
+                sparse.add("value-" + i);
+            }
+        }
+
+        assertThat(HyperLogLog.fromBytes(sparse.toBytes()).estimate()).isEqualTo(sparse.estimate());
+        assertThat(HyperLogLog.fromBytes(dense.toBytes()).estimate()).isEqualTo(dense.estimate());
+        assertThat(sparse.toBytes().length).isLessThan(dense.toBytes().length);
+    }
+
+    @Test
+    void addIpHashesCanonicalAddress() {
+        HyperLogLog sketch = new HyperLogLog(PRECISION);
+        sketch.addIp("2001:db8::1");
+        sketch.addIp("2001:0db8:0000:0000:0000:0000:0000:0001");
+        sketch.addIp("192.168.0.1");
+
+        assertThat(sketch.estimate()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,111 @@
+package ru.practicum.stats.topk;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class SpaceSavingTest {
+
+    @Test
+    void mergeOfDisjointSketchesWithinCapacityIsExact() {
+        SpaceSaving left = new SpaceSaving(10);
+        SpaceSaving right = new SpaceSaving(10);
+        left.add(1, 5);
+        left.add(2, 3);
+        right.add(3, 7);
+        right.add(4, 1);
+
+        left.merge(right);
+
+        assertThat(counts(left.top(10))).containsExactlyInAnyOrderEntriesOf(Map.of(1L, 5L, 2L, 3L, 3L, 7L, 4L, 1L));
+        assertThat(left.top(10)).allSatisfy(counter -> assertThat(counter.getError()).isZero());
+    }
+
+    @Test
+    void mergeOfOverlappingSketchesWithinCapacityIsExact() {
+        SpaceSaving left = new SpaceSaving(10);
+        SpaceSaving right = new SpaceSaving(10);
+        left.add(1, 5);
+        left.add(2, 3);
+        right.add(1, 4);
+        right.add(3, 2);
+
+        left.merge(right);
+
+        assertThat(counts(left.top(10))).containsExactlyInAnyOrderEntriesOf(Map.of(1L, 9L, 2L, 3L, 3L, 2L));
+        assertThat(left.top(1).get(0).getItem()).isEqualTo(1L);
+    }
+
+    @Test
+    void mergeOfFullSketchesBoundsExactCounts() {
+        Random random = new Random(42);
+        Map<Long, Long> exact = new HashMap<>();
+        SpaceSaving left = new SpaceSaving(20);
+        SpaceSaving right = new SpaceSaving(20);
+        for (int i = 0; i < 10_000; i++) {
+            // распределение с выраженными лидерами: элементы с малыми номерами встречаются чаще
+            long item = (long) Math.floor(Math.pow(random.nextDouble(), 3) * 200);
+            (i % 2 == 0 ? left : right).add(item, 1);
+            exact.merge(item, 1L, Long::sum);
+        }
+
+        left.merge(right);
+
+        List<SpaceSaving.Counter> top = left.top(20);
+        assertThat(top).hasSize(20);
+        for (SpaceSaving.Counter counter : top) {
+            long actual = exact.getOrDefault(counter.getItem(), 0L);
+            assertThat(counter.getCount()).isGreaterThanOrEqualTo(actual);
+            assertThat(counter.getCount() - counter.getError()).isLessThanOrEqualTo(actual);
+        }
+        long min = left.minCount();
+        exact.forEach((item, count) -> {
+            if (top.stream().noneMatch(counter -> counter.getItem() == item)) {
+                assertThat(count).isLessThanOrEqualTo(min);
+            }
+        });
+        assertThat(top.get(0).getItem()).isZero();
+    }
+
+    @Test
+    void fromBytesRestoresCounters() {
+        SpaceSaving sketch = new SpaceSaving(3);
+        sketch.add(SpaceSaving.item(1, 10), 4);
+        sketch.add(SpaceSaving.item(1, 11), 2);
+        sketch.add(SpaceSaving.item(2, 10), 1);
+        sketch.add(SpaceSaving.item(2, 12), 5);
+
+        SpaceSaving restored = SpaceSaving.fromBytes(sketch.toBytes());
+
+        assertThat(restored.minCount()).isEqualTo(sketch.minCount());
+        assertThat(restored.top(3))
+                .extracting(SpaceSaving.Counter::getItem, SpaceSaving.Counter::getCount, SpaceSaving.Counter::getError)
+                .containsExactlyElementsOf(sketch.top(3).stream()
+                        .map(counter -> tuple(counter.getItem(), counter.getCount(), counter.getError()))
+                        .toList());
+
+        // восстановленный скетч сохраняет capacity: новый элемент вытесняет минимальный счётчик
+        restored.add(SpaceSaving.item(3, 13), 1);
+        assertThat(restored.top(10)).hasSize(3);
+    }
+
+    @Test
+    void itemPacksAppAndUriIds() {
+        long item = SpaceSaving.item(7, -1);
+
+        assertThat(SpaceSaving.appId(item)).isEqualTo(7);
+        assertThat(SpaceSaving.uriId(item)).isEqualTo(-1);
+    }
+
+    private static Map<Long, Long> counts(List<SpaceSaving.Counter> counters) {
+        Map<Long, Long> counts = new HashMap<>();
+        counters.forEach(counter -> counts.put(counter.getItem(), counter.getCount()));
+        return counts;
+    }
+}
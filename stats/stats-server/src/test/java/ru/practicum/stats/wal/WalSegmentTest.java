@@ -0,0 +1,104 @@
+package ru.practicum.stats.wal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.practicum.stats.StatsEntry;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WalSegmentTest {
+    private static final int CAPACITY = 16;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void recoverReadsAllWrittenRecords() throws IOException {
+        Path path = write(1, 5);
+
+        try (WalSegment segment = WalSegment.recover(1, path, CAPACITY)) {
+            assertThat(segment.size()).isEqualTo(5);
+            StatsEntry entry = segment.read(3);
+            assertThat(entry.getAppId()).isEqualTo(1);
+            assertThat(entry.getUriId()).isEqualTo(103);
+            assertThat(entry.getIp()).isEqualTo("10.0.0.3");
+            assertThat(entry.getTimestamp()).isEqualTo(LocalDateTime.of(2024, 1, 1, 0, 3));
+        }
+    }
+
+    @Test
+    void recoverStopsAtTruncatedRecord() throws IOException {
+        Path path = write(1, 5);
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            // обрыв записи посередине четвёртой записи
+            file.setLength(3L * WalRecord.SIZE + WalRecord.SIZE / 2);
+        }
+
+        try (WalSegment segment = WalSegment.recover(1, path, CAPACITY)) {
+            assertThat(segment.size()).isEqualTo(3);
+        }
+    }
+
+    @Test
+    void recoverStopsAtCorruptRecord() throws IOException {
+        Path path = write(1, 5);
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            long offset = 2L * WalRecord.SIZE + WalRecord.SIZE - 1;
+            file.seek(offset);
+            int value = file.read();
+            file.seek(offset);
+            file.write(value ^ 0xFF);
+        }
+
+        try (WalSegment segment = WalSegment.recover(1, path, CAPACITY)) {
+            assertThat(segment.size()).isEqualTo(2);
+            assertThat(segment.read(2)).isNull();
+        }
+    }
+
+    @Test
+    void recoverIgnoresRecordsOfReusedSegmentFile() throws IOException {
+        Path path = write(1, 5);
+
+        try (WalSegment segment = WalSegment.recover(2, path, CAPACITY)) {
+            assertThat(segment.size()).isZero();
+        }
+    }
+
+    @Test
+    void appendContinuesAfterRecoveredRecords() throws IOException {
+        Path path = write(1, CAPACITY - 1);
+
+        try (WalSegment segment = WalSegment.recover(1, path, CAPACITY)) {
+            assertThat(segment.append(entry(CAPACITY - 1))).isTrue();
+            assertThat(segment.isFull()).isTrue();
+            assertThat(segment.append(entry(CAPACITY))).isFalse();
+            assertThat(segment.read(CAPACITY - 1).getUriId()).isEqualTo(100 + CAPACITY - 1);
+        }
+    }
+
+    private Path write(long sequence, int count) throws IOException {
+        Path path = dir.resolve("segment-" + sequence);
+        try (WalSegment segment = WalSegment.create(sequence, path, CAPACITY)) {
+            for (int i = 0; i < count; i++) {
+                segment.append(entry(i));
+            }
+            segment.force();
+        }
+        return path;
+    }
+
+    private static StatsEntry entry(int i) {
+        StatsEntry entry = new StatsEntry();
+        entry.setAppId(1);
+        entry.setUriId(100 + i);
+        entry.setIp("10.0.0." + i);
+        entry.setTimestamp(LocalDateTime.of(2024, 1, 1, 0, i));
+        return entry;
+    }
+}